@@ -0,0 +1,101 @@
+package com.devicehive.auth;
+
+import com.devicehive.model.Subnet;
+import org.apache.commons.net.util.SubnetUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks a client address against the subnets of a permission, the way it was done before {@link SubnetMatcher}
+ * (commons-net per subnet and per check) and with the matcher.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubnetMatcherBenchmark {
+
+    private static final int ADDRESSES = 1024;
+
+    @Param({"1", "10", "50"})
+    public int subnetCount;
+
+    private List<Subnet> subnets;
+    private SubnetMatcher matcher;
+    private InetAddress[] addresses;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        Random random = new Random(42);
+        subnets = new ArrayList<>(subnetCount);
+        for (int i = 0; i < subnetCount; i++) {
+            subnets.add(new Subnet("10." + random.nextInt(256) + "." + random.nextInt(256) + ".0/" + (16 + random.nextInt(9))));
+        }
+        matcher = SubnetMatcher.of(subnets);
+        addresses = new InetAddress[ADDRESSES];
+        for (int i = 0; i < ADDRESSES; i++) {
+            addresses[i] = InetAddress.getByName("10." + random.nextInt(256) + "." + random.nextInt(256) + "." + random.nextInt(256));
+        }
+    }
+
+    @Benchmark
+    public boolean commonsNet() {
+        InetAddress address = nextAddress();
+        for (Subnet subnet : subnets) {
+            if (isAddressFromSubnet(subnet, address)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean subnetMatcher() {
+        return matcher.matches(nextAddress());
+    }
+
+    @Benchmark
+    public SubnetMatcher buildMatcher() {
+        return SubnetMatcher.of(subnets);
+    }
+
+    private InetAddress nextAddress() {
+        return addresses[next++ & (ADDRESSES - 1)];
+    }
+
+    /**
+     * Previous implementation of {@link Subnet#isAddressFromSubnet(InetAddress)}
+     */
+    private static boolean isAddressFromSubnet(Subnet subnet, InetAddress ip) {
+        if (ip instanceof Inet6Address) {
+            return false;
+        }
+        if (subnet.getInetAddress().getHostAddress().equalsIgnoreCase(ip.getHostAddress()) && subnet.getMask() == 32) {
+            return true;
+        }
+        if (subnet.getMask() == 0) {
+            return true;
+        }
+        SubnetUtils utils = new SubnetUtils(subnet.getSubnet());
+        return utils.getInfo().isInRange(ip.getHostAddress());
+    }
+}
@@ -0,0 +1,96 @@
+package com.devicehive.messages.kafka;
+
+import com.devicehive.auth.HivePrincipal;
+import com.devicehive.configuration.Constants;
+import com.devicehive.messages.handler.HandlerCreator;
+import com.devicehive.messages.subscriptions.NotificationSubscription;
+import com.devicehive.messages.subscriptions.SubscriptionManager;
+import com.devicehive.model.DeviceNotification;
+import com.devicehive.model.JsonStringWrapper;
+import com.devicehive.service.DeviceAccessCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fan-out of consumed notifications to synthetic subscribers. Delivery tasks are run on the calling thread and only
+ * consumed, so the benchmark measures subscription lookup, access checks and batching.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotificationConsumerBenchmark {
+
+    private static final String DEVICE_GUID = "e50d6085-2aba-48e9-b1c3-73c673e414be";
+
+    @Param({"10", "1000"})
+    public int subscribers;
+
+    @Param({"1", "50"})
+    public int messagesPerPoll;
+
+    private NotificationConsumer consumer;
+    private List<DeviceNotification> messages;
+    private Blackhole blackhole;
+    private Executor executor;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        executor = Runnable::run;
+
+        SubscriptionManager subscriptionManager = new SubscriptionManager();
+        HandlerCreator<DeviceNotification> handlerCreator = (message, subId) -> () -> this.blackhole.consume(message);
+        for (int i = 0; i < subscribers; i++) {
+            // a quarter of subscribers listen to all devices
+            String guid = i % 4 == 0 ? Constants.NULL_SUBSTITUTE : DEVICE_GUID;
+            subscriptionManager.getNotificationSubscriptionStorage().insert(new NotificationSubscription(
+                    new HivePrincipal(), guid, UUID.randomUUID(), i % 2 == 0 ? null : "temperature", handlerCreator));
+        }
+
+        consumer = new NotificationConsumer();
+        ReflectionTestUtils.setField(consumer, "subscriptionManager", subscriptionManager);
+        ReflectionTestUtils.setField(consumer, "deviceAccessCache", new DeviceAccessCache() {
+            @Override
+            public boolean hasAccessTo(HivePrincipal principal, String deviceGuid) {
+                return true;
+            }
+        });
+
+        messages = new ArrayList<>(messagesPerPoll);
+        for (int i = 0; i < messagesPerPoll; i++) {
+            DeviceNotification notification = new DeviceNotification();
+            notification.setId(i);
+            notification.setNotification("temperature");
+            notification.setDeviceGuid(DEVICE_GUID);
+            notification.setTimestamp(new Date());
+            notification.setParameters(new JsonStringWrapper("{\"value\":36.6}"));
+            messages.add(notification);
+        }
+    }
+
+    @Benchmark
+    public void submitMessages() {
+        consumer.submitMessages(messages, executor);
+    }
+}
@@ -0,0 +1,91 @@
+package com.devicehive.messages.subscriptions;
+
+import com.devicehive.auth.HivePrincipal;
+import com.devicehive.messages.handler.HandlerCreator;
+import com.devicehive.model.DeviceNotification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Subscription lookups of message consumers running concurrently with subscribe and unsubscribe requests
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubscriptionStorageBenchmark {
+
+    private static final HandlerCreator<DeviceNotification> NO_HANDLER = (message, subId) -> () -> {
+    };
+
+    @Param({"1000"})
+    public int devices;
+
+    @Param({"10"})
+    public int subscriptionsPerDevice;
+
+    private NotificationSubscriptionStorage storage;
+    private String[] guids;
+
+    @Setup
+    public void setUp() {
+        storage = new NotificationSubscriptionStorage();
+        guids = new String[devices];
+        for (int i = 0; i < devices; i++) {
+            guids[i] = UUID.randomUUID().toString();
+            for (int j = 0; j < subscriptionsPerDevice; j++) {
+                storage.insert(subscription(guids[i], j % 2 == 0 ? null : "temperature"));
+            }
+        }
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public Set<NotificationSubscription> lookup() {
+        return storage.getByDeviceGuidAndName(randomGuid(), "temperature");
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public boolean insertAndRemove() {
+        NotificationSubscription subscription = subscription(randomGuid(), "humidity");
+        boolean inserted = storage.insert(subscription);
+        storage.remove(subscription);
+        return inserted;
+    }
+
+    @Benchmark
+    @Group("readOnly")
+    @GroupThreads(4)
+    public Set<NotificationSubscription> lookupWithoutWrites() {
+        return storage.getByDeviceGuidAndName(randomGuid(), "temperature");
+    }
+
+    private String randomGuid() {
+        return guids[ThreadLocalRandom.current().nextInt(guids.length)];
+    }
+
+    private static NotificationSubscription subscription(String guid, String names) {
+        return new NotificationSubscription(new HivePrincipal(), guid, UUID.randomUUID(), names, NO_HANDLER);
+    }
+}
@@ -0,0 +1,121 @@
+package com.devicehive.service.helpers;
+
+import com.devicehive.model.DeviceNotification;
+import com.devicehive.model.JsonStringWrapper;
+import com.hazelcast.config.Config;
+import com.hazelcast.config.JoinConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.query.Predicate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.devicehive.model.enums.SearchableField.GUID;
+import static com.devicehive.model.enums.SearchableField.TIMESTAMP;
+
+/**
+ * Queries built by {@link HazelcastHelper} against a single embedded member, which doesn't join any cluster, so the
+ * benchmark runs offline. The map is indexed the same way as the message store map.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HazelcastHelperBenchmark {
+
+    @Param({"100000"})
+    public int notifications;
+
+    @Param({"1000"})
+    public int devices;
+
+    private HazelcastInstance hazelcastInstance;
+    private IMap<String, DeviceNotification> map;
+    private HazelcastHelper hazelcastHelper;
+    private Date recent;
+
+    @Setup
+    public void setUp() {
+        Config config = new Config("hazelcast-helper-benchmark");
+        config.setProperty("hazelcast.phone.home.enabled", "false");
+        config.setProperty("hazelcast.logging.type", "slf4j");
+        JoinConfig join = config.getNetworkConfig().getJoin();
+        join.getMulticastConfig().setEnabled(false);
+        join.getTcpIpConfig().setEnabled(false);
+        hazelcastInstance = Hazelcast.newHazelcastInstance(config);
+
+        map = hazelcastInstance.getMap("NOTIFICATIONS-MAP");
+        map.addIndex(TIMESTAMP.getField(), true);
+        map.addIndex(GUID.getField(), false);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < notifications; i++) {
+            DeviceNotification notification = new DeviceNotification();
+            notification.setId(i);
+            notification.setNotification(i % 3 == 0 ? "temperature" : "humidity");
+            notification.setDeviceGuid(guid(i % devices));
+            // spread over the last hour, one message per device is newer than the last minute in average
+            notification.setTimestamp(new Date(now - (notifications - i) * 3600000L / notifications));
+            notification.setParameters(new JsonStringWrapper("{\"value\":" + i + "}"));
+            map.set(notification.getHazelcastKey(), notification);
+        }
+        recent = new Date(now - 60000L);
+        hazelcastHelper = new HazelcastHelper();
+    }
+
+    @TearDown
+    public void tearDown() {
+        hazelcastInstance.shutdown();
+    }
+
+    @Benchmark
+    public Predicate<?, ?> buildPredicate() {
+        return hazelcastHelper.prepareFilters(null, null, Collections.singleton(randomGuid()),
+                Collections.singleton("temperature"), recent);
+    }
+
+    @Benchmark
+    public Collection<DeviceNotification> findById() {
+        int id = ThreadLocalRandom.current().nextInt(notifications);
+        return map.values(hazelcastHelper.prepareFilters((long) id, guid(id % devices)));
+    }
+
+    @Benchmark
+    public Collection<DeviceNotification> findRecentByDevice() {
+        return map.values(hazelcastHelper.prepareFilters(null, null, Collections.singleton(randomGuid()),
+                null, recent));
+    }
+
+    @Benchmark
+    public Collection<DeviceNotification> findRecentByDeviceAndName() {
+        List<String> names = Collections.singletonList("temperature");
+        return map.values(hazelcastHelper.prepareFilters(null, randomGuid(), null, names, recent));
+    }
+
+    private String randomGuid() {
+        return guid(ThreadLocalRandom.current().nextInt(devices));
+    }
+
+    private static String guid(int device) {
+        return "benchmark-device-" + device;
+    }
+}
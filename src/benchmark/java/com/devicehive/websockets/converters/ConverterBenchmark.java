@@ -0,0 +1,83 @@
+package com.devicehive.websockets.converters;
+
+import com.devicehive.model.DeviceCommand;
+import com.devicehive.model.DeviceNotification;
+import com.devicehive.model.JsonStringWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of messages sent through Kafka
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConverterBenchmark {
+
+    private DeviceNotificationConverter notificationConverter;
+    private DeviceCommandConverter commandConverter;
+
+    private DeviceNotification notification;
+    private DeviceCommand command;
+    private byte[] notificationBytes;
+    private byte[] commandBytes;
+
+    @Setup
+    public void setUp() {
+        notificationConverter = new DeviceNotificationConverter();
+        commandConverter = new DeviceCommandConverter();
+
+        notification = new DeviceNotification();
+        notification.setId(1L);
+        notification.setNotification("temperature");
+        notification.setDeviceGuid("e50d6085-2aba-48e9-b1c3-73c673e414be");
+        notification.setTimestamp(new Date());
+        notification.setParameters(new JsonStringWrapper("{\"value\":36.6}"));
+        notificationBytes = notificationConverter.toBytes(notification);
+
+        command = new DeviceCommand();
+        command.setId(2L);
+        command.setCommand("turn_on");
+        command.setDeviceGuid("e50d6085-2aba-48e9-b1c3-73c673e414be");
+        command.setTimestamp(new Date());
+        command.setUserId(3L);
+        command.setParameters(new JsonStringWrapper("{\"level\":5}"));
+        command.setLifetime(60);
+        command.setIsUpdated(false);
+        commandBytes = commandConverter.toBytes(command);
+    }
+
+    @Benchmark
+    public byte[] encodeNotification() {
+        return notificationConverter.toBytes(notification);
+    }
+
+    @Benchmark
+    public DeviceNotification decodeNotification() {
+        return notificationConverter.fromBytes(notificationBytes);
+    }
+
+    @Benchmark
+    public byte[] encodeCommand() {
+        return commandConverter.toBytes(command);
+    }
+
+    @Benchmark
+    public DeviceCommand decodeCommand() {
+        return commandConverter.fromBytes(commandBytes);
+    }
+}
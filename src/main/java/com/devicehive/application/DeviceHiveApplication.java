@@ -19,7 +19,7 @@ import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 
 import javax.validation.Validator;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @SpringBootApplication(exclude = { JacksonAutoConfiguration.class })
 @ComponentScan("com.devicehive")
@@ -30,7 +30,18 @@ import java.util.concurrent.Executors;
 @EnableAsync(proxyTargetClass = true)
 public class DeviceHiveApplication extends SpringBootServletInitializer {
 
+    /**
+     * Runs subscriber handlers and other short message related tasks
+     */
     public static final String MESSAGE_EXECUTOR = "DeviceHiveMessageService";
+    /**
+     * Runs REST long polling requests
+     */
+    public static final String LONG_POLL_EXECUTOR = "DeviceHiveLongPollService";
+    /**
+     * Writes queued messages to websocket sessions
+     */
+    public static final String WEBSOCKET_EXECUTOR = "DeviceHiveWebsocketService";
 
     public static void main(String ... args) {
         SpringApplication.run(DeviceHiveApplication.class);
@@ -48,8 +59,24 @@ public class DeviceHiveApplication extends SpringBootServletInitializer {
 
     @Lazy(false)
     @Bean(name = MESSAGE_EXECUTOR)
-    public ExecutorService messageExecutorService(@Value("${app.executor.size}") Integer executorSize) {
-        return Executors.newFixedThreadPool(executorSize);
+    public ExecutorService messageExecutorService(@Value("${app.executor.size}") Integer executorSize,
+                                                  @Value("${app.executor.queue.size:10000}") Integer queueSize) {
+        // message fan-out should slow down the producer of messages rather than lose them
+        return new MonitoredThreadPoolExecutor("message", executorSize, queueSize, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Lazy(false)
+    @Bean(name = LONG_POLL_EXECUTOR)
+    public ExecutorService longPollExecutorService(@Value("${app.executor.longpoll.size:20}") Integer executorSize,
+                                                   @Value("${app.executor.longpoll.queue.size:1000}") Integer queueSize) {
+        return new MonitoredThreadPoolExecutor("long-poll", executorSize, queueSize, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Lazy(false)
+    @Bean(name = WEBSOCKET_EXECUTOR)
+    public ExecutorService websocketExecutorService(@Value("${app.executor.websocket.size:10}") Integer executorSize,
+                                                    @Value("${app.executor.websocket.queue.size:10000}") Integer queueSize) {
+        return new MonitoredThreadPoolExecutor("websocket", executorSize, queueSize, new ThreadPoolExecutor.AbortPolicy());
     }
 
     @Bean
@@ -0,0 +1,43 @@
+package com.devicehive.application;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Exposes queue depth, active threads and rejected tasks of application executors as executor.[bean name].* metrics
+ */
+@Component
+public class ExecutorMetrics implements PublicMetrics {
+
+    @Autowired
+    private Map<String, ExecutorService> executors;
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        for (Map.Entry<String, ExecutorService> entry : executors.entrySet()) {
+            if (!(entry.getValue() instanceof ThreadPoolExecutor)) {
+                continue;
+            }
+            ThreadPoolExecutor executor = (ThreadPoolExecutor) entry.getValue();
+            String prefix = "executor." + entry.getKey() + ".";
+            metrics.add(new Metric<>(prefix + "active", executor.getActiveCount()));
+            metrics.add(new Metric<>(prefix + "poolSize", executor.getPoolSize()));
+            metrics.add(new Metric<>(prefix + "queued", executor.getQueue().size()));
+            metrics.add(new Metric<>(prefix + "completed", executor.getCompletedTaskCount()));
+            if (executor instanceof MonitoredThreadPoolExecutor) {
+                metrics.add(new Metric<>(prefix + "rejected", ((MonitoredThreadPoolExecutor) executor).getRejectedCount()));
+            }
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,56 @@
+package com.devicehive.application;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed size thread pool with bounded queue and named threads. Counts rejected tasks, so the pool can be monitored
+ * along with its queue depth and active threads.
+ */
+public class MonitoredThreadPoolExecutor extends ThreadPoolExecutor {
+
+    private final String name;
+    private final AtomicLong rejected = new AtomicLong();
+
+    public MonitoredThreadPoolExecutor(String name, int size, int queueCapacity, RejectedExecutionHandler handler) {
+        super(size, size, 60L, TimeUnit.SECONDS, createQueue(queueCapacity), new NamedThreadFactory(name));
+        this.name = name;
+        setRejectedExecutionHandler((r, executor) -> {
+            rejected.incrementAndGet();
+            handler.rejectedExecution(r, executor);
+        });
+    }
+
+    private static BlockingQueue<Runnable> createQueue(int capacity) {
+        return capacity > 0 ? new ArrayBlockingQueue<>(capacity) : new SynchronousQueue<>();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        private NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            return new Thread(r, prefix + "-" + counter.incrementAndGet());
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package com.devicehive.application.hazelcast;
 
+import com.devicehive.service.store.MapMessageStore;
+import com.devicehive.service.store.MessageHistoryMapStore;
+import com.devicehive.service.store.MessageRetention;
+import com.devicehive.service.store.RingBufferMessageStore;
 import com.hazelcast.config.*;
 import com.hazelcast.core.Hazelcast;
 import com.hazelcast.core.HazelcastInstance;
@@ -53,11 +57,26 @@ public class HazelcastConfiguration {
     }
 
     @Bean
-    public Config config(NetworkConfig networkConfig) {
+    public Config config(NetworkConfig networkConfig, MessageRetention retention, ApplicationContext context) {
         final Config config = new XmlConfigBuilder().build();
         config.setNetworkConfig(networkConfig);
         config.getGroupConfig().setName(env.getProperty("hazelcast.group.name"));
 
+        // buffer is idle only when its device is silent, so it holds no messages younger than the longest time to live
+        final int bufferMaxIdleSec = (int) Math.min(Integer.MAX_VALUE, retention.getMaxTtlSec());
+        config.getMapConfig(RingBufferMessageStore.NOTIFICATIONS_BUFFERS).setMaxIdleSeconds(bufferMaxIdleSec);
+        config.getMapConfig(RingBufferMessageStore.COMMANDS_BUFFERS).setMaxIdleSeconds(bufferMaxIdleSec);
+
+        if (env.getProperty("message.history.enabled", Boolean.class, false)) {
+            // looked up only here, so the data source isn't required to start hazelcast while history is disabled
+            final MapStoreConfig mapStoreConfig = new MapStoreConfig()
+                    .setEnabled(true)
+                    .setImplementation(context.getBean(MessageHistoryMapStore.class))
+                    .setWriteDelaySeconds(env.getProperty("message.history.write.delay.sec", Integer.class, 5))
+                    .setWriteBatchSize(env.getProperty("message.history.write.batch.size", Integer.class, 500));
+            config.getMapConfig(MapMessageStore.NOTIFICATIONS_MAP).setMapStoreConfig(mapStoreConfig);
+            config.getMapConfig(MapMessageStore.COMMANDS_MAP).setMapStoreConfig(mapStoreConfig);
+        }
         return config;
     }
 
@@ -8,7 +8,10 @@ import org.apache.kafka.common.errors.WakeupException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Author: Yuliia Vovk
@@ -18,15 +21,28 @@ import java.util.Collections;
 public class ConsumerWorkable<T> implements Runnable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ConsumerWorkable.class);
+    private static final Executor SAME_THREAD = Runnable::run;
+
     private final KafkaConsumer<String, T> consumer;
     private final String topic;
     private final IConsumer<T> provider;
+    private final KeyedWorkerPool workers;
 
     public ConsumerWorkable(KafkaConsumer<String, T> consumer,
                             String topic, IConsumer<T> provider) {
+        this(consumer, topic, provider, null);
+    }
+
+    /**
+     * Messages are processed by the worker pinned to the record key (device guid), so messages of one device are
+     * delivered in the order they were published.
+     */
+    public ConsumerWorkable(KafkaConsumer<String, T> consumer,
+                            String topic, IConsumer<T> provider, KeyedWorkerPool workers) {
         this.topic = topic;
         this.consumer = consumer;
         this.provider = provider;
+        this.workers = workers;
     }
 
     @Override
@@ -36,10 +52,20 @@ public class ConsumerWorkable<T> implements Runnable {
 
             while (!Thread.currentThread().isInterrupted()) {
                 final ConsumerRecords<String, T> records = consumer.poll(Long.MAX_VALUE);
+                if (workers != null) {
+                    dispatch(records);
+                    continue;
+                }
+                final List<T> messages = new ArrayList<>(records.count());
                 for (ConsumerRecord<String, T> record : records) {
                     final T message = record.value();
                     LOGGER.debug("Topic {}, partition {}, message {} ", topic, record.partition(), message);
-                    provider.submitMessage(message);
+                    if (message != null) {
+                        messages.add(message);
+                    }
+                }
+                if (!messages.isEmpty()) {
+                    provider.submitMessages(messages);
                 }
             }
         } catch (WakeupException e) {
@@ -49,6 +75,30 @@ public class ConsumerWorkable<T> implements Runnable {
         }
     }
 
+    private void dispatch(ConsumerRecords<String, T> records) {
+        final List<List<T>> messagesByWorker = new ArrayList<>(workers.size());
+        for (int i = 0; i < workers.size(); i++) {
+            messagesByWorker.add(new ArrayList<>());
+        }
+        for (ConsumerRecord<String, T> record : records) {
+            LOGGER.debug("Topic {}, partition {}, message {} ", topic, record.partition(), record.value());
+            // converters read records they can't parse as null
+            if (record.value() != null) {
+                messagesByWorker.get(workers.indexOf(record.key())).add(record.value());
+            }
+        }
+        for (int i = 0; i < messagesByWorker.size(); i++) {
+            final List<T> messages = messagesByWorker.get(i);
+            if (!messages.isEmpty()) {
+                // websocket handlers only put messages to session queues, so they are run by the worker to keep
+                // the order, while REST requests are resumed by the message executor. Access decisions missing in
+                // DeviceAccessCache are still loaded from the database by the worker, holding only devices of that
+                // worker until the decision is cached.
+                workers.execute(i, () -> provider.submitMessages(messages, SAME_THREAD));
+            }
+        }
+    }
+
     public void shutdown() {
         consumer.wakeup();
     }
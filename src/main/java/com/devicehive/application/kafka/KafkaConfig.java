@@ -1,12 +1,14 @@
 package com.devicehive.application.kafka;
 
-import com.devicehive.application.DeviceHiveApplication;
+import com.devicehive.application.MonitoredThreadPoolExecutor;
 import com.devicehive.configuration.Constants;
 import com.devicehive.messages.kafka.CommandConsumer;
 import com.devicehive.messages.kafka.CommandUpdateConsumer;
 import com.devicehive.messages.kafka.NotificationConsumer;
 import com.devicehive.model.DeviceCommand;
 import com.devicehive.model.DeviceNotification;
+import com.devicehive.websockets.converters.DeviceCommandBinaryConverter;
+import com.devicehive.websockets.converters.DeviceNotificationBinaryConverter;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.clients.producer.KafkaProducer;
@@ -17,13 +19,13 @@ import org.apache.kafka.common.serialization.StringSerializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.*;
 import org.springframework.core.env.Environment;
 
 import java.util.*;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 @Configuration
@@ -35,6 +37,7 @@ public class KafkaConfig {
     public static final String NOTIFICATION_CONSUMER_WORKABLE = "notificationWorkable";
     public static final String COMMAND_CONSUMER_WORKABLE = "commandWorkable";
     public static final String COMMAND_UPDATE_CONSUMER_WORKABLE = "commandUpdateWorkable";
+    public static final String CONSUMER_EXECUTOR = "DeviceHiveConsumerService";
 
     private static final String NOTIFICATION_GROUP_ID = "notification.group";
     private static final String COMMAND_GROUP_ID = "command.group";
@@ -42,6 +45,8 @@ public class KafkaConfig {
 
     private static final String NOTIFICATION_SERIALIZER = "notification.serializer.class";
     private static final String COMMAND_SERIALIZER = "command.serializer.class";
+    private static final String NOTIFICATION_DESERIALIZER = "notification.deserializer.class";
+    private static final String COMMAND_DESERIALIZER = "command.deserializer.class";
 
     @Autowired
     private Environment env;
@@ -55,12 +60,30 @@ public class KafkaConfig {
     @Value("${device.partitions.count:1}")
     private Integer devicePartitionsCount;
 
+    @Value("${device.workers.count:4}")
+    private Integer deviceWorkersCount;
+
+    @Value("${command.workers.count:2}")
+    private Integer commandWorkersCount;
+
+    @Value("${command.update.workers.count:2}")
+    private Integer commandUpdWorkersCount;
+
+    @Value("${kafka.worker.queue.size:1000}")
+    private Integer workerQueueSize;
+
     @Value("${bootstrap.servers}")
     private String brokerList;
 
-    @Autowired
-    @Qualifier(DeviceHiveApplication.MESSAGE_EXECUTOR)
-    private ExecutorService executorService;
+    /**
+     * Runs consumer loops only, every loop occupies a thread for the whole application lifetime
+     */
+    @Profile({"!test"})
+    @Bean(name = CONSUMER_EXECUTOR)
+    public ExecutorService consumerExecutorService() {
+        int loops = devicePartitionsCount + commandPartitionsCount + commandUpdPartitionsCount;
+        return new MonitoredThreadPoolExecutor("kafka-consumer", loops, 0, new ThreadPoolExecutor.AbortPolicy());
+    }
 
     @Bean
     @Scope("prototype")
@@ -99,18 +122,20 @@ public class KafkaConfig {
     @Lazy(false)
     public List<ConsumerWorkable> notificationConsumerWorkable() {
         String groupId = NOTIFICATION_GROUP_ID + UUID.randomUUID().toString();
-        final Properties properties = consumerSharedProps(groupId, env.getProperty(NOTIFICATION_SERIALIZER), NOTIFICATION_CONSUMER_WORKABLE);
+        final Properties properties = consumerSharedProps(groupId, env.getProperty(NOTIFICATION_DESERIALIZER,
+                DeviceNotificationBinaryConverter.class.getName()), NOTIFICATION_CONSUMER_WORKABLE);
 
+        final KeyedWorkerPool workers = new KeyedWorkerPool(NOTIFICATION_CONSUMER_WORKABLE, deviceWorkersCount, workerQueueSize);
         final List<ConsumerWorkable> consumers = new LinkedList<>();
         for (int i = 0; i < devicePartitionsCount; i++) {
             final KafkaConsumer<String, DeviceNotification> c = new KafkaConsumer<>(properties);
             final ConsumerWorkable<DeviceNotification> consumer = new ConsumerWorkable<>(c,
-                    Constants.NOTIFICATION_TOPIC_NAME, notificationConsumer());
+                    Constants.NOTIFICATION_TOPIC_NAME, notificationConsumer(), workers);
             consumers.add(consumer);
-            executorService.submit(consumer);
+            consumerExecutorService().submit(consumer);
         }
 
-        shutdownConsumers(consumers);
+        shutdownConsumers(consumers, workers);
 
         return consumers;
     }
@@ -120,18 +145,20 @@ public class KafkaConfig {
     @Lazy(false)
     public List<ConsumerWorkable> commandConsumerWorkable() {
         String groupId = COMMAND_GROUP_ID + UUID.randomUUID().toString();
-        final Properties properties = consumerSharedProps(groupId, env.getProperty(COMMAND_SERIALIZER), COMMAND_CONSUMER_WORKABLE);
+        final Properties properties = consumerSharedProps(groupId, env.getProperty(COMMAND_DESERIALIZER,
+                DeviceCommandBinaryConverter.class.getName()), COMMAND_CONSUMER_WORKABLE);
 
+        final KeyedWorkerPool workers = new KeyedWorkerPool(COMMAND_CONSUMER_WORKABLE, commandWorkersCount, workerQueueSize);
         final List<ConsumerWorkable> consumers = new LinkedList<>();
         for (int i = 0; i < commandPartitionsCount; i++) {
             final KafkaConsumer<String, DeviceCommand> c = new KafkaConsumer<>(properties);
             final ConsumerWorkable<DeviceCommand> consumer = new ConsumerWorkable<>(c,
-                    Constants.COMMAND_TOPIC_NAME, commandConsumer());
+                    Constants.COMMAND_TOPIC_NAME, commandConsumer(), workers);
             consumers.add(consumer);
-            executorService.submit(consumer);
+            consumerExecutorService().submit(consumer);
         }
 
-        shutdownConsumers(consumers);
+        shutdownConsumers(consumers, workers);
 
         return consumers;
     }
@@ -141,31 +168,36 @@ public class KafkaConfig {
     @Lazy(false)
     public List<ConsumerWorkable> commandUpdateConsumerWorkable() {
         String groupId = COMMAND_UPDATE_GROUP_ID + UUID.randomUUID().toString();
-        final Properties properties = consumerSharedProps(groupId, env.getProperty(COMMAND_SERIALIZER), COMMAND_UPDATE_CONSUMER_WORKABLE);
+        final Properties properties = consumerSharedProps(groupId, env.getProperty(COMMAND_DESERIALIZER,
+                DeviceCommandBinaryConverter.class.getName()), COMMAND_UPDATE_CONSUMER_WORKABLE);
 
+        final KeyedWorkerPool workers = new KeyedWorkerPool(COMMAND_UPDATE_CONSUMER_WORKABLE, commandUpdWorkersCount, workerQueueSize);
         final List<ConsumerWorkable> consumers = new LinkedList<>();
         for (int i = 0; i < commandUpdPartitionsCount; i++) {
             final KafkaConsumer<String, DeviceCommand> c = new KafkaConsumer<>(properties);
             final ConsumerWorkable<DeviceCommand> consumer = new ConsumerWorkable<>(c,
-                    Constants.COMMAND_UPDATE_TOPIC_NAME, commandUpdateConsumer());
+                    Constants.COMMAND_UPDATE_TOPIC_NAME, commandUpdateConsumer(), workers);
             consumers.add(consumer);
-            executorService.submit(consumer);
+            consumerExecutorService().submit(consumer);
         }
 
-        shutdownConsumers(consumers);
+        shutdownConsumers(consumers, workers);
 
         return consumers;
     }
 
-    private void shutdownConsumers(List<ConsumerWorkable> consumerWorkables) {
+    private void shutdownConsumers(List<ConsumerWorkable> consumerWorkables, KeyedWorkerPool workers) {
+        final ExecutorService consumerExecutor = consumerExecutorService();
         Runtime.getRuntime().addShutdownHook(new Thread() {
 
             @Override
             public void run() {
                 consumerWorkables.forEach(ConsumerWorkable::shutdown);
-                executorService.shutdown();
+                workers.shutdown();
+                consumerExecutor.shutdown();
                 try {
-                    executorService.awaitTermination(5000, TimeUnit.MILLISECONDS);
+                    workers.awaitTermination(5000, TimeUnit.MILLISECONDS);
+                    consumerExecutor.awaitTermination(5000, TimeUnit.MILLISECONDS);
                 } catch (InterruptedException e) {
                     LOGGER.error("Exception occurred while shutting executor service: {}", e);
                 }
@@ -190,8 +222,15 @@ public class KafkaConfig {
         properties.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, brokerList);
         properties.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
         properties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, serializer);
-
-        LOGGER.info("Creating kafka producer {} for bootstrap.servers {}", producerName, brokerList);
+        properties.put(ProducerConfig.ACKS_CONFIG, env.getProperty(ProducerConfig.ACKS_CONFIG, "1"));
+        properties.put(ProducerConfig.RETRIES_CONFIG, env.getProperty(ProducerConfig.RETRIES_CONFIG, "0"));
+        properties.put(ProducerConfig.LINGER_MS_CONFIG, env.getProperty(ProducerConfig.LINGER_MS_CONFIG, "0"));
+        properties.put(ProducerConfig.BATCH_SIZE_CONFIG, env.getProperty(ProducerConfig.BATCH_SIZE_CONFIG, "16384"));
+        properties.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, env.getProperty(ProducerConfig.COMPRESSION_TYPE_CONFIG, "none"));
+        properties.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION,
+                env.getProperty(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, "5"));
+
+        LOGGER.info("Creating kafka producer {} with properties {}", producerName, properties);
         return new KafkaProducer<>(properties);
     }
 }
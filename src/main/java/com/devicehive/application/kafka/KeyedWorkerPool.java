@@ -0,0 +1,93 @@
+package com.devicehive.application.kafka;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed set of single threaded workers with bounded queues. Tasks with the same key are always executed by the same
+ * worker, so they are processed in submission order. When the worker queue is full the submitting thread is blocked,
+ * which throttles Kafka consumer loop instead of dropping or reordering messages.
+ */
+public class KeyedWorkerPool {
+    private static final Logger logger = LoggerFactory.getLogger(KeyedWorkerPool.class);
+
+    private final String name;
+    private final ThreadPoolExecutor[] workers;
+
+    public KeyedWorkerPool(String name, int size, int queueCapacity) {
+        if (size <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Worker pool size and queue capacity should be positive");
+        }
+        this.name = name;
+        this.workers = new ThreadPoolExecutor[size];
+        AtomicInteger counter = new AtomicInteger();
+        for (int i = 0; i < size; i++) {
+            workers[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                    r -> {
+                        Thread thread = new Thread(r, name + "-worker-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    (r, executor) -> {
+                        if (executor.isShutdown()) {
+                            throw new RejectedExecutionException("Worker pool " + name + " is shut down");
+                        }
+                        try {
+                            executor.getQueue().put(r);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new RejectedExecutionException("Interrupted while waiting for worker", e);
+                        }
+                    });
+        }
+    }
+
+    public void execute(String key, Runnable task) {
+        execute(indexOf(key), task);
+    }
+
+    public void execute(int worker, Runnable task) {
+        workers[worker].execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.error("Unexpected exception in worker pool {}", name, e);
+            }
+        });
+    }
+
+    public int indexOf(String key) {
+        return key == null ? 0 : Math.floorMod(key.hashCode(), workers.length);
+    }
+
+    public int size() {
+        return workers.length;
+    }
+
+    public int getQueuedTasks() {
+        int queued = 0;
+        for (ThreadPoolExecutor worker : workers) {
+            queued += worker.getQueue().size();
+        }
+        return queued;
+    }
+
+    public void shutdown() {
+        for (ThreadPoolExecutor worker : workers) {
+            worker.shutdown();
+        }
+    }
+
+    public void awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (ThreadPoolExecutor worker : workers) {
+            worker.awaitTermination(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -1,9 +1,7 @@
 package com.devicehive.auth;
 
 import com.devicehive.model.AccessKeyPermission;
-import com.devicehive.model.AvailableActions;
 import com.devicehive.model.Device;
-import com.devicehive.model.Subnet;
 import com.devicehive.model.enums.UserRole;
 
 import java.net.InetAddress;
@@ -14,98 +12,26 @@ public class CheckPermissionsHelper {
 
     public static void filterActions(AccessKeyAction allowedAction,
                                      Set<AccessKeyPermission> permissions) {
-        Set<AccessKeyPermission> permissionsToRemove = new HashSet<>();
-        for (AccessKeyPermission currentPermission : permissions) {
-            boolean isCurrentPermissionAllowed = false;
-            Set<String> actions = currentPermission.getActionsAsSet();
-            // remove all admin permissions for non admin users
-            if (actions != null) {
-                if (currentPermission.getAccessKey() != null  && currentPermission.getAccessKey().getUser().getRole() != UserRole.ADMIN) {
-                    actions.removeAll(AvailableActions.getAdminActions());
-                }
-                for (String accessKeyAction : actions) {
-                    isCurrentPermissionAllowed = accessKeyAction.equalsIgnoreCase(allowedAction.getValue());
-                    if (isCurrentPermissionAllowed) {
-                        break;
-                    }
-                }
-                if (!isCurrentPermissionAllowed) {
-                    permissionsToRemove.add(currentPermission);
-                }
-            } else {
-                if (currentPermission.getAccessKey() != null  && currentPermission.getAccessKey().getUser().getRole() != UserRole.ADMIN) {
-                    if (AvailableActions.getAdminActions().contains(allowedAction.getValue())) {
-                        permissionsToRemove.add(currentPermission);
-                    }
-                }
-            }
-        }
-        permissions.removeAll(permissionsToRemove);
+        permissions.removeIf(permission -> !permission.getCompiled().allowsAction(allowedAction, isAdmin(permission)));
     }
 
     public static void filterIP(InetAddress clientIp, Set<AccessKeyPermission> permissions) {
-        Set<AccessKeyPermission> permissionsToRemove = new HashSet<>();
-        for (AccessKeyPermission currentPermission : permissions) {
-            Set<Subnet> subnetsAsSet = currentPermission.getSubnetsAsSet();
-            if (subnetsAsSet != null) {
-                boolean isCurrentPermissionAllowed = false;
-                for (Subnet subnet : currentPermission.getSubnetsAsSet()) {
-                    isCurrentPermissionAllowed = subnet.isAddressFromSubnet(clientIp);
-                    if (isCurrentPermissionAllowed) {
-                        break;
-                    }
-                }
-                if (!isCurrentPermissionAllowed) {
-                    permissionsToRemove.add(currentPermission);
-                }
-            }
-        }
-        permissions.removeAll(permissionsToRemove);
+        permissions.removeIf(permission -> !permission.getCompiled().allowsAddress(clientIp));
     }
 
     public static void filterDomains(String clientDomain, Set<AccessKeyPermission> permissions) {
         if (clientDomain == null) {
             return;
         }
-        Set<AccessKeyPermission> permissionsToRemove = new HashSet<>();
-        for (AccessKeyPermission currentPermission : permissions) {
-            Set<String> domainsAsSet = currentPermission.getDomainsAsSet();
-            if (domainsAsSet != null) {
-                boolean isCurrentPermissionAllowed = false;
-                for (String currentDomain : domainsAsSet) {
-                    isCurrentPermissionAllowed = clientDomain.endsWith(currentDomain);
-                    if (isCurrentPermissionAllowed) {
-                        break;
-                    }
-                }
-                if (!isCurrentPermissionAllowed) {
-                    permissionsToRemove.add(currentPermission);
-                }
-            }
-        }
-        permissions.removeAll(permissionsToRemove);
+        permissions.removeIf(permission -> !permission.getCompiled().allowsDomain(clientDomain));
     }
 
     public static void filterNetworks(Set<AccessKeyPermission> permissions) {
-        Set<AccessKeyPermission> permissionToRemove = new HashSet<>();
-        for (AccessKeyPermission currentPermission : permissions) {
-            Set<Long> currentNetworkIds = currentPermission.getNetworkIdsAsSet();
-            if (currentNetworkIds != null && currentNetworkIds.isEmpty()) {
-                permissionToRemove.add(currentPermission);
-            }
-        }
-        permissions.removeAll(permissionToRemove);
+        permissions.removeIf(permission -> permission.getCompiled().allowsNoNetworks());
     }
 
     public static void filterDeviceGuids(Set<AccessKeyPermission> permissions) {
-        Set<AccessKeyPermission> permissionToRemove = new HashSet<>();
-        for (AccessKeyPermission currentPermission : permissions) {
-            Set<String> currentDeviceGuids = currentPermission.getDeviceGuidsAsSet();
-            if (currentDeviceGuids != null && currentDeviceGuids.isEmpty()) {
-                permissionToRemove.add(currentPermission);
-            }
-        }
-        permissions.removeAll(permissionToRemove);
+        permissions.removeIf(permission -> permission.getCompiled().allowsNoDevices());
     }
 
     public static Set<AccessKeyPermission> filterPermissions(Set<AccessKeyPermission> permissions,
@@ -122,18 +48,20 @@ public class CheckPermissionsHelper {
 
     public static boolean checkFilteredPermissions(Set<AccessKeyPermission> permissions, Device device) {
         for (AccessKeyPermission permission : permissions) {
-            Set<Long> networks = permission.getNetworkIdsAsSet();
-            if (networks != null && !networks.contains(device.getNetwork().getId())) {
+            CompiledPermission compiled = permission.getCompiled();
+            if (compiled.isNetworkRestricted() && !compiled.allowsNetwork(device.getNetwork().getId())) {
                 continue;
             }
-            Set<String> deviceGuids = permission.getDeviceGuidsAsSet();
-            if (deviceGuids != null && !deviceGuids.contains(device.getGuid())) {
-                continue;
+            if (compiled.allowsDevice(device.getGuid())) {
+                return true;
             }
-            return true;
         }
         return false;
     }
 
+    private static boolean isAdmin(AccessKeyPermission permission) {
+        return permission.getAccessKey() == null || permission.getAccessKey().getUser().getRole() == UserRole.ADMIN;
+    }
+
 
 }
@@ -0,0 +1,139 @@
+package com.devicehive.auth;
+
+import com.devicehive.model.AccessKeyPermission;
+import com.devicehive.model.AvailableActions;
+import com.devicehive.model.Subnet;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Immutable form of {@link AccessKeyPermission} with all JSON fields parsed once, so checks made per request and per
+ * delivered message don't parse and allocate. {@code null} restriction means the permission isn't restricted by it.
+ */
+public final class CompiledPermission {
+
+    private final String[] domains;
+    private final SubnetMatcher subnets;
+    private final Set<AccessKeyAction> actions;
+    /**
+     * Actions which are left to users without admin role, i.e. without actions listed as admin ones
+     */
+    private final Set<AccessKeyAction> nonAdminActions;
+    private final long[] networkIds;
+    private final Set<String> deviceGuids;
+
+    private CompiledPermission(String[] domains, SubnetMatcher subnets, Set<AccessKeyAction> actions,
+                               Set<AccessKeyAction> nonAdminActions, long[] networkIds, Set<String> deviceGuids) {
+        this.domains = domains;
+        this.subnets = subnets;
+        this.actions = actions;
+        this.nonAdminActions = nonAdminActions;
+        this.networkIds = networkIds;
+        this.deviceGuids = deviceGuids;
+    }
+
+    public static CompiledPermission compile(AccessKeyPermission permission) {
+        Set<String> domains = permission.getDomainsAsSet();
+        Set<Subnet> subnets = permission.getSubnetsAsSet();
+        Set<String> actions = permission.getActionsAsSet();
+        Set<Long> networkIds = permission.getNetworkIdsAsSet();
+        Set<String> deviceGuids = permission.getDeviceGuidsAsSet();
+
+        Set<AccessKeyAction> allowed = null;
+        Set<AccessKeyAction> allowedToNonAdmin = null;
+        if (actions != null) {
+            allowed = EnumSet.noneOf(AccessKeyAction.class);
+            allowedToNonAdmin = EnumSet.noneOf(AccessKeyAction.class);
+            for (String name : actions) {
+                AccessKeyAction action = actionOf(name);
+                if (action != null) {
+                    allowed.add(action);
+                    if (!AvailableActions.getAdminActions().contains(name)) {
+                        allowedToNonAdmin.add(action);
+                    }
+                }
+            }
+            allowed = Collections.unmodifiableSet(allowed);
+            allowedToNonAdmin = Collections.unmodifiableSet(allowedToNonAdmin);
+        }
+        long[] networks = null;
+        if (networkIds != null) {
+            networks = networkIds.stream().mapToLong(Long::longValue).sorted().toArray();
+        }
+        return new CompiledPermission(
+                domains != null ? domains.toArray(new String[domains.size()]) : null,
+                subnets != null ? SubnetMatcher.of(subnets) : null,
+                allowed, allowedToNonAdmin, networks,
+                deviceGuids != null ? Collections.unmodifiableSet(new HashSet<>(deviceGuids)) : null);
+    }
+
+    private static AccessKeyAction actionOf(String name) {
+        for (AccessKeyAction action : AccessKeyAction.values()) {
+            if (action.getValue() != null && action.getValue().equalsIgnoreCase(name)) {
+                return action;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param admin whether the key owner is admin, admin actions granted to a key aren't available to other users
+     */
+    public boolean allowsAction(AccessKeyAction action, boolean admin) {
+        if (actions == null) {
+            return admin || !AvailableActions.getAdminActions().contains(action.getValue());
+        }
+        return (admin ? actions : nonAdminActions).contains(action);
+    }
+
+    public boolean allowsAddress(InetAddress address) {
+        return subnets == null || subnets.matches(address);
+    }
+
+    public boolean allowsDomain(String domain) {
+        if (domains == null || domain == null) {
+            return true;
+        }
+        for (String allowed : domains) {
+            if (domain.endsWith(allowed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isNetworkRestricted() {
+        return networkIds != null;
+    }
+
+    public boolean allowsNetwork(Long networkId) {
+        return networkIds == null || networkId != null && Arrays.binarySearch(networkIds, networkId) >= 0;
+    }
+
+    /**
+     * @return true if the permission is restricted to empty list of networks, so it allows nothing
+     */
+    public boolean allowsNoNetworks() {
+        return networkIds != null && networkIds.length == 0;
+    }
+
+    public boolean isDeviceRestricted() {
+        return deviceGuids != null;
+    }
+
+    public boolean allowsDevice(String deviceGuid) {
+        return deviceGuids == null || deviceGuids.contains(deviceGuid);
+    }
+
+    /**
+     * @return true if the permission is restricted to empty list of devices, so it allows nothing
+     */
+    public boolean allowsNoDevices() {
+        return deviceGuids != null && deviceGuids.isEmpty();
+    }
+}
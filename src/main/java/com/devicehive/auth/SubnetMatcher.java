@@ -0,0 +1,154 @@
+package com.devicehive.auth;
+
+import com.devicehive.model.Subnet;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Matches addresses against a set of IPv4 and IPv6 subnets. Subnets are converted to address ranges, which are
+ * sorted and merged once, so a check is a binary search over integers instead of a pass over all subnets.
+ */
+public final class SubnetMatcher {
+
+    private static final long IPV4_MASK = 0xFFFFFFFFL;
+
+    /**
+     * IPv4 ranges as unsigned integers, sorted and not overlapping
+     */
+    private final long[] v4Starts;
+    private final long[] v4Ends;
+
+    /**
+     * IPv6 ranges as pairs of high and low 64 bits, sorted and not overlapping
+     */
+    private final long[] v6Starts;
+    private final long[] v6Ends;
+
+    private SubnetMatcher(long[] v4Starts, long[] v4Ends, long[] v6Starts, long[] v6Ends) {
+        this.v4Starts = v4Starts;
+        this.v4Ends = v4Ends;
+        this.v6Starts = v6Starts;
+        this.v6Ends = v6Ends;
+    }
+
+    public static SubnetMatcher of(Collection<Subnet> subnets) {
+        List<long[]> v4 = new ArrayList<>();
+        List<long[]> v6 = new ArrayList<>();
+        for (Subnet subnet : subnets) {
+            if (subnet == null) {
+                continue;
+            }
+            byte[] address = subnet.getInetAddress().getAddress();
+            int prefix = subnet.getMask();
+            if (address.length == 4) {
+                long value = toLong(address, 0, 4);
+                long hostBits = prefix >= 32 ? 0 : IPV4_MASK >>> prefix;
+                v4.add(new long[]{0, value & ~hostBits, 0, value | hostBits});
+            } else {
+                long high = toLong(address, 0, 8);
+                long low = toLong(address, 8, 8);
+                long highHostBits = prefix >= 64 ? 0 : -1L >>> prefix;
+                long lowHostBits = prefix >= 128 ? 0 : prefix <= 64 ? -1L : -1L >>> (prefix - 64);
+                v6.add(new long[]{high & ~highHostBits, low & ~lowHostBits, high | highHostBits, low | lowHostBits});
+            }
+        }
+        List<long[]> mergedV4 = merge(v4);
+        List<long[]> mergedV6 = merge(v6);
+        long[] v4Starts = new long[mergedV4.size()];
+        long[] v4Ends = new long[mergedV4.size()];
+        for (int i = 0; i < mergedV4.size(); i++) {
+            v4Starts[i] = mergedV4.get(i)[1];
+            v4Ends[i] = mergedV4.get(i)[3];
+        }
+        long[] v6Starts = new long[2 * mergedV6.size()];
+        long[] v6Ends = new long[2 * mergedV6.size()];
+        for (int i = 0; i < mergedV6.size(); i++) {
+            long[] range = mergedV6.get(i);
+            v6Starts[2 * i] = range[0];
+            v6Starts[2 * i + 1] = range[1];
+            v6Ends[2 * i] = range[2];
+            v6Ends[2 * i + 1] = range[3];
+        }
+        return new SubnetMatcher(v4Starts, v4Ends, v6Starts, v6Ends);
+    }
+
+    public boolean matches(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        if (address instanceof Inet4Address) {
+            return matches(v4Starts, v4Ends, toLong(bytes, 0, 4));
+        }
+        long high = toLong(bytes, 0, 8);
+        long low = toLong(bytes, 8, 8);
+        // ranges are stored as pairs, so search over pair indexes
+        int from = 0;
+        int to = v6Starts.length / 2 - 1;
+        int found = -1;
+        while (from <= to) {
+            int mid = (from + to) >>> 1;
+            if (compare(v6Starts[2 * mid], v6Starts[2 * mid + 1], high, low) <= 0) {
+                found = mid;
+                from = mid + 1;
+            } else {
+                to = mid - 1;
+            }
+        }
+        return found >= 0 && compare(high, low, v6Ends[2 * found], v6Ends[2 * found + 1]) <= 0;
+    }
+
+    public boolean isEmpty() {
+        return v4Starts.length == 0 && v6Starts.length == 0;
+    }
+
+    private static boolean matches(long[] starts, long[] ends, long value) {
+        int from = 0;
+        int to = starts.length - 1;
+        int found = -1;
+        while (from <= to) {
+            int mid = (from + to) >>> 1;
+            if (starts[mid] <= value) {
+                found = mid;
+                from = mid + 1;
+            } else {
+                to = mid - 1;
+            }
+        }
+        return found >= 0 && value <= ends[found];
+    }
+
+    /**
+     * Sorts ranges given as {startHigh, startLow, endHigh, endLow} and merges overlapping ones
+     */
+    private static List<long[]> merge(List<long[]> ranges) {
+        ranges.sort((a, b) -> compare(a[0], a[1], b[0], b[1]));
+        List<long[]> merged = new ArrayList<>(ranges.size());
+        for (long[] range : ranges) {
+            long[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && compare(range[0], range[1], last[2], last[3]) <= 0) {
+                if (compare(range[2], range[3], last[2], last[3]) > 0) {
+                    last[2] = range[2];
+                    last[3] = range[3];
+                }
+            } else {
+                merged.add(range.clone());
+            }
+        }
+        return merged;
+    }
+
+    private static int compare(long high1, long low1, long high2, long low2) {
+        int result = Long.compareUnsigned(high1, high2);
+        return result != 0 ? result : Long.compareUnsigned(low1, low2);
+    }
+
+    private static long toLong(byte[] bytes, int offset, int length) {
+        long result = 0;
+        for (int i = offset; i < offset + length; i++) {
+            result = (result << 8) | (bytes[i] & 0xFF);
+        }
+        return result;
+    }
+}
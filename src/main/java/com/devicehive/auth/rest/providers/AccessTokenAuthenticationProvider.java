@@ -5,7 +5,7 @@ import com.devicehive.auth.HivePrincipal;
 import com.devicehive.auth.HiveRoles;
 import com.devicehive.model.AccessKey;
 import com.devicehive.model.enums.UserStatus;
-import com.devicehive.service.AccessKeyService;
+import com.devicehive.service.AccessKeyCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,13 +22,13 @@ public class AccessTokenAuthenticationProvider implements AuthenticationProvider
     private static final Logger logger = LoggerFactory.getLogger(AccessTokenAuthenticationProvider.class);
 
     @Autowired
-    private AccessKeyService accessKeyService;
+    private AccessKeyCache accessKeyCache;
 
     @Override
     public Authentication authenticate(Authentication authentication) throws AuthenticationException {
         String token = (String) authentication.getPrincipal();
 
-        AccessKey accessKey = accessKeyService.authenticate(token);
+        AccessKey accessKey = accessKeyCache.authenticate(token);
         if (accessKey == null
                 || accessKey.getUser() == null || !accessKey.getUser().getStatus().equals(UserStatus.ACTIVE)
                 || (accessKey.getExpirationDate() != null && accessKey.getExpirationDate().before(new Date()))) {
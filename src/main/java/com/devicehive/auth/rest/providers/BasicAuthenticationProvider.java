@@ -8,7 +8,7 @@ import com.devicehive.model.OAuthClient;
 import com.devicehive.model.User;
 import com.devicehive.model.enums.UserStatus;
 import com.devicehive.service.OAuthClientService;
-import com.devicehive.service.UserService;
+import com.devicehive.service.UserCredentialsCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,7 +26,7 @@ public class BasicAuthenticationProvider implements AuthenticationProvider {
     private static final Logger logger = LoggerFactory.getLogger(BasicAuthenticationProvider.class);
 
     @Autowired
-    private UserService userService;
+    private UserCredentialsCache userCredentialsCache;
 
     @Autowired
     private OAuthClientService clientService;
@@ -40,7 +40,7 @@ public class BasicAuthenticationProvider implements AuthenticationProvider {
 
         User user = null;
         try {
-            user = userService.authenticate(key, pass);
+            user = userCredentialsCache.authenticate(key, pass);
         } catch (HiveException e) {
             logger.error("User auth failed", e);
         }
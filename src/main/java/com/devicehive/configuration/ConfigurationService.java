@@ -3,24 +3,64 @@ package com.devicehive.configuration;
 import com.devicehive.dao.CacheConfig;
 import com.devicehive.dao.GenericDAO;
 import com.devicehive.model.Configuration;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ITopic;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.annotation.PostConstruct;
 import javax.transaction.Transactional;
 import javax.validation.constraints.NotNull;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Configuration is read from in-memory {@link ConfigurationSnapshot}, which is loaded on first use and dropped on
+ * every node of the cluster when configuration is saved or deleted, so the next read loads it again. Snapshot older
+ * than {@code configuration.refresh.sec} is loaded again, so changes made directly in the database are picked up too.
+ * Only one thread loads the snapshot at a time.
+ */
 @Component
 @Lazy(false)
 public class ConfigurationService {
     private static final Logger logger = LoggerFactory.getLogger(ConfigurationService.class);
+    private static final String INVALIDATION_TOPIC = "CONFIGURATION-INVALIDATION";
 
     @Autowired
     private GenericDAO genericDAO;
 
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Value("${configuration.refresh.sec:60}")
+    private long refreshSec;
+
+    private volatile ConfigurationSnapshot snapshot;
+    private ITopic<String> invalidationTopic;
+
+    /**
+     * Incremented on each invalidation, used to not keep snapshot loaded concurrently with invalidation
+     */
+    private final AtomicLong generation = new AtomicLong();
+    /**
+     * Held by the thread loading the snapshot, so concurrent readers don't query the database too
+     */
+    private final Lock loadLock = new ReentrantLock();
+
+    @PostConstruct
+    public void init() {
+        invalidationTopic = hazelcastInstance.getTopic(INVALIDATION_TOPIC);
+        invalidationTopic.addMessageListener(message -> invalidateLocally());
+    }
+
     @Transactional
     public <T> void save(@NotNull String name, T value) {
         String str = value != null ? value.toString() : null;
@@ -35,6 +75,7 @@ public class ConfigurationService {
             configuration.setValue(str);
             genericDAO.persist(configuration);
         }
+        invalidate();
     }
 
     private Optional<Configuration> findByName(String name) {
@@ -45,27 +86,23 @@ public class ConfigurationService {
     }
 
     public String get(@NotNull String name) {
-        return findByName(name)
-                .map(Configuration::getValue)
-                .orElseGet(() -> {
-                    logger.warn(String.format(Messages.CONFIG_NOT_FOUND, name));
-                    return null;
-                });
+        String value = snapshot().get(name);
+        if (value == null) {
+            logger.warn(String.format(Messages.CONFIG_NOT_FOUND, name));
+        }
+        return value;
     }
 
     public long getLong(@NotNull String name, long defaultValue) {
-        String val = get(name);
-        return val != null ? Long.parseLong(val) : defaultValue;
+        return snapshot().getLong(name, defaultValue);
     }
 
     public int getInt(@NotNull String name, int defaultValue) {
-        String val = get(name);
-        return val != null ? Integer.parseInt(val) : defaultValue;
+        return snapshot().getInt(name, defaultValue);
     }
 
     public boolean getBoolean(@NotNull String name, boolean defaultValue) {
-        String val = get(name);
-        return val != null ? Boolean.parseBoolean(val) : defaultValue;
+        return snapshot().getBoolean(name, defaultValue);
     }
 
     @Transactional
@@ -74,6 +111,63 @@ public class ConfigurationService {
                 .setParameter("name", name)
                 .executeUpdate();
         logger.info("Deleted {} configuration entries by name {}", result, name);
+        invalidate();
     }
 
+    private ConfigurationSnapshot snapshot() {
+        ConfigurationSnapshot current = snapshot;
+        if (current != null && isFresh(current)) {
+            return current;
+        }
+        if (current != null) {
+            // outdated snapshot is still valid, so it is served while another thread refreshes it
+            if (!loadLock.tryLock()) {
+                return current;
+            }
+        } else {
+            loadLock.lock();
+        }
+        try {
+            current = snapshot;
+            if (current != null && isFresh(current)) {
+                return current;
+            }
+            long gen = generation.get();
+            ConfigurationSnapshot loaded = new ConfigurationSnapshot(
+                    genericDAO.createNamedQuery(Configuration.class, "Configuration.getAll", Optional.<CacheConfig>empty())
+                            .getResultList(), System.currentTimeMillis());
+            if (gen == generation.get()) {
+                snapshot = loaded;
+            }
+            return loaded;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private boolean isFresh(ConfigurationSnapshot snapshot) {
+        return System.currentTimeMillis() - snapshot.getCreatedAt() < refreshSec * 1000;
+    }
+
+    private void invalidate() {
+        invalidateLocally();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // snapshot can be loaded again before the change is committed, so drop it once again after commit
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    invalidateLocally();
+                    invalidationTopic.publish(Constants.NULL_SUBSTITUTE);
+                }
+            });
+        } else {
+            invalidationTopic.publish(Constants.NULL_SUBSTITUTE);
+        }
+    }
+
+    private void invalidateLocally() {
+        generation.incrementAndGet();
+        snapshot = null;
+        logger.debug("Configuration snapshot invalidated");
+    }
 }
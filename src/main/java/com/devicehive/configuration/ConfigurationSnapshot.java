@@ -0,0 +1,76 @@
+package com.devicehive.configuration;
+
+import com.devicehive.model.Configuration;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable copy of all configuration entries. Numeric and boolean values are parsed once, when the snapshot is made.
+ */
+public final class ConfigurationSnapshot {
+
+    private final Map<String, String> values;
+    private final Map<String, Long> longs;
+    private final Map<String, Boolean> booleans;
+    private final long createdAt;
+
+    public ConfigurationSnapshot(Collection<Configuration> configurations, long createdAt) {
+        Map<String, String> values = new HashMap<>();
+        Map<String, Long> longs = new HashMap<>();
+        Map<String, Boolean> booleans = new HashMap<>();
+        for (Configuration configuration : configurations) {
+            String value = configuration.getValue();
+            if (value == null) {
+                continue;
+            }
+            values.put(configuration.getName(), value);
+            booleans.put(configuration.getName(), Boolean.parseBoolean(value));
+            try {
+                longs.put(configuration.getName(), Long.parseLong(value));
+            } catch (NumberFormatException e) {
+                // not a number, getLong and getInt throw NumberFormatException for it
+            }
+        }
+        this.values = Collections.unmodifiableMap(values);
+        this.longs = Collections.unmodifiableMap(longs);
+        this.booleans = Collections.unmodifiableMap(booleans);
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * @return value or null if there is no such entry
+     */
+    public String get(String name) {
+        return values.get(name);
+    }
+
+    public long getLong(String name, long defaultValue) {
+        Long value = longs.get(name);
+        if (value != null) {
+            return value;
+        }
+        String str = values.get(name);
+        return str != null ? Long.parseLong(str) : defaultValue;
+    }
+
+    public int getInt(String name, int defaultValue) {
+        Long value = longs.get(name);
+        if (value != null && value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+            return value.intValue();
+        }
+        String str = values.get(name);
+        return str != null ? Integer.parseInt(str) : defaultValue;
+    }
+
+    public boolean getBoolean(String name, boolean defaultValue) {
+        Boolean value = booleans.get(name);
+        return value != null ? value : defaultValue;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -104,6 +104,8 @@ public class Messages {
     public static final String NO_NETWORKS_ASSIGNED_TO_USER = BidBundle.get("NO_NETWORKS_ASSIGNED_TO_USER");
     public static final String CANT_DELETE_CURRENT_USER_KEY = BidBundle.get("CANT_DELETE_CURRENT_USER_KEY");
     public static final String CANT_DELETE_LAST_DEFAULT_ACCESS_KEY = BidBundle.get("CANT_DELETE_LAST_DEFAULT_ACCESS_KEY");
+    public static final String MESSAGE_NOT_ACKNOWLEDGED = BidBundle.get("MESSAGE_NOT_ACKNOWLEDGED");
+    public static final String MESSAGE_ID_NOT_AVAILABLE = BidBundle.get("MESSAGE_ID_NOT_AVAILABLE");
 
     /**
      * Bundle to extract localized strings from property files.
@@ -0,0 +1,124 @@
+package com.devicehive.dao;
+
+import com.devicehive.model.DeviceCommand;
+import com.devicehive.model.DeviceNotification;
+import com.devicehive.model.JsonStringWrapper;
+import com.devicehive.service.store.MessageSort;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Append-only history of notifications and commands, see V2_0_5__message_history.sql
+ */
+@Repository
+public class MessageHistoryDAO {
+    private static final String INSERT_NOTIFICATION = "INSERT INTO device_notification_history " +
+                                                      "(id, device_guid, notification, parameters, timestamp) " +
+                                                      "VALUES (:id, :guid, :name, :parameters, :timestamp)";
+    private static final String INSERT_COMMAND = "INSERT INTO device_command_history " +
+                                                 "(id, device_guid, command, parameters, timestamp, user_id, lifetime, " +
+                                                 "status, result, is_updated) " +
+                                                 "VALUES (:id, :guid, :name, :parameters, :timestamp, :userId, " +
+                                                 ":lifetime, :status, :result, :isUpdated)";
+    private static final String SELECT_NOTIFICATIONS = "SELECT id, device_guid, notification, parameters, timestamp " +
+                                                       "FROM device_notification_history " +
+                                                       "WHERE device_guid = :guid AND timestamp > :from ";
+    private static final String END_TIMESTAMP_CONDITION = "AND timestamp <= :to ";
+    private static final String NOTIFICATION_NAMES_CONDITION = "AND notification IN (:names) ";
+
+    private static final RowMapper<DeviceNotification> NOTIFICATION_MAPPER = (rs, rowNum) -> {
+        DeviceNotification notification = new DeviceNotification();
+        notification.setId(rs.getLong("id"));
+        notification.setDeviceGuid(rs.getString("device_guid"));
+        notification.setNotification(rs.getString("notification"));
+        String parameters = rs.getString("parameters");
+        notification.setParameters(parameters != null ? new JsonStringWrapper(parameters) : null);
+        notification.setTimestamp(new Date(rs.getTimestamp("timestamp").getTime()));
+        return notification;
+    };
+
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public void setDataSource(DataSource dataSource) {
+        jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    public void insertNotifications(List<DeviceNotification> notifications) {
+        MapSqlParameterSource[] batch = new MapSqlParameterSource[notifications.size()];
+        for (int i = 0; i < batch.length; i++) {
+            DeviceNotification notification = notifications.get(i);
+            batch[i] = new MapSqlParameterSource()
+                    .addValue("id", notification.getId())
+                    .addValue("guid", notification.getDeviceGuid())
+                    .addValue("name", notification.getNotification())
+                    .addValue("parameters", jsonOf(notification.getParameters()))
+                    .addValue("timestamp", notification.getTimestamp());
+        }
+        jdbcTemplate.batchUpdate(INSERT_NOTIFICATION, batch);
+    }
+
+    public void insertCommands(List<DeviceCommand> commands) {
+        MapSqlParameterSource[] batch = new MapSqlParameterSource[commands.size()];
+        for (int i = 0; i < batch.length; i++) {
+            DeviceCommand command = commands.get(i);
+            batch[i] = new MapSqlParameterSource()
+                    .addValue("id", command.getId())
+                    .addValue("guid", command.getDeviceGuid())
+                    .addValue("name", command.getCommand())
+                    .addValue("parameters", jsonOf(command.getParameters()))
+                    .addValue("timestamp", command.getTimestamp())
+                    .addValue("userId", command.getUserId())
+                    .addValue("lifetime", command.getLifetime())
+                    .addValue("status", command.getStatus())
+                    .addValue("result", jsonOf(command.getResult()))
+                    .addValue("isUpdated", Boolean.TRUE.equals(command.getIsUpdated()));
+        }
+        jdbcTemplate.batchUpdate(INSERT_COMMAND, batch);
+    }
+
+    /**
+     * Returns the first notifications of the device in the requested order
+     *
+     * @param names notification names, null or empty for all notifications
+     * @param take  max number of notifications, 0 means no limit
+     */
+    public List<DeviceNotification> findNotifications(String guid, Collection<String> names, Date from, Date to,
+                                                      MessageSort sort, int take) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("guid", guid)
+                .addValue("from", from != null ? from : new Date(0));
+        StringBuilder sql = new StringBuilder(SELECT_NOTIFICATIONS);
+        if (to != null) {
+            sql.append(END_TIMESTAMP_CONDITION);
+            parameters.addValue("to", to);
+        }
+        if (names != null && !names.isEmpty()) {
+            sql.append(NOTIFICATION_NAMES_CONDITION);
+            parameters.addValue("names", names);
+        }
+        String direction = sort.isAscending() ? " ASC" : " DESC";
+        sql.append("ORDER BY ");
+        if (sort.getField() == MessageSort.Field.NAME) {
+            sql.append("notification").append(direction).append(", ");
+        }
+        sql.append("timestamp").append(direction);
+        if (take > 0) {
+            sql.append(" LIMIT :take");
+            parameters.addValue("take", take);
+        }
+        return jdbcTemplate.query(sql.toString(), parameters, NOTIFICATION_MAPPER);
+    }
+
+    private static String jsonOf(JsonStringWrapper wrapper) {
+        return wrapper != null ? wrapper.getJsonString() : null;
+    }
+}
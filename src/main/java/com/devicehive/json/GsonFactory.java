@@ -18,6 +18,10 @@ public class GsonFactory {
     private static Map<Policy, Gson> cache = new ConcurrentHashMap<>();
     private static Gson gson = createGsonBuilder().create();
 
+    /**
+     * Returns Gson producing compact output. Pretty printing could be enabled on the {@link
+     * com.google.gson.stream.JsonWriter} when human readable output is requested.
+     */
     public static Gson createGson() {
         return gson;
     }
@@ -35,11 +39,9 @@ public class GsonFactory {
         return gson;
     }
 
-
     private static GsonBuilder createGsonBuilder() {
         return new GsonBuilder()
             .disableHtmlEscaping()
-            .setPrettyPrinting()
             .serializeNulls()
             .registerTypeAdapterFactory(new OptionalAdapterFactory())
             .registerTypeAdapterFactory(new JsonStringWrapperAdapterFactory())
@@ -3,15 +3,18 @@ package com.devicehive.json.adapters;
 
 import com.devicehive.model.JsonStringWrapper;
 import com.google.gson.Gson;
-import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
 import com.google.gson.TypeAdapter;
 import com.google.gson.TypeAdapterFactory;
 import com.google.gson.internal.Streams;
 import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.StringReader;
 
 public class JsonStringWrapperAdapterFactory implements TypeAdapterFactory {
 
@@ -36,14 +39,117 @@ public class JsonStringWrapperAdapterFactory implements TypeAdapterFactory {
             if (value == null) {
                 out.nullValue();
             } else {
-                Streams.write(new JsonParser().parse(value.getJsonString()), out);
+                copy(value.getJsonString(), out);
             }
 
         }
 
+        /**
+         * Copies JSON tokens from the string to the writer without building the element tree
+         */
+        private static void copy(String json, JsonWriter out) throws IOException {
+            JsonReader in = new JsonReader(new StringReader(json));
+            in.setLenient(true);
+            try {
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    out.nullValue();
+                    return;
+                }
+            } catch (EOFException e) {
+                // empty document
+                out.nullValue();
+                return;
+            }
+            int depth = 0;
+            do {
+                switch (in.peek()) {
+                    case BEGIN_ARRAY:
+                        in.beginArray();
+                        out.beginArray();
+                        depth++;
+                        break;
+                    case END_ARRAY:
+                        in.endArray();
+                        out.endArray();
+                        depth--;
+                        break;
+                    case BEGIN_OBJECT:
+                        in.beginObject();
+                        out.beginObject();
+                        depth++;
+                        break;
+                    case END_OBJECT:
+                        in.endObject();
+                        out.endObject();
+                        depth--;
+                        break;
+                    case NAME:
+                        out.name(in.nextName());
+                        break;
+                    case STRING:
+                        out.value(in.nextString());
+                        break;
+                    case NUMBER:
+                        out.value(new RawNumber(in.nextString()));
+                        break;
+                    case BOOLEAN:
+                        out.value(in.nextBoolean());
+                        break;
+                    case NULL:
+                        in.nextNull();
+                        out.nullValue();
+                        break;
+                    default:
+                        throw new JsonSyntaxException("Unexpected end of document: " + json);
+                }
+            } while (depth > 0);
+            if (in.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonSyntaxException("Did not consume the entire document.");
+            }
+        }
+
         @Override
         public JsonStringWrapper read(JsonReader in) throws IOException {
             return new JsonStringWrapper(Streams.parse(in).toString());
         }
     }
+
+    /**
+     * Number written exactly as it was read, since the writer prints numbers with {@link Number#toString()}
+     */
+    private static final class RawNumber extends Number {
+        private static final long serialVersionUID = -3284530925638215467L;
+
+        private final String value;
+
+        private RawNumber(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public int intValue() {
+            return (int) doubleValue();
+        }
+
+        @Override
+        public long longValue() {
+            return (long) doubleValue();
+        }
+
+        @Override
+        public float floatValue() {
+            return (float) doubleValue();
+        }
+
+        @Override
+        public double doubleValue() {
+            return Double.parseDouble(value);
+        }
+
+        @Override
+        public String toString() {
+            return value;
+        }
+    }
 }
@@ -10,6 +10,8 @@ import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.Date;
 
 public class TimestampAdapter extends TypeAdapter<Date> {
@@ -21,12 +23,46 @@ public class TimestampAdapter extends TypeAdapter<Date> {
         return objectMapper.convertValue(input, Date.class);
     }
 
+    /**
+     * Formats timestamp as yyyy-MM-dd'T'HH:mm:ss.SSS in UTC. Digits are written directly, since every message sent
+     * has a timestamp and formatter takes most of its serialization time.
+     */
+    public static String formatTimestamp(long millis) {
+        LocalDateTime time = LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L),
+                (int) Math.floorMod(millis, 1000L) * 1000000, ZoneOffset.UTC);
+        if (time.getYear() < 0 || time.getYear() > 9999) {
+            return FORMATTER.print(millis);
+        }
+        char[] chars = new char[23];
+        digits(chars, 0, time.getYear(), 4);
+        chars[4] = '-';
+        digits(chars, 5, time.getMonthValue(), 2);
+        chars[7] = '-';
+        digits(chars, 8, time.getDayOfMonth(), 2);
+        chars[10] = 'T';
+        digits(chars, 11, time.getHour(), 2);
+        chars[13] = ':';
+        digits(chars, 14, time.getMinute(), 2);
+        chars[16] = ':';
+        digits(chars, 17, time.getSecond(), 2);
+        chars[19] = '.';
+        digits(chars, 20, (int) Math.floorMod(millis, 1000L), 3);
+        return new String(chars);
+    }
+
+    private static void digits(char[] chars, int offset, int value, int length) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
     @Override
     public void write(JsonWriter out, Date timestamp) throws IOException {
         if (timestamp == null) {
             out.nullValue();
         } else {
-            out.value(FORMATTER.print(timestamp.getTime()));
+            out.value(formatTimestamp(timestamp.getTime()));
         }
     }
 
@@ -1,9 +1,32 @@
 package com.devicehive.messages.handler;
 
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 public interface HandlerCreator<T> {
 
     Runnable getHandler(T message, UUID subId);
+
+    /**
+     * @return true if handler may block the thread running it, so it should not be run by Kafka consumer workers
+     */
+    default boolean isBlocking() {
+        return false;
+    }
+
+    /**
+     * Creates single handler delivering all messages to the subscriber
+     */
+    default Runnable getHandler(List<T> messages, UUID subId) {
+        if (messages.size() == 1) {
+            return getHandler(messages.get(0), subId);
+        }
+        List<Runnable> handlers = new ArrayList<>(messages.size());
+        for (T message : messages) {
+            handlers.add(getHandler(message, subId));
+        }
+        return () -> handlers.forEach(Runnable::run);
+    }
 }
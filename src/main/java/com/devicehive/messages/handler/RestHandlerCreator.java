@@ -10,8 +10,8 @@ import org.slf4j.LoggerFactory;
 import javax.ws.rs.container.AsyncResponse;
 import javax.ws.rs.core.Response;
 import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.FutureTask;
 
 public abstract class RestHandlerCreator<T> implements HandlerCreator<T> {
     private static final Logger logger = LoggerFactory.getLogger(RestHandlerCreator.class);
@@ -22,24 +22,22 @@ public abstract class RestHandlerCreator<T> implements HandlerCreator<T> {
         this.asyncResponse = asyncResponse;
     }
 
-    public static RestHandlerCreator<DeviceNotification> createNotificationInsert(final AsyncResponse asyncResponse, final boolean isMany, final FutureTask<Void> waitTask) {
+    public static RestHandlerCreator<DeviceNotification> createNotificationInsert(final AsyncResponse asyncResponse, final boolean isMany) {
         return new RestHandlerCreator<DeviceNotification>(asyncResponse) {
             @Override
-            protected Response createResponse(DeviceNotification message) {
-                logger.debug("NotificationInsert created for message: {}", message);
-                waitTask.cancel(false);
-                return ResponseFactory.response(Response.Status.OK, Collections.singletonList(message), JsonPolicyDef.Policy.NOTIFICATION_TO_CLIENT);
+            protected Response createResponse(List<DeviceNotification> messages) {
+                logger.debug("NotificationInsert created for messages: {}", messages);
+                return ResponseFactory.response(Response.Status.OK, messages, JsonPolicyDef.Policy.NOTIFICATION_TO_CLIENT);
             }
         };
     }
 
-    public static RestHandlerCreator<DeviceCommand> createCommandInsert(final AsyncResponse asyncResponse, final boolean isMany, final FutureTask<Void> waitTask) {
+    public static RestHandlerCreator<DeviceCommand> createCommandInsert(final AsyncResponse asyncResponse, final boolean isMany) {
         return new RestHandlerCreator<DeviceCommand>(asyncResponse) {
             @Override
-            protected Response createResponse(DeviceCommand message) {
-                logger.debug("CommandInsert created for message: {}", message);
-                waitTask.cancel(false);
-                return ResponseFactory.response(Response.Status.OK, Collections.singletonList(message), JsonPolicyDef.Policy.COMMAND_LISTED);
+            protected Response createResponse(List<DeviceCommand> messages) {
+                logger.debug("CommandInsert created for messages: {}", messages);
+                return ResponseFactory.response(Response.Status.OK, messages, JsonPolicyDef.Policy.COMMAND_LISTED);
             }
         };
     }
@@ -47,23 +45,36 @@ public abstract class RestHandlerCreator<T> implements HandlerCreator<T> {
     public static RestHandlerCreator<DeviceCommand> createCommandUpdate(final AsyncResponse asyncResponse) {
         return new RestHandlerCreator<DeviceCommand>(asyncResponse) {
             @Override
-            protected Response createResponse(DeviceCommand message) {
+            protected Response createResponse(List<DeviceCommand> messages) {
+                // request is resumed only once, so the first update wins
+                DeviceCommand message = messages.get(0);
                 logger.debug("CommandUpdateInsert created for message: {}", message);
                 return ResponseFactory.response(Response.Status.OK, message, JsonPolicyDef.Policy.COMMAND_TO_DEVICE);
             }
         };
     }
 
-    protected abstract Response createResponse(T message);
+    protected abstract Response createResponse(List<T> messages);
+
+    @Override
+    public boolean isBlocking() {
+        // resume writes the response, which may wait for slow client
+        return true;
+    }
 
     @Override
     public Runnable getHandler(final T message, final UUID subId) {
+        return getHandler(Collections.singletonList(message), subId);
+    }
+
+    @Override
+    public Runnable getHandler(final List<T> messages, final UUID subId) {
         logger.debug("Rest subscription notified");
 
         return new Runnable() {
             @Override
             public void run() {
-                Response response = createResponse(message);
+                Response response = createResponse(messages);
                 asyncResponse.resume(response);
             }
         };
@@ -3,20 +3,34 @@ package com.devicehive.messages.handler;
 import com.devicehive.model.DeviceCommand;
 import com.devicehive.model.DeviceNotification;
 import com.devicehive.util.ApplicationContextHolder;
+import com.devicehive.util.MessageEnvelope;
 import com.devicehive.util.ServerResponsesFactory;
 import com.devicehive.websockets.HiveWebsocketSessionState;
 import com.devicehive.websockets.util.AsyncMessageSupplier;
-import com.google.gson.JsonObject;
+import com.devicehive.websockets.util.OutboundMessageQueue;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.socket.WebSocketSession;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
 
 public abstract class WebsocketHandlerCreator<T> implements HandlerCreator<T> {
     private static final Logger logger = LoggerFactory.getLogger(WebsocketHandlerCreator.class);
 
+    /**
+     * Envelopes of messages being delivered to several subscribers, keyed by message instance
+     */
+    private static final Cache<DeviceNotification, MessageEnvelope> NOTIFICATION_ENVELOPES = createEnvelopeCache();
+    private static final Cache<DeviceCommand, MessageEnvelope> COMMAND_ENVELOPES = createEnvelopeCache();
+
     private final WebSocketSession session;
     private final Lock lock;
 
@@ -31,8 +45,8 @@ public abstract class WebsocketHandlerCreator<T> implements HandlerCreator<T> {
                                                           HiveWebsocketSessionState.get(session)
                                                               .getCommandSubscriptionsLock()) {
             @Override
-            protected JsonObject createJsonObject(DeviceCommand message, UUID subId) {
-                return ServerResponsesFactory.createCommandInsertMessage(message, subId);
+            protected MessageEnvelope createEnvelope(DeviceCommand message) {
+                return getEnvelope(COMMAND_ENVELOPES, message, ServerResponsesFactory::createCommandInsertEnvelope);
             }
         };
     }
@@ -42,8 +56,8 @@ public abstract class WebsocketHandlerCreator<T> implements HandlerCreator<T> {
                                                           HiveWebsocketSessionState.get(session)
                                                               .getCommandUpdateSubscriptionsLock()) {
             @Override
-            protected JsonObject createJsonObject(DeviceCommand message, UUID subId) {
-                return ServerResponsesFactory.createCommandUpdateMessage(message);
+            protected MessageEnvelope createEnvelope(DeviceCommand message) {
+                return ServerResponsesFactory.createCommandUpdateEnvelope(message);
             }
         };
     }
@@ -53,31 +67,61 @@ public abstract class WebsocketHandlerCreator<T> implements HandlerCreator<T> {
                                                                HiveWebsocketSessionState.get(session)
                                                                    .getNotificationSubscriptionsLock()) {
             @Override
-            protected JsonObject createJsonObject(DeviceNotification message, UUID subId) {
-                return ServerResponsesFactory.createNotificationInsertMessage(message, subId);
+            protected MessageEnvelope createEnvelope(DeviceNotification message) {
+                return getEnvelope(NOTIFICATION_ENVELOPES, message,
+                        ServerResponsesFactory::createNotificationInsertEnvelope);
             }
         };
     }
 
-    protected abstract JsonObject createJsonObject(T message, UUID subId);
+    protected abstract MessageEnvelope createEnvelope(T message);
 
     @Override
     public Runnable getHandler(final T message, final UUID subId) {
-        logger.debug("Websocket subscription notified");
+        return getHandler(Collections.singletonList(message), subId);
+    }
+
+    @Override
+    public Runnable getHandler(final List<T> messages, final UUID subId) {
+        logger.debug("Websocket subscription notified with {} messages", messages.size());
 
         return () -> {
             if (!session.isOpen()) {
                 return;
             }
-            JsonObject json = createJsonObject(message, subId);
+            List<MessageEnvelope> envelopes = new ArrayList<>(messages.size());
+            for (T message : messages) {
+                envelopes.add(createEnvelope(message));
+            }
+            OutboundMessageQueue queue = HiveWebsocketSessionState.get(session).getQueue();
             try {
                 lock.lock();
-                logger.debug("Add messages to queue process for session " + session.getId());
-                HiveWebsocketSessionState.get(session).getQueue().add(json);
+                logger.debug("Add {} messages to queue process for session {}", envelopes.size(), session.getId());
+                for (MessageEnvelope envelope : envelopes) {
+                    queue.offer(envelope.toJson(subId), envelope.render(subId));
+                }
             } finally {
                 lock.unlock();
             }
             ApplicationContextHolder.getApplicationContext().getBean(AsyncMessageSupplier.class).deliverMessages(session);
         };
     }
+
+    private static <K, V> Cache<K, V> createEnvelopeCache() {
+        // weak keys are compared by identity, so envelope is shared only by subscribers of the same message instance
+        return CacheBuilder.newBuilder()
+                .weakKeys()
+                .expireAfterWrite(1, TimeUnit.MINUTES)
+                .build();
+    }
+
+    private static <M> MessageEnvelope getEnvelope(Cache<M, MessageEnvelope> cache, M message,
+                                                   Function<M, MessageEnvelope> factory) {
+        MessageEnvelope envelope = cache.getIfPresent(message);
+        if (envelope == null) {
+            envelope = factory.apply(message);
+            cache.put(message, envelope);
+        }
+        return envelope;
+    }
 }
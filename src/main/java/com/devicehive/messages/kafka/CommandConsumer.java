@@ -3,17 +3,22 @@ package com.devicehive.messages.kafka;
 import com.devicehive.application.DeviceHiveApplication;
 import com.devicehive.configuration.Constants;
 import com.devicehive.messages.subscriptions.CommandSubscription;
+import com.devicehive.messages.subscriptions.CommandSubscriptionStorage;
 import com.devicehive.messages.subscriptions.SubscriptionManager;
 import com.devicehive.model.DeviceCommand;
-import com.devicehive.service.DeviceService;
+import com.devicehive.service.CommandNearCache;
+import com.devicehive.service.DeviceAccessCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 
 /**
@@ -25,47 +30,63 @@ public class CommandConsumer  implements IConsumer<DeviceCommand>{
     @Autowired
     private SubscriptionManager subscriptionManager;
     @Autowired
-    private DeviceService deviceService;
+    private CommandNearCache commandNearCache;
+    @Autowired
+    private DeviceAccessCache deviceAccessCache;
     @Autowired
     @Qualifier(DeviceHiveApplication.MESSAGE_EXECUTOR)
     private ExecutorService mes;
 
     @Override
     public void submitMessage(final DeviceCommand message) {
-        logger.debug("Device command was submitted: {}", message);
+        submitMessages(Collections.singletonList(message));
+    }
 
-        Set<UUID> subscribersIds = new HashSet<>();
-        Set<CommandSubscription> subs = subscriptionManager.getCommandSubscriptionStorage()
-                .getByDeviceGuid(message.getDeviceGuid());
-        for (CommandSubscription subscription : subs) {
-            if (subscription.getCommandNames() != null &&
-                    !subscription.getCommandNames().contains(message.getCommand())) {
-                logger.debug("Skipping subscriber {}, Command name {} is not in subscription list {}",
-                        subscription.getPrincipal().getName(), message.getCommand(), subscription.getCommandNames());
-                continue;
-            }
-            boolean hasAccess = deviceService.hasAccessTo(subscription.getPrincipal(), message.getDeviceGuid());
-            if (hasAccess) {
-                logger.debug("Sending command {} to user {}..", message, subscription.getPrincipal().getName());
-                mes.submit(subscription.getHandlerCreator().getHandler(message, subscription.getSubscriptionId()));
-            }
-            subscribersIds.add(subscription.getSubscriptionId());
-        }
+    @Override
+    public void submitMessages(final List<DeviceCommand> messages) {
+        submitMessages(messages, mes);
+    }
 
-        Set<CommandSubscription> subsForAll = (subscriptionManager.getCommandSubscriptionStorage()
-                .getByDeviceGuid(Constants.NULL_SUBSTITUTE));
+    @Override
+    public void submitMessages(final List<DeviceCommand> messages, final Executor deliveryExecutor) {
+        CommandSubscriptionStorage storage = subscriptionManager.getCommandSubscriptionStorage();
+        DeliveryBatch<DeviceCommand> batch = new DeliveryBatch<>();
+        for (DeviceCommand message : messages) {
+            logger.debug("Device command was submitted: {}", message);
+            commandNearCache.put(message);
 
-        for (CommandSubscription subscription : subsForAll) {
-            if (subscription.getCommandNames() != null &&
-                    !subscription.getCommandNames().contains(message.getCommand())) {
-                continue;
-            }
-            if (!subscribersIds.contains(subscription.getSubscriptionId())) {
-                boolean hasAccess = deviceService.hasAccessTo(subscription.getPrincipal(), message.getDeviceGuid());
+            Set<UUID> subscribersIds = new HashSet<>();
+            Set<CommandSubscription> subs = storage.getByDeviceGuid(message.getDeviceGuid());
+            for (CommandSubscription subscription : subs) {
+                if (subscription.getCommandNames() != null &&
+                        !subscription.getCommandNames().contains(message.getCommand())) {
+                    logger.debug("Skipping subscriber {}, Command name {} is not in subscription list {}",
+                            subscription.getPrincipal().getName(), message.getCommand(), subscription.getCommandNames());
+                    continue;
+                }
+                boolean hasAccess = deviceAccessCache.hasAccessTo(subscription.getPrincipal(), message.getDeviceGuid());
                 if (hasAccess) {
-                    mes.submit(subscription.getHandlerCreator().getHandler(message, subscription.getSubscriptionId()));
+                    logger.debug("Sending command {} to user {}..", message, subscription.getPrincipal().getName());
+                    batch.add(subscription, message);
+                }
+                subscribersIds.add(subscription.getSubscriptionId());
+            }
+
+            Set<CommandSubscription> subsForAll = storage.getByDeviceGuid(Constants.NULL_SUBSTITUTE);
+
+            for (CommandSubscription subscription : subsForAll) {
+                if (subscription.getCommandNames() != null &&
+                        !subscription.getCommandNames().contains(message.getCommand())) {
+                    continue;
+                }
+                if (!subscribersIds.contains(subscription.getSubscriptionId())) {
+                    boolean hasAccess = deviceAccessCache.hasAccessTo(subscription.getPrincipal(), message.getDeviceGuid());
+                    if (hasAccess) {
+                        batch.add(subscription, message);
+                    }
                 }
             }
         }
+        batch.submitTo(deliveryExecutor, mes);
     }
 }
@@ -4,12 +4,16 @@ import com.devicehive.application.DeviceHiveApplication;
 import com.devicehive.messages.subscriptions.CommandUpdateSubscription;
 import com.devicehive.messages.subscriptions.SubscriptionManager;
 import com.devicehive.model.DeviceCommand;
+import com.devicehive.service.CommandNearCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 
 /**
@@ -21,18 +25,34 @@ public class CommandUpdateConsumer implements IConsumer<DeviceCommand>{
     @Autowired
     private SubscriptionManager subscriptionManager;
     @Autowired
+    private CommandNearCache commandNearCache;
+    @Autowired
     @Qualifier(DeviceHiveApplication.MESSAGE_EXECUTOR)
     private ExecutorService mes;
 
     @Override
     public void submitMessage(DeviceCommand message) {
-        logger.debug("Device command update was submitted: {}", message.getId());
+        submitMessages(Collections.singletonList(message));
+    }
+
+    @Override
+    public void submitMessages(List<DeviceCommand> messages) {
+        submitMessages(messages, mes);
+    }
+
+    @Override
+    public void submitMessages(List<DeviceCommand> messages, Executor deliveryExecutor) {
+        DeliveryBatch<DeviceCommand> batch = new DeliveryBatch<>();
+        for (DeviceCommand message : messages) {
+            logger.debug("Device command update was submitted: {}", message.getId());
+            commandNearCache.put(message);
 
-        Set<CommandUpdateSubscription> subs = subscriptionManager.getCommandUpdateSubscriptionStorage()
-                .getByCommandId(message.getId());
-        for (CommandUpdateSubscription commandUpdateSubscription : subs) {
-            mes.submit(commandUpdateSubscription.getHandlerCreator()
-                    .getHandler(message, commandUpdateSubscription.getSubscriptionId()));
+            Set<CommandUpdateSubscription> subs = subscriptionManager.getCommandUpdateSubscriptionStorage()
+                    .getByCommandId(message.getId());
+            for (CommandUpdateSubscription commandUpdateSubscription : subs) {
+                batch.add(commandUpdateSubscription, message);
+            }
         }
+        batch.submitTo(deliveryExecutor, mes);
     }
 }
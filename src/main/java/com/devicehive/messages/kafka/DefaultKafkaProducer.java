@@ -1,21 +1,40 @@
 package com.devicehive.messages.kafka;
 
+import com.devicehive.application.MonitoredThreadPoolExecutor;
 import com.devicehive.application.kafka.KafkaConfig;
 import com.devicehive.model.DeviceCommand;
 import com.devicehive.model.DeviceNotification;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Created by tmatvienko on 12/24/14.
  */
 @Profile("!test")
 @Component
-public class DefaultKafkaProducer implements KafkaProducer {
+public class DefaultKafkaProducer implements KafkaProducer, PublicMetrics {
+    private static final Logger logger = LoggerFactory.getLogger(DefaultKafkaProducer.class);
 
     @Autowired
     @Qualifier(KafkaConfig.NOTIFICATION_PRODUCER)
@@ -25,19 +44,125 @@ public class DefaultKafkaProducer implements KafkaProducer {
     @Qualifier(KafkaConfig.COMMAND_PRODUCER)
     private Producer<String, DeviceCommand> commandProducer;
 
+    /**
+     * Messages which were not sent after all retries are published to the topic with this suffix. Disabled if empty.
+     */
+    @Value("${kafka.producer.dead.letter.suffix:}")
+    private String deadLetterSuffix;
+
+    @Value("${kafka.producer.dead.letter.queue.size:1000}")
+    private int deadLetterQueueSize;
+
+    private ExecutorService deadLetterExecutor;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private final AtomicLong lost = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        // dead letters are sent by own thread, which never runs them on the producer's I/O thread when it is busy
+        deadLetterExecutor = new MonitoredThreadPoolExecutor("kafka-dead-letter", 1, deadLetterQueueSize,
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deadLetterExecutor.shutdown();
+    }
+
+    @Override
+    public CompletableFuture<Void> produceDeviceNotificationMsg(DeviceNotification message, String deviceNotificationTopicName) {
+        return send(notificationProducer, new ProducerRecord<>(deviceNotificationTopicName, message.getDeviceGuid(), message));
+    }
+
     @Override
-    public void produceDeviceNotificationMsg(DeviceNotification message, String deviceNotificationTopicName) {
-        notificationProducer.send(new ProducerRecord<>(deviceNotificationTopicName, message.getDeviceGuid(), message));
+    public CompletableFuture<Void> produceDeviceCommandMsg(DeviceCommand message, String deviceCommandTopicName) {
+        return send(commandProducer, new ProducerRecord<>(deviceCommandTopicName, message.getDeviceGuid(), message));
     }
 
     @Override
-    public void produceDeviceCommandMsg(DeviceCommand message, String deviceCommandTopicName) {
-        commandProducer.send(new ProducerRecord<>(deviceCommandTopicName, message.getDeviceGuid(), message));
+    public CompletableFuture<Void> produceDeviceCommandUpdateMsg(DeviceCommand message, String deviceCommandTopicName) {
+        return send(commandProducer, new ProducerRecord<>(deviceCommandTopicName, message.getDeviceGuid(), message));
     }
 
     @Override
-    public void produceDeviceCommandUpdateMsg(DeviceCommand message, String deviceCommandTopicName) {
-        commandProducer.send(new ProducerRecord<>(deviceCommandTopicName, message.getDeviceGuid(), message));
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>("kafka.producer.sent", sent.get()));
+        metrics.add(new Metric<>("kafka.producer.failed", failed.get()));
+        metrics.add(new Metric<>("kafka.producer.deadLettered", deadLettered.get()));
+        metrics.add(new Metric<>("kafka.producer.lost", lost.get()));
+        return metrics;
     }
 
+    private <T> CompletableFuture<Void> send(Producer<String, T> producer, ProducerRecord<String, T> record) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            // broker side retries are configured with 'retries' producer property
+            producer.send(record, (metadata, exception) -> {
+                if (exception == null) {
+                    sent.incrementAndGet();
+                    future.complete(null);
+                } else {
+                    failed.incrementAndGet();
+                    logger.error("Unable to send message to topic {} for device {}", record.topic(), record.key(), exception);
+                    deadLetter(producer, record);
+                    future.completeExceptionally(exception);
+                }
+            });
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            logger.error("Unable to send message to topic {} for device {}", record.topic(), record.key(), e);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private <T> void deadLetter(Producer<String, T> producer, ProducerRecord<String, T> record) {
+        if (StringUtils.isEmpty(deadLetterSuffix)) {
+            return;
+        }
+        // send may block when producer buffer is full, so it shouldn't be called from producer's I/O thread
+        try {
+            deadLetterExecutor.execute(() -> sendToDeadLetter(producer, record));
+        } catch (RejectedExecutionException e) {
+            lost.incrementAndGet();
+            logger.error("Message for device {} is lost, dead letter queue is full", record.key());
+        }
+    }
+
+    private <T> void sendToDeadLetter(Producer<String, T> producer, ProducerRecord<String, T> record) {
+        String topic = record.topic() + deadLetterSuffix;
+        try {
+            producer.send(new ProducerRecord<>(topic, record.key(), record.value()), (metadata, exception) -> {
+                if (exception == null) {
+                    deadLettered.incrementAndGet();
+                } else {
+                    lost.incrementAndGet();
+                    logger.error("Message for device {} is lost, unable to send it to {}", record.key(), topic, exception);
+                }
+            });
+        } catch (RuntimeException e) {
+            lost.incrementAndGet();
+            logger.error("Message for device {} is lost, unable to send it to {}", record.key(), topic, e);
+        }
+    }
+
+    public long getSent() {
+        return sent.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getLost() {
+        return lost.get();
+    }
+
+    public long getDeadLettered() {
+        return deadLettered.get();
+    }
 }
@@ -0,0 +1,44 @@
+package com.devicehive.messages.kafka;
+
+import com.devicehive.messages.handler.HandlerCreator;
+import com.devicehive.messages.subscriptions.Subscription;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+/**
+ * Collects messages of one consumer poll per subscriber, so every subscriber gets single delivery task with all its
+ * messages in the order they were received.
+ */
+class DeliveryBatch<T> {
+
+    private final Map<UUID, HandlerCreator<T>> handlers = new LinkedHashMap<>();
+    private final Map<UUID, List<T>> messages = new LinkedHashMap<>();
+
+    void add(Subscription<?, T> subscription, T message) {
+        UUID subId = subscription.getSubscriptionId();
+        List<T> list = messages.get(subId);
+        if (list == null) {
+            list = new ArrayList<>();
+            messages.put(subId, list);
+            handlers.put(subId, subscription.getHandlerCreator());
+        }
+        list.add(message);
+    }
+
+    /**
+     * Blocking handlers are run by {@code blockingExecutor}, so they don't hold the thread delivering to others
+     */
+    int submitTo(Executor executor, Executor blockingExecutor) {
+        for (Map.Entry<UUID, List<T>> entry : messages.entrySet()) {
+            HandlerCreator<T> handler = handlers.get(entry.getKey());
+            Runnable task = handler.getHandler(entry.getValue(), entry.getKey());
+            (handler.isBlocking() ? blockingExecutor : executor).execute(task);
+        }
+        return messages.size();
+    }
+}
@@ -1,5 +1,8 @@
 package com.devicehive.messages.kafka;
 
+import java.util.List;
+import java.util.concurrent.Executor;
+
 /**
  * Author: Yuliia Vovk
  * Date: 25.02.16
@@ -8,4 +11,20 @@ package com.devicehive.messages.kafka;
 public interface IConsumer<T> {
 
     void submitMessage(T message);
+
+    /**
+     * Handles all messages received by single poll. Implementations are expected to coalesce delivery, so each
+     * subscriber gets at most one task per batch.
+     */
+    default void submitMessages(List<T> messages) {
+        messages.forEach(this::submitMessage);
+    }
+
+    /**
+     * Same as {@link #submitMessages(List)}, but subscriber handlers are run by the given executor. Handlers that may
+     * block, like resuming REST requests, are still run by the message executor.
+     */
+    default void submitMessages(List<T> messages, Executor deliveryExecutor) {
+        submitMessages(messages);
+    }
 }
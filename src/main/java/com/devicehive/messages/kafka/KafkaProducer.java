@@ -3,12 +3,17 @@ package com.devicehive.messages.kafka;
 import com.devicehive.model.DeviceCommand;
 import com.devicehive.model.DeviceNotification;
 
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Publishes messages to Kafka. Returned futures are completed when the message is acknowledged by the broker.
+ */
 public interface KafkaProducer {
 
-    void produceDeviceNotificationMsg(DeviceNotification message, String topicName);
+    CompletableFuture<Void> produceDeviceNotificationMsg(DeviceNotification message, String topicName);
 
-    void produceDeviceCommandMsg(DeviceCommand message, String topicName);
+    CompletableFuture<Void> produceDeviceCommandMsg(DeviceCommand message, String topicName);
 
-    void produceDeviceCommandUpdateMsg(DeviceCommand message, String topicName);
+    CompletableFuture<Void> produceDeviceCommandUpdateMsg(DeviceCommand message, String topicName);
 
 }
@@ -3,17 +3,21 @@ package com.devicehive.messages.kafka;
 import com.devicehive.application.DeviceHiveApplication;
 import com.devicehive.configuration.Constants;
 import com.devicehive.messages.subscriptions.NotificationSubscription;
+import com.devicehive.messages.subscriptions.NotificationSubscriptionStorage;
 import com.devicehive.messages.subscriptions.SubscriptionManager;
 import com.devicehive.model.DeviceNotification;
-import com.devicehive.service.DeviceService;
+import com.devicehive.service.DeviceAccessCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 
 /**
@@ -26,7 +30,7 @@ public class NotificationConsumer implements IConsumer<DeviceNotification>{
     private SubscriptionManager subscriptionManager;
 
     @Autowired
-    private DeviceService deviceService;
+    private DeviceAccessCache deviceAccessCache;
 
     @Autowired
     @Qualifier(DeviceHiveApplication.MESSAGE_EXECUTOR)
@@ -34,40 +38,43 @@ public class NotificationConsumer implements IConsumer<DeviceNotification>{
 
     @Override
     public void submitMessage(final DeviceNotification message) {
-        Set<UUID> subscribersIds = new HashSet<>();
-        Set<NotificationSubscription> subs =
-                subscriptionManager.getNotificationSubscriptionStorage().getByDeviceGuid(
-                        message.getDeviceGuid());
-        for (NotificationSubscription subscription : subs) {
-            if (subscription.getNotificationNames() != null
-                    && !subscription.getNotificationNames().contains(message.getNotification())) {
-                continue;
-            }
-            boolean hasAccess = deviceService.hasAccessTo(subscription.getPrincipal(), message.getDeviceGuid());
-            if (hasAccess) {
-                mes.submit(
-                        subscription.getHandlerCreator().getHandler(message, subscription.getSubscriptionId()));
-            }
-            subscribersIds.add(subscription.getSubscriptionId());
-        }
+        submitMessages(Collections.singletonList(message));
+    }
 
-        Set<NotificationSubscription> subsForAll = (subscriptionManager.getNotificationSubscriptionStorage()
-                .getByDeviceGuid(Constants.NULL_SUBSTITUTE));
+    @Override
+    public void submitMessages(final List<DeviceNotification> messages) {
+        submitMessages(messages, mes);
+    }
 
-        for (NotificationSubscription subscription : subsForAll) {
-            if (subscription.getNotificationNames() != null
-                    && !subscription.getNotificationNames().contains(message.getNotification())) {
-                continue;
-            }
-            if (!subscribersIds.contains(subscription.getSubscriptionId())) {
-                boolean
-                        hasAccess =
-                        deviceService.hasAccessTo(subscription.getPrincipal(), message.getDeviceGuid());
+    @Override
+    public void submitMessages(final List<DeviceNotification> messages, final Executor deliveryExecutor) {
+        NotificationSubscriptionStorage storage = subscriptionManager.getNotificationSubscriptionStorage();
+        DeliveryBatch<DeviceNotification> batch = new DeliveryBatch<>();
+        for (DeviceNotification message : messages) {
+            Set<UUID> subscribersIds = new HashSet<>();
+            Set<NotificationSubscription> subs =
+                    storage.getByDeviceGuidAndName(message.getDeviceGuid(), message.getNotification());
+            for (NotificationSubscription subscription : subs) {
+                boolean hasAccess = deviceAccessCache.hasAccessTo(subscription.getPrincipal(), message.getDeviceGuid());
                 if (hasAccess) {
-                    mes.submit(subscription.getHandlerCreator()
-                            .getHandler(message, subscription.getSubscriptionId()));
+                    batch.add(subscription, message);
+                }
+                subscribersIds.add(subscription.getSubscriptionId());
+            }
+
+            Set<NotificationSubscription> subsForAll =
+                    storage.getByDeviceGuidAndName(Constants.NULL_SUBSTITUTE, message.getNotification());
+
+            for (NotificationSubscription subscription : subsForAll) {
+                if (!subscribersIds.contains(subscription.getSubscriptionId())) {
+                    boolean hasAccess = deviceAccessCache.hasAccessTo(subscription.getPrincipal(), message.getDeviceGuid());
+                    if (hasAccess) {
+                        batch.add(subscription, message);
+                    }
                 }
             }
         }
+        int tasks = batch.submitTo(deliveryExecutor, mes);
+        logger.debug("{} notifications submitted to {} subscribers", messages.size(), tasks);
     }
 }
@@ -39,6 +39,7 @@ public class AbstractStorage<E, T extends Subscription<E, ?>> {
         set.add(subscription);
 
         byPair.put(ImmutablePair.of(subscription.getEventSource(), subscription.getSubscriptionId()), subscription);
+        onInsert(subscription);
         return true;
     }
 
@@ -85,10 +86,11 @@ public class AbstractStorage<E, T extends Subscription<E, ?>> {
         if (subs.isEmpty()) {
             bySubscriptionId.remove(sub.getSubscriptionId());
         }
+        onRemove(sub);
     }
 
     protected synchronized void removeByEventSource(E eventSource) {
-        Set<T> subs = byEventSource.remove(eventSource);
+        Set<T> subs = byEventSource.get(eventSource);
         if (subs == null) {
             return;
         }
@@ -106,4 +108,17 @@ public class AbstractStorage<E, T extends Subscription<E, ?>> {
             remove(sub.getEventSource(), sub.getSubscriptionId());
         }
     }
+
+    /**
+     * Called under the storage lock after subscription was added to all internal indexes.
+     * Subclasses may override to maintain additional lookup structures.
+     */
+    protected void onInsert(T subscription) {
+    }
+
+    /**
+     * Called under the storage lock after subscription was removed from all internal indexes.
+     */
+    protected void onRemove(T subscription) {
+    }
 }
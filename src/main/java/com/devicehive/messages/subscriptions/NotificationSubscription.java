@@ -4,7 +4,11 @@ package com.devicehive.messages.subscriptions;
 import com.devicehive.auth.HivePrincipal;
 import com.devicehive.messages.handler.HandlerCreator;
 import com.devicehive.model.DeviceNotification;
+import org.apache.commons.lang3.StringUtils;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.UUID;
 
 public class NotificationSubscription extends Subscription<String, DeviceNotification> {
@@ -13,12 +17,18 @@ public class NotificationSubscription extends Subscription<String, DeviceNotific
 
     private final String notificationNames;
 
+    /**
+     * Parsed {@link #notificationNames}, {@code null} means subscription to all notifications
+     */
+    private final Set<String> notificationNameSet;
+
     public NotificationSubscription(HivePrincipal principal, String deviceGuid, UUID subscriberId,
                                     String notificationNames,
                                     HandlerCreator<DeviceNotification> handlerCreator) {
         super(deviceGuid, subscriberId, handlerCreator);
         this.principal = principal;
-        this.notificationNames = notificationNames != null ? notificationNames : null;
+        this.notificationNames = notificationNames;
+        this.notificationNameSet = parseNames(notificationNames);
     }
 
     public String getDeviceGuid() {
@@ -34,5 +44,30 @@ public class NotificationSubscription extends Subscription<String, DeviceNotific
         return notificationNames;
     }
 
+    public Set<String> getNotificationNameSet() {
+        return notificationNameSet;
+    }
+
+    public boolean isForAllNotifications() {
+        return notificationNameSet == null;
+    }
+
+    public boolean matches(String notification) {
+        return notificationNameSet == null || notificationNameSet.contains(notification);
+    }
+
+    private static Set<String> parseNames(String names) {
+        if (StringUtils.isBlank(names)) {
+            return null;
+        }
+        Set<String> result = new HashSet<>();
+        for (String name : StringUtils.split(names, ",")) {
+            String trimmed = name.trim();
+            if (!trimmed.isEmpty()) {
+                result.add(trimmed);
+            }
+        }
+        return result.isEmpty() ? null : Collections.unmodifiableSet(result);
+    }
 
 }
@@ -1,15 +1,105 @@
 package com.devicehive.messages.subscriptions;
 
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Besides the generic indexes keeps subscriptions indexed by (deviceGuid, notificationName). Subscriptions without
+ * name filter are kept in a separate wildcard tier, so lookup for a notification touches only subscriptions which
+ * can actually match it.
+ */
 public class NotificationSubscriptionStorage extends AbstractStorage<String, NotificationSubscription> {
 
+    private final ConcurrentMap<String, ConcurrentMap<String, Set<NotificationSubscription>>> byDeviceAndName =
+            new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<NotificationSubscription>> forAllNames = new ConcurrentHashMap<>();
+
     public Set<NotificationSubscription> getByDeviceGuid(String guid) {
         return get(guid);
     }
 
+    /**
+     * Returns subscriptions of the device which accept notification with the given name, i.e. subscriptions with
+     * this name in the filter and subscriptions without name filter.
+     */
+    public Set<NotificationSubscription> getByDeviceGuidAndName(String guid, String notification) {
+        Set<NotificationSubscription> wildcard = forAllNames.get(guid);
+        ConcurrentMap<String, Set<NotificationSubscription>> byName = byDeviceAndName.get(guid);
+        Set<NotificationSubscription> named = byName != null && notification != null ? byName.get(notification) : null;
+        if (named == null || named.isEmpty()) {
+            return wildcard != null ? wildcard : Collections.<NotificationSubscription>emptySet();
+        }
+        if (wildcard == null || wildcard.isEmpty()) {
+            return named;
+        }
+        Set<NotificationSubscription> result = new HashSet<>(named);
+        result.addAll(wildcard);
+        return result;
+    }
+
     public synchronized void removeByDevice(String deviceGuid) {
         removeByEventSource(deviceGuid);
     }
 
+    @Override
+    protected void onInsert(NotificationSubscription subscription) {
+        String guid = subscription.getDeviceGuid();
+        if (subscription.isForAllNotifications()) {
+            addTo(forAllNames, guid, subscription);
+            return;
+        }
+        ConcurrentMap<String, Set<NotificationSubscription>> byName = byDeviceAndName.get(guid);
+        if (byName == null) {
+            byName = new ConcurrentHashMap<>();
+            byDeviceAndName.put(guid, byName);
+        }
+        for (String name : subscription.getNotificationNameSet()) {
+            addTo(byName, name, subscription);
+        }
+    }
+
+    @Override
+    protected void onRemove(NotificationSubscription subscription) {
+        String guid = subscription.getDeviceGuid();
+        if (subscription.isForAllNotifications()) {
+            removeFrom(forAllNames, guid, subscription);
+            return;
+        }
+        ConcurrentMap<String, Set<NotificationSubscription>> byName = byDeviceAndName.get(guid);
+        if (byName == null) {
+            return;
+        }
+        for (String name : subscription.getNotificationNameSet()) {
+            removeFrom(byName, name, subscription);
+        }
+        if (byName.isEmpty()) {
+            byDeviceAndName.remove(guid);
+        }
+    }
+
+    private static <K> void addTo(ConcurrentMap<K, Set<NotificationSubscription>> map, K key,
+                                  NotificationSubscription subscription) {
+        Set<NotificationSubscription> set = map.get(key);
+        if (set == null) {
+            set = Collections.newSetFromMap(new ConcurrentHashMap<NotificationSubscription, Boolean>());
+            map.put(key, set);
+        }
+        set.add(subscription);
+    }
+
+    private static <K> void removeFrom(ConcurrentMap<K, Set<NotificationSubscription>> map, K key,
+                                       NotificationSubscription subscription) {
+        Set<NotificationSubscription> set = map.get(key);
+        if (set == null) {
+            return;
+        }
+        set.remove(subscription);
+        if (set.isEmpty()) {
+            map.remove(key);
+        }
+    }
+
 }
@@ -23,7 +23,8 @@ import static com.devicehive.json.strategies.JsonPolicyDef.Policy.*;
         @NamedQuery(name = "AccessKey.getByUserAndLabel", query = "select ak from AccessKey ak left join fetch ak.permissions join fetch ak.user u where u.id = :userId and ak.label = :label"),
         @NamedQuery(name = "AccessKey.deleteByIdAndUser", query = "delete from AccessKey ak where ak.user.id = :userId and ak.id = :accessKeyId"),
         @NamedQuery(name = "AccessKey.deleteById", query = "delete from AccessKey ak where ak.id = :accessKeyId"),
-        @NamedQuery(name = "AccessKey.deleteOlderThan", query = "delete from AccessKey ak where ak.expirationDate < :expirationDate")
+        @NamedQuery(name = "AccessKey.deleteOlderThan", query = "delete from AccessKey ak where ak.expirationDate < :expirationDate"),
+        @NamedQuery(name = "AccessKey.extendExpiration", query = "update AccessKey ak set ak.expirationDate = :expirationDate where ak.id = :accessKeyId and ak.expirationDate < :expirationDate")
 })
 @Table(name = "access_key")
 @Cacheable
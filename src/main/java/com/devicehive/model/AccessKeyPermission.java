@@ -1,5 +1,6 @@
 package com.devicehive.model;
 
+import com.devicehive.auth.CompiledPermission;
 import com.devicehive.exceptions.HiveException;
 import com.devicehive.json.GsonFactory;
 import com.devicehive.json.strategies.JsonPolicyDef;
@@ -65,6 +66,20 @@ public class AccessKeyPermission implements HiveEntity {
     @Version
     @Column(name = "entity_version")
     private long entityVersion;
+    @Transient
+    private transient volatile CompiledPermission compiled;
+
+    /**
+     * @return permission with parsed JSON fields, which is built on first call and kept until any of them is changed
+     */
+    public CompiledPermission getCompiled() {
+        CompiledPermission result = compiled;
+        if (result == null) {
+            result = CompiledPermission.compile(this);
+            compiled = result;
+        }
+        return result;
+    }
 
     public long getEntityVersion() {
         return entityVersion;
@@ -98,10 +113,12 @@ public class AccessKeyPermission implements HiveEntity {
     public void setDomainArray(String... domains) {
         Gson gson = GsonFactory.createGson();
         this.domains = new JsonStringWrapper(gson.toJsonTree(domains).toString());
+        this.compiled = null;
     }
 
     public void setDomains(JsonStringWrapper domains) {
         this.domains = domains;
+        this.compiled = null;
     }
 
     public Set<String> getDomainsAsSet() {
@@ -187,11 +204,13 @@ public class AccessKeyPermission implements HiveEntity {
 
     public void setSubnets(JsonStringWrapper subnets) {
         this.subnets = subnets;
+        this.compiled = null;
     }
 
     public void setSubnetsArray(String... subnets) {
         Gson gson = GsonFactory.createGson();
         this.subnets = new JsonStringWrapper(gson.toJsonTree(subnets).toString());
+        this.compiled = null;
     }
 
     public JsonStringWrapper getActions() {
@@ -200,11 +219,13 @@ public class AccessKeyPermission implements HiveEntity {
 
     public void setActions(JsonStringWrapper actions) {
         this.actions = actions;
+        this.compiled = null;
     }
 
     public void setActionsArray(String... actions) {
         Gson gson = GsonFactory.createGson();
         this.actions = new JsonStringWrapper(gson.toJsonTree(actions).toString());
+        this.compiled = null;
     }
 
     public JsonStringWrapper getNetworkIds() {
@@ -213,11 +234,13 @@ public class AccessKeyPermission implements HiveEntity {
 
     public void setNetworkIds(JsonStringWrapper networkIds) {
         this.networkIds = networkIds;
+        this.compiled = null;
     }
 
     public void setNetworkIdsCollection(Collection<Long> actions) {
         Gson gson = GsonFactory.createGson();
         this.networkIds = new JsonStringWrapper(gson.toJsonTree(actions).toString());
+        this.compiled = null;
     }
 
     public JsonStringWrapper getDeviceGuids() {
@@ -226,10 +249,12 @@ public class AccessKeyPermission implements HiveEntity {
 
     public void setDeviceGuids(JsonStringWrapper deviceGuids) {
         this.deviceGuids = deviceGuids;
+        this.compiled = null;
     }
 
     public void setDeviceGuidsCollection(Collection<String> deviceGuids) {
         Gson gson = GsonFactory.createGson();
         this.deviceGuids = new JsonStringWrapper(gson.toJsonTree(deviceGuids).toString());
+        this.compiled = null;
     }
 }
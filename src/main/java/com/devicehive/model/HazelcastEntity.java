@@ -5,4 +5,5 @@ import java.util.Date;
 public interface HazelcastEntity {
     String getHazelcastKey();
     Date getTimestamp();
+    String getDeviceGuid();
 }
@@ -2,17 +2,15 @@ package com.devicehive.model;
 
 
 import com.devicehive.exceptions.HiveException;
-import org.apache.commons.net.util.SubnetUtils;
 
 import javax.ws.rs.core.Response;
 import java.net.Inet4Address;
-import java.net.Inet6Address;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 
 public class Subnet {
 
-    //        private static final int IPv6_MASK_MAX_VALUE = 64;
+    private static final int IPv6_MASK_MAX_VALUE = 128;
     private static final int IPv4_MASK_MAX_VALUE = 32;
     private InetAddress inetAddress;
     private int mask;
@@ -26,14 +24,15 @@ public class Subnet {
         try {
 
             this.inetAddress = InetAddress.getByName(parts[0]);
+            int maxMask = inetAddress instanceof Inet4Address ? IPv4_MASK_MAX_VALUE : IPv6_MASK_MAX_VALUE;
             if (parts.length == 1) {
-                mask = IPv4_MASK_MAX_VALUE;
-                this.subnet = subnet + "/32";
+                mask = maxMask;
+                this.subnet = subnet + "/" + maxMask;
             } else {
                 this.mask = Integer.parseInt(parts[1]);
                 this.subnet = subnet;
             }
-            if (inetAddress instanceof Inet4Address && mask > IPv4_MASK_MAX_VALUE) {
+            if (mask < 0 || mask > maxMask) {
                 throw new IllegalArgumentException("Invalid mask value : " + mask);
             }
         } catch (UnknownHostException e) {
@@ -41,18 +40,24 @@ public class Subnet {
         }
     }
 
+    /**
+     * @return true if the address has the same first {@link #getMask()} bits as the subnet address. IPv4 and IPv6
+     * addresses never match each other.
+     */
     public boolean isAddressFromSubnet(InetAddress ip) {
-        if (ip instanceof Inet6Address) {
+        byte[] network = inetAddress.getAddress();
+        byte[] address = ip.getAddress();
+        if (network.length != address.length) {
             return false;
         }
-        if (inetAddress.getHostAddress().equalsIgnoreCase(ip.getHostAddress()) && mask == 32) {
-            return true;
-        }
-        if (mask == 0) {
-            return true;
+        int bits = mask;
+        for (int i = 0; i < network.length && bits > 0; i++, bits -= 8) {
+            int byteMask = bits >= 8 ? 0xFF : (0xFF << (8 - bits)) & 0xFF;
+            if ((network[i] & byteMask) != (address[i] & byteMask)) {
+                return false;
+            }
         }
-        SubnetUtils utils = new SubnetUtils(subnet);
-        return utils.getInfo().isInRange(ip.getHostAddress());
+        return true;
     }
 
     public InetAddress getInetAddress() {
@@ -6,21 +6,29 @@ import com.devicehive.json.GsonFactory;
 import com.devicehive.json.strategies.JsonPolicyApply;
 import com.devicehive.json.strategies.JsonPolicyDef;
 import com.google.gson.Gson;
-import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonWriter;
 
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.UriInfo;
 import javax.ws.rs.ext.MessageBodyReader;
 import javax.ws.rs.ext.MessageBodyWriter;
 import java.io.*;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import java.nio.charset.Charset;
+import java.util.Collection;
 
 import static com.devicehive.configuration.Constants.UTF8;
 
 public abstract class JsonPolicyProvider<T> implements MessageBodyWriter<T>, MessageBodyReader<T> {
+    private static final String PRETTY_PARAM = "pretty";
+    private static final String PRETTY_INDENT = "  ";
+
+    @Context
+    private UriInfo uriInfo;
 
     @Override
     public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
@@ -33,20 +41,48 @@ public abstract class JsonPolicyProvider<T> implements MessageBodyWriter<T>, Mes
         return -1;
     }
 
+    /**
+     * Writes the entity straight to the stream, collections are serialized element by element without building the
+     * whole JSON tree. Output is compact unless pretty printing is requested with 'pretty' query parameter.
+     */
     @Override
     public void writeTo(T entity, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
                         MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
         throws IOException, WebApplicationException {
         Gson gson = createGson(annotations);
-        JsonElement jsonElement = gson.toJsonTree(entity);
-        Writer writer = null;
+        JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(entityStream, Charset.forName(UTF8))));
+        if (isPrettyPrintingRequested()) {
+            writer.setIndent(PRETTY_INDENT);
+        }
         try {
-            writer = new OutputStreamWriter(entityStream, Charset.forName(UTF8));
-            gson.toJson(jsonElement, writer);
-        } finally {
-            if (writer != null) {
-                writer.flush();
+            if (entity instanceof Collection) {
+                writer.beginArray();
+                for (Object element : (Collection<?>) entity) {
+                    write(gson, element, writer);
+                }
+                writer.endArray();
+            } else {
+                write(gson, entity, writer);
             }
+        } finally {
+            writer.flush();
+        }
+    }
+
+    private static void write(Gson gson, Object value, JsonWriter writer) throws IOException {
+        if (value == null) {
+            writer.nullValue();
+        } else {
+            gson.toJson(value, value.getClass(), writer);
+        }
+    }
+
+    private boolean isPrettyPrintingRequested() {
+        try {
+            return uriInfo != null && Boolean.parseBoolean(uriInfo.getQueryParameters().getFirst(PRETTY_PARAM));
+        } catch (IllegalStateException e) {
+            // not in request scope
+            return false;
         }
     }
 
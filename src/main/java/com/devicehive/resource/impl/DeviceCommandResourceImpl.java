@@ -17,11 +17,11 @@ import com.devicehive.resource.DeviceCommandResource;
 import com.devicehive.resource.converters.TimestampQueryParamParser;
 import com.devicehive.resource.util.CommandResponseFilterAndSort;
 import com.devicehive.resource.util.ResponseFactory;
-import com.devicehive.resource.util.SimpleWaiter;
+import com.devicehive.resource.util.LongPollRegistry;
 import com.devicehive.service.DeviceCommandService;
 import com.devicehive.service.DeviceService;
+import com.devicehive.service.store.MessageSort;
 import com.devicehive.util.ParseUtil;
-import com.google.common.util.concurrent.Runnables;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,7 +35,7 @@ import javax.ws.rs.container.CompletionCallback;
 import javax.ws.rs.core.Response;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 import static javax.ws.rs.core.Response.Status.*;
@@ -55,8 +55,10 @@ public class DeviceCommandResourceImpl implements DeviceCommandResource {
     @Autowired
     private SubscriptionManager subscriptionManager;
     @Autowired
-    @Qualifier(DeviceHiveApplication.MESSAGE_EXECUTOR)
+    @Qualifier(DeviceHiveApplication.LONG_POLL_EXECUTOR)
     private ExecutorService mes;
+    @Autowired
+    private LongPollRegistry longPollRegistry;
 
     /**
      * {@inheritDoc}
@@ -84,13 +86,18 @@ public class DeviceCommandResourceImpl implements DeviceCommandResource {
         final String devices = StringUtils.isNoneBlank(deviceGuids) ? deviceGuids : null;
         final String names = StringUtils.isNoneBlank(namesString) ? namesString : null;
 
-        mes.submit(() -> {
-            try {
-                getOrWaitForCommands(principal, devices, names, ts, timeout, asyncResponse, isMany);
-            } catch (Exception e) {
-                asyncResponse.resume(e);
-            }
-        });
+        try {
+            mes.submit(() -> {
+                try {
+                    getOrWaitForCommands(principal, devices, names, ts, timeout, asyncResponse, isMany);
+                } catch (Exception e) {
+                    asyncResponse.resume(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Command poll rejected, too many concurrent polls");
+            asyncResponse.resume(ResponseFactory.response(Response.Status.SERVICE_UNAVAILABLE));
+        }
     }
 
     private void getOrWaitForCommands(HivePrincipal principal, final String devices, final String names, Date timestamp,
@@ -100,6 +107,7 @@ public class DeviceCommandResourceImpl implements DeviceCommandResource {
 
         if (timeout < 0) {
             submitEmptyResponse(asyncResponse);
+            return;
         }
 
         final List<String> availableDevices = (StringUtils.isNotEmpty(devices))
@@ -110,16 +118,15 @@ public class DeviceCommandResourceImpl implements DeviceCommandResource {
         CommandSubscriptionStorage storage = subscriptionManager.getCommandSubscriptionStorage();
         UUID reqId = UUID.randomUUID();
         Set<CommandSubscription> subscriptionSet = new HashSet<>();
-        FutureTask<Void> simpleWaitTask = new FutureTask<>(Runnables.doNothing(), null);
 
         if (!availableDevices.isEmpty()) {
             List<CommandSubscription> commandSubscriptions = availableDevices.stream()
-                    .map(guid -> getInsertSubscription(principal, guid, reqId, names, asyncResponse, isMany, simpleWaitTask))
+                    .map(guid -> getInsertSubscription(principal, guid, reqId, names, asyncResponse, isMany))
                     .collect(Collectors.toList());
             subscriptionSet.addAll(commandSubscriptions);
         } else {
             subscriptionSet.add(getInsertSubscription(principal, Constants.NULL_SUBSTITUTE, reqId, names,
-                    asyncResponse, isMany, simpleWaitTask));
+                    asyncResponse, isMany));
         }
 
         if (timestamp != null && !availableDevices.isEmpty()) {
@@ -131,9 +138,8 @@ public class DeviceCommandResourceImpl implements DeviceCommandResource {
             LOGGER.debug("Commands poll result: {}", response.getEntity());
             asyncResponse.resume(response);
         } else {
-            if (!SimpleWaiter.subscribeAndWait(storage, subscriptionSet, simpleWaitTask, timeout)) {
-                submitEmptyResponse(asyncResponse);
-            }
+            longPollRegistry.park(asyncResponse, storage, subscriptionSet, timeout, () ->
+                    ResponseFactory.response(Response.Status.OK, Collections.emptyList(), JsonPolicyDef.Policy.COMMAND_LISTED));
         }
     }
 
@@ -156,13 +162,18 @@ public class DeviceCommandResourceImpl implements DeviceCommandResource {
             }
         });
 
-        mes.submit(() -> {
-            try {
-                waitAction(deviceGuid, commandId, timeout, asyncResponse, principal);
-            } catch (Exception e) {
-                asyncResponse.resume(e);
-            }
-        });
+        try {
+            mes.submit(() -> {
+                try {
+                    waitAction(deviceGuid, commandId, timeout, asyncResponse, principal);
+                } catch (Exception e) {
+                    asyncResponse.resume(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Command wait rejected, too many concurrent polls");
+            asyncResponse.resume(ResponseFactory.response(Response.Status.SERVICE_UNAVAILABLE));
+        }
     }
 
     private void waitAction(String deviceGuid, String commandId, long timeout, AsyncResponse asyncResponse,
@@ -170,6 +181,7 @@ public class DeviceCommandResourceImpl implements DeviceCommandResource {
         LOGGER.debug("DeviceCommand wait requested, deviceId = {},  commandId = {}", deviceGuid, commandId);
         if (timeout < 0) {
             asyncResponse.resume(ResponseFactory.response(Response.Status.NO_CONTENT));
+            return;
         }
         if (deviceGuid == null || commandId == null) {
             LOGGER.warn("DeviceCommand wait request failed. BAD REQUEST: deviceGuid and commandId required", deviceGuid);
@@ -211,9 +223,9 @@ public class DeviceCommandResourceImpl implements DeviceCommandResource {
             CommandUpdateSubscription commandSubscription =
                     new CommandUpdateSubscription(Long.valueOf(commandId), reqId, RestHandlerCreator.createCommandUpdate(asyncResponse));
 
-            if (!SimpleWaiter.subscribeAndWait(storage, commandSubscription, new FutureTask<Void>(Runnables.doNothing(), null), timeout)) {
-                asyncResponse.resume(ResponseFactory.response(Response.Status.NO_CONTENT));
-            }
+            longPollRegistry.park(asyncResponse, storage, commandSubscription, timeout, () ->
+                    ResponseFactory.response(Response.Status.NO_CONTENT));
+            return;
         }
 
         Response result = ResponseFactory.response(Response.Status.OK, command, Policy.COMMAND_TO_DEVICE);
@@ -233,14 +245,13 @@ public class DeviceCommandResourceImpl implements DeviceCommandResource {
 
         List<String> searchCommands = StringUtils.isNoneEmpty(command) ? Collections.singletonList(command) : null;
 
-        final Collection<DeviceCommand> commandList = commandService.find(Collections.singletonList(guid),
-                searchCommands, timestamp, status, 0, null, principal);
-
-        final Comparator<DeviceCommand> comparator = CommandResponseFilterAndSort.buildDeviceCommandComparator(sortField);
-        final Boolean reverse = sortOrderSt == null ? null : "desc".equalsIgnoreCase(sortOrderSt);
-
-        final List<DeviceCommand> sortedDeviceCommands = CommandResponseFilterAndSort.orderAndLimit(new ArrayList<>(commandList),
-                comparator, reverse, skip, take);
+        if (skip != null && skip < 0) {
+            return ResponseFactory.response(Response.Status.OK, Collections.emptyList(), Policy.COMMAND_LISTED);
+        }
+        final MessageSort sort = CommandResponseFilterAndSort.buildDeviceCommandSort(sortField, sortOrderSt);
+        final List<DeviceCommand> sortedDeviceCommands = commandService.find(guid, searchCommands, timestamp,
+                TimestampQueryParamParser.parse(endTs), status, sort, skip != null ? skip : 0,
+                CommandResponseFilterAndSort.takeOf(take), principal);
         LOGGER.debug("Device command query request proceed successfully for device {}", guid);
         return ResponseFactory.response(Response.Status.OK, sortedDeviceCommands, Policy.COMMAND_LISTED);
     }
@@ -336,8 +347,8 @@ public class DeviceCommandResourceImpl implements DeviceCommandResource {
     }
 
     private CommandSubscription getInsertSubscription(HivePrincipal principal, String guid, UUID reqId, String names,
-                                                      AsyncResponse asyncResponse, boolean isMany, FutureTask<Void> waitTask){
-        return new CommandSubscription(principal, guid, reqId, names, RestHandlerCreator.createCommandInsert(asyncResponse, isMany, waitTask));
+                                                      AsyncResponse asyncResponse, boolean isMany){
+        return new CommandSubscription(principal, guid, reqId, names, RestHandlerCreator.createCommandInsert(asyncResponse, isMany));
     }
 
 }
@@ -17,11 +17,11 @@ import com.devicehive.resource.DeviceNotificationResource;
 import com.devicehive.resource.converters.TimestampQueryParamParser;
 import com.devicehive.resource.util.CommandResponseFilterAndSort;
 import com.devicehive.resource.util.ResponseFactory;
-import com.devicehive.resource.util.SimpleWaiter;
+import com.devicehive.resource.util.LongPollRegistry;
 import com.devicehive.service.DeviceNotificationService;
 import com.devicehive.service.DeviceService;
+import com.devicehive.service.store.MessageSort;
 import com.devicehive.util.ParseUtil;
-import com.google.common.util.concurrent.Runnables;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,7 +34,7 @@ import javax.ws.rs.container.AsyncResponse;
 import javax.ws.rs.core.Response;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 import static com.devicehive.configuration.Constants.DEFAULT_TAKE;
@@ -55,8 +55,10 @@ public class DeviceNotificationResourceImpl implements DeviceNotificationResourc
     @Autowired
     private DeviceService deviceService;
     @Autowired
-    @Qualifier(DeviceHiveApplication.MESSAGE_EXECUTOR)
+    @Qualifier(DeviceHiveApplication.LONG_POLL_EXECUTOR)
     private ExecutorService mes;
+    @Autowired
+    private LongPollRegistry longPollRegistry;
 
     /**
      * {@inheritDoc}
@@ -72,14 +74,14 @@ public class DeviceNotificationResourceImpl implements DeviceNotificationResourc
 
         List<String> notificationNames = StringUtils.isNoneEmpty(notification) ? Collections.singletonList(notification) : null;
 
-        final Collection<DeviceNotification> notificationList = notificationService.find(null, null, Arrays.asList(device.getGuid()),
-                notificationNames, timestamp, take, principal);
-
-        final Comparator<DeviceNotification> comparator = CommandResponseFilterAndSort.buildDeviceNotificationComparator(sortField);
-        final Boolean reverse = sortOrderSt == null ? null : "desc".equalsIgnoreCase(sortOrderSt);
-
-        final List<DeviceNotification> sortedDeviceNotifications = CommandResponseFilterAndSort.orderAndLimit(new ArrayList<>(notificationList),
-                comparator, reverse, skip, take);
+        if (skip != null && skip < 0) {
+            return ResponseFactory.response(Response.Status.OK, Collections.emptyList(),
+                    JsonPolicyDef.Policy.NOTIFICATION_TO_CLIENT);
+        }
+        final MessageSort sort = CommandResponseFilterAndSort.buildDeviceNotificationSort(sortField, sortOrderSt);
+        final List<DeviceNotification> sortedDeviceNotifications = notificationService.findWithHistory(
+                device.getGuid(), notificationNames, timestamp, TimestampQueryParamParser.parse(endTs), sort,
+                skip != null ? skip : 0, CommandResponseFilterAndSort.takeOf(take), principal);
 
         logger.debug("Device notification query request proceed successfully for device {}", guid);
         return ResponseFactory.response(Response.Status.OK, sortedDeviceNotifications, JsonPolicyDef.Policy.NOTIFICATION_TO_CLIENT);
@@ -145,16 +147,21 @@ public class DeviceNotificationResourceImpl implements DeviceNotificationResourc
         final String devices = StringUtils.isNoneBlank(deviceGuidsString) ? deviceGuidsString : null;
         final String names = StringUtils.isNoneBlank(namesString) ? namesString : null;
 
-        mes.submit(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    getOrWaitForNotifications(principal, devices, names, ts, timeout, asyncResponse, isMany);
-                } catch (Exception e) {
-                    asyncResponse.resume(e);
+        try {
+            mes.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        getOrWaitForNotifications(principal, devices, names, ts, timeout, asyncResponse, isMany);
+                    } catch (Exception e) {
+                        asyncResponse.resume(e);
+                    }
                 }
-            }
-        });
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("Notification poll rejected, too many concurrent polls");
+            asyncResponse.resume(ResponseFactory.response(Response.Status.SERVICE_UNAVAILABLE));
+        }
     }
 
     private void getOrWaitForNotifications(final HivePrincipal principal, final String devices,
@@ -164,6 +171,7 @@ public class DeviceNotificationResourceImpl implements DeviceNotificationResourc
 
         if (timeout < 0) {
             submitEmptyResponse(asyncResponse);
+            return;
         }
 
         final List<String> availableDevices = (StringUtils.isNotEmpty(devices))
@@ -174,15 +182,14 @@ public class DeviceNotificationResourceImpl implements DeviceNotificationResourc
         final UUID reqId = UUID.randomUUID();
         NotificationSubscriptionStorage storage = subscriptionManager.getNotificationSubscriptionStorage();
         Set<NotificationSubscription> subscriptionSet = new HashSet<>();
-        FutureTask<Void> simpleWaitTask = new FutureTask<>(Runnables.doNothing(), null);
 
         if (!availableDevices.isEmpty()) {
             subscriptionSet.addAll(availableDevices.stream().map(guid ->
-                    getNotificationInsertSubscription(principal, guid, reqId, names, asyncResponse, isMany, simpleWaitTask))
+                    getNotificationInsertSubscription(principal, guid, reqId, names, asyncResponse, isMany))
                     .collect(Collectors.toList()));
         } else {
             subscriptionSet.add(getNotificationInsertSubscription(principal, Constants.NULL_SUBSTITUTE, reqId, names,
-                    asyncResponse, isMany, simpleWaitTask));
+                    asyncResponse, isMany));
         }
 
         if (timestamp != null && !availableDevices.isEmpty()) {
@@ -194,9 +201,8 @@ public class DeviceNotificationResourceImpl implements DeviceNotificationResourc
             logger.debug("Notifications poll result: {}", response.getEntity());
             asyncResponse.resume(response);
         } else {
-            if (!SimpleWaiter.subscribeAndWait(storage, subscriptionSet, new FutureTask<Void>(Runnables.doNothing(), null), timeout)) {
-                submitEmptyResponse(asyncResponse);
-            }
+            longPollRegistry.park(asyncResponse, storage, subscriptionSet, timeout, () ->
+                    ResponseFactory.response(Response.Status.OK, Collections.emptyList(), JsonPolicyDef.Policy.NOTIFICATION_TO_CLIENT));
         }
     }
 
@@ -238,8 +244,8 @@ public class DeviceNotificationResourceImpl implements DeviceNotificationResourc
     }
 
     private NotificationSubscription getNotificationInsertSubscription(HivePrincipal principal, String guid, UUID reqId, String names,
-                          AsyncResponse asyncResponse, boolean isMany, FutureTask<Void> waitTask){
+                          AsyncResponse asyncResponse, boolean isMany){
         return new NotificationSubscription(principal, guid, reqId, names,
-                RestHandlerCreator.createNotificationInsert(asyncResponse, isMany, waitTask));
+                RestHandlerCreator.createNotificationInsert(asyncResponse, isMany));
     }
 }
@@ -1,74 +1,42 @@
 package com.devicehive.resource.util;
 
-import com.devicehive.model.DeviceCommand;
-import com.devicehive.model.DeviceNotification;
-
-import java.util.*;
+import com.devicehive.service.store.MessageSort;
 
+/**
+ * Translates sort query parameters of notification and command queries. Sorting, skip and take are applied by the
+ * message store, so only the requested page is materialized.
+ */
 public class CommandResponseFilterAndSort {
 
     private CommandResponseFilterAndSort() {
 
     }
 
-    public static <T> List<T> orderAndLimit(List<T> deviceCommands,
-                                            Comparator<T> cmp, Boolean reverse,
-                                            Integer skip, Integer take) {
-        if (cmp != null) {
-            Collections.sort(deviceCommands, cmp);
-        }
-        if (Boolean.FALSE.equals(reverse)) {
-            Collections.reverse(deviceCommands);
-        }
-        if (skip != null && take != null && take >= 0) {
-            return subList(deviceCommands, skip, take);
+    public static MessageSort buildDeviceCommandSort(String field, String order) {
+        if ("status".equalsIgnoreCase(field)) {
+            return new MessageSort(MessageSort.Field.STATUS, isAscending(order));
+        } else if ("command".equalsIgnoreCase(field)) {
+            return new MessageSort(MessageSort.Field.NAME, isAscending(order));
         }
-        return deviceCommands;
+        return new MessageSort(MessageSort.Field.TIMESTAMP, isAscending(order));
     }
 
-    private static <T> List<T> subList(List<T> deviceCommands, Integer skip, Integer take) {
-        if (skip < 0 || take < 0 || skip >= deviceCommands.size()) {
-            return Collections.emptyList();
+    public static MessageSort buildDeviceNotificationSort(String field, String order) {
+        if ("notification".equalsIgnoreCase(field)) {
+            return new MessageSort(MessageSort.Field.NAME, isAscending(order));
         }
-        int end = (int) Math.min(deviceCommands.size(), (long) skip + take);
-        return deviceCommands.subList(skip, end);
+        return new MessageSort(MessageSort.Field.TIMESTAMP, isAscending(order));
     }
 
-    public static Comparator<DeviceCommand> buildDeviceCommandComparator(String field) {
-        if ("timestamp".equalsIgnoreCase(field)) {
-            return null;
-        } else if ("status".equalsIgnoreCase(field)) {
-            return new Comparator<DeviceCommand>() {
-                @Override
-                public int compare(DeviceCommand o1, DeviceCommand o2) {
-                    String o2Status = o2.getStatus() == null ? "" : o2.getStatus();
-                    return o2Status.compareTo(o1.getStatus());
-                }
-            };
-        } else if ("command".equalsIgnoreCase(field)) {
-            return new Comparator<DeviceCommand>() {
-                @Override
-                public int compare(DeviceCommand o1, DeviceCommand o2) {
-                    String o2Command = o2.getCommand() == null ? "" : o2.getCommand();
-                    return o2Command.compareTo(o1.getCommand());
-                }
-            };
-        }
-        return null;
+    /**
+     * Take parameter as understood by the message store, where 0 means no limit
+     */
+    public static int takeOf(Integer take) {
+        return take == null || take < 0 ? 0 : take;
     }
 
-    public static Comparator<DeviceNotification> buildDeviceNotificationComparator(String field) {
-        if ("timestamp".equalsIgnoreCase(field)) {
-            return null;
-        } else if ("notification".equalsIgnoreCase(field)) {
-            return new Comparator<DeviceNotification>() {
-                @Override
-                public int compare(DeviceNotification o1, DeviceNotification o2) {
-                    String o2Status = o2.getNotification() == null ? "" : o2.getNotification();
-                    return o2Status.compareTo(o1.getNotification());
-                }
-            };
-        }
-        return null;
+    private static boolean isAscending(String order) {
+        // descending unless requested otherwise
+        return order != null && !"desc".equalsIgnoreCase(order);
     }
 }
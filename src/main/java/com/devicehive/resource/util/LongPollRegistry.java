@@ -0,0 +1,119 @@
+package com.devicehive.resource.util;
+
+import com.devicehive.application.DeviceHiveApplication;
+import com.devicehive.messages.subscriptions.AbstractStorage;
+import com.devicehive.messages.subscriptions.Subscription;
+import com.devicehive.util.TimerWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.CompletionCallback;
+import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Keeps REST long polling requests without blocking a thread per request. Request is resumed either by subscription
+ * handler when message arrives, or with timeout response scheduled on the {@link TimerWheel}. Subscriptions are
+ * removed as soon as the request is completed.
+ */
+@Component
+public class LongPollRegistry implements PublicMetrics {
+    private static final Logger logger = LoggerFactory.getLogger(LongPollRegistry.class);
+
+    @Autowired
+    @Qualifier(DeviceHiveApplication.LONG_POLL_EXECUTOR)
+    private ExecutorService executor;
+
+    @Value("${rest.longpoll.tick.ms:100}")
+    private long tickMs;
+
+    @Value("${rest.longpoll.wheel.size:1024}")
+    private int wheelSize;
+
+    private TimerWheel timer;
+
+    private final AtomicLong parked = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        timer = new TimerWheel("long-poll-timer", tickMs, TimeUnit.MILLISECONDS, wheelSize, executor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.stop();
+    }
+
+    public <E, T, S extends Subscription<E, T>> void park(AsyncResponse asyncResponse, AbstractStorage<E, S> storage,
+                                                          S subscription, long timeoutSec,
+                                                          Supplier<Response> timeoutResponse) {
+        park(asyncResponse, storage, Collections.singletonList(subscription), timeoutSec, timeoutResponse);
+    }
+
+    /**
+     * Inserts subscriptions into the storage and returns immediately. Subscription handlers are expected to resume
+     * the request.
+     */
+    public <E, T, S extends Subscription<E, T>> void park(AsyncResponse asyncResponse, AbstractStorage<E, S> storage,
+                                                          Collection<S> subscriptions, long timeoutSec,
+                                                          Supplier<Response> timeoutResponse) {
+        List<S> subs = new ArrayList<>(subscriptions);
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                storage.removeAll(subs);
+                parked.decrementAndGet();
+                logger.debug("{} subs removed", subs.size());
+            }
+        };
+        parked.incrementAndGet();
+        TimerWheel.Timeout timeout = timer.schedule(() -> {
+            release.run();
+            if (asyncResponse.resume(timeoutResponse.get())) {
+                timedOut.incrementAndGet();
+            }
+        }, timeoutSec, TimeUnit.SECONDS);
+        // registered before subscriptions are inserted, so it can't miss the completion
+        asyncResponse.register((CompletionCallback) throwable -> {
+            timeout.cancel();
+            release.run();
+        });
+        storage.insertAll(subs);
+        if (asyncResponse.isDone()) {
+            // request could be completed before subscriptions were inserted
+            timeout.cancel();
+            release.run();
+            storage.removeAll(subs);
+        }
+    }
+
+    public long getParked() {
+        return parked.get();
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>("longPoll.parked", parked.get()));
+        metrics.add(new Metric<>("longPoll.timedOut", timedOut.get()));
+        return metrics;
+    }
+}
@@ -1,62 +1,72 @@
 package com.devicehive.service;
 
 import com.devicehive.auth.HivePrincipal;
+import com.devicehive.configuration.Messages;
+import com.devicehive.exceptions.HiveException;
 import com.devicehive.messages.bus.MessageBus;
-import com.devicehive.model.DeviceCommand;
-import com.devicehive.model.DeviceNotification;
 import com.devicehive.model.HazelcastEntity;
-import com.devicehive.service.helpers.HazelcastEntityComparator;
-import com.devicehive.service.helpers.HazelcastHelper;
-import com.hazelcast.core.HazelcastInstance;
-import com.hazelcast.core.IMap;
-import com.hazelcast.query.PagingPredicate;
-import com.hazelcast.query.Predicate;
+import com.devicehive.service.store.MapMessageStore;
+import com.devicehive.service.store.MessageFilter;
+import com.devicehive.service.store.MessageSort;
+import com.devicehive.service.store.MessageStore;
+import com.devicehive.service.store.RingBufferMessageStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletResponse;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 
 @Repository
 public abstract class AbstractHazelcastEntityService {
     private static final Logger logger = LoggerFactory.getLogger(AbstractHazelcastEntityService.class);
 
-    public static final String NOTIFICATIONS_MAP = "NOTIFICATIONS-MAP";
-    public static final String COMMANDS_MAP = "COMMANDS-MAP";
+    public static final String NOTIFICATIONS_MAP = MapMessageStore.NOTIFICATIONS_MAP;
+    public static final String COMMANDS_MAP = MapMessageStore.COMMANDS_MAP;
 
     @Autowired
-    protected HazelcastInstance hazelcastInstance;
+    protected MessageBus messageBus;
 
     @Autowired
-    protected HazelcastHelper hazelcastHelper;
+    private DeviceService deviceService;
 
     @Autowired
-    protected MessageBus messageBus;
+    private MapMessageStore mapMessageStore;
 
     @Autowired
-    private DeviceService deviceService;
+    private RingBufferMessageStore ringBufferMessageStore;
+
+    /**
+     * 'map' keeps messages in single map per message type, 'ring' keeps bounded buffer per device
+     */
+    @Value("${message.store.engine:map}")
+    private String storeEngine;
+
+    @Value("${kafka.producer.await.ack:false}")
+    private boolean awaitAck;
 
-    private Map<Class, IMap<String, Object>> mapsHolder;
+    @Value("${kafka.producer.await.ack.timeout.ms:5000}")
+    private long awaitAckTimeoutMs;
+
+    private MessageStore messageStore;
 
     @PostConstruct
     protected void init() {
-        final IMap<String, Object> notificationsMap = hazelcastInstance.getMap("NOTIFICATIONS-MAP");
-        notificationsMap.addIndex("timestamp", true);
-        final IMap<String, Object> commandsMap = hazelcastInstance.getMap("COMMANDS-MAP");
-        commandsMap.addIndex("timestamp", true);
-
-        mapsHolder = new HashMap<>(2);
-        mapsHolder.put(DeviceNotification.class, notificationsMap);
-        mapsHolder.put(DeviceCommand.class, commandsMap);
+        messageStore = "ring".equalsIgnoreCase(storeEngine) ? ringBufferMessageStore : mapMessageStore;
+        logger.info("{} uses {} message store", getClass().getSimpleName(), storeEngine);
     }
 
 
     protected  <T extends HazelcastEntity> T find(Long id, String guid, Class<T> entityClass) {
-        final Predicate filters = hazelcastHelper.prepareFilters(id, guid);
-        final List<T> entities = new ArrayList<>(retrieve(filters, 1, entityClass));
+        final List<T> entities = new ArrayList<>(messageStore.find(MessageFilter.byId(id, guid), 1, entityClass));
 
         return entities.isEmpty() ? null : entities.get(0);
     }
@@ -67,34 +77,52 @@ public abstract class AbstractHazelcastEntityService {
                               Integer take, Boolean hasResponse,
                               HivePrincipal principal, Class<T> entityClass) {
         List<String> availableDevicesGUIDs = getAvailableDevices(devices, principal);
-        final Predicate filters = hazelcastHelper.prepareFilters(availableDevicesGUIDs, names, timestamp, status, hasResponse);
-        return retrieve(filters, take, entityClass);
+        final MessageFilter filter = new MessageFilter(null, null, availableDevicesGUIDs, names, timestamp, status, hasResponse);
+        return messageStore.find(filter, take, entityClass);
     }
 
     protected  <T extends HazelcastEntity> Collection<T> find(Long id, String guid, Collection<String> devices,
                               Collection<String> names, Date timestamp, Integer take,
                               HivePrincipal principal, Class<T> entityClass) {
         List<String> availableDevicesGUIDs = getAvailableDevices(devices, principal);
-        final Predicate filters = hazelcastHelper.prepareFilters(id, guid, availableDevicesGUIDs, names,
-                timestamp);
-        return retrieve(filters, take, entityClass);
+        final MessageFilter filter = new MessageFilter(id, guid, availableDevicesGUIDs, names, timestamp, null, null);
+        return messageStore.find(filter, take, entityClass);
     }
 
+    /**
+     * Returns one page of messages of available devices in the requested order
+     */
+    protected <T extends HazelcastEntity> List<T> find(Collection<String> devices, Collection<String> names,
+                                                       Date timestamp, Date endTimestamp, String status,
+                                                       MessageSort sort, int skip, int take,
+                                                       HivePrincipal principal, Class<T> entityClass) {
+        List<String> availableDevicesGUIDs = getAvailableDevices(devices, principal);
+        final MessageFilter filter = new MessageFilter(null, null, availableDevicesGUIDs, names, timestamp,
+                endTimestamp, status, null);
+        return messageStore.find(filter, sort, skip, take, entityClass);
+    }
+
+    /**
+     * Stores and publishes the entity. When broker acknowledgment is awaited and doesn't come in time, the entity
+     * stays in the store and may still be published, so the insert isn't idempotent and retry makes a duplicate.
+     */
     protected  <T extends HazelcastEntity> void store(final T hzEntity, final Class<T> tClass) {
         logger.debug("Saving entity into hazelcast. [Entity: {}]", hzEntity);
-        mapsHolder.get(tClass).set(hzEntity.getHazelcastKey(), hzEntity);
-        messageBus.publish(hzEntity);
+        messageStore.store(hzEntity, tClass);
+        CompletableFuture<Void> published = messageBus.publish(hzEntity);
+        if (awaitAck) {
+            awaitAcknowledgment(published);
+        }
     }
 
-    @SuppressWarnings("unchecked")
-    private  <T extends HazelcastEntity> Collection<T> retrieve(Predicate andPredicate, int pageSize, Class<T> tClass) {
-        if (pageSize <= 0) {
-            final Collection collection = mapsHolder.get(tClass).values(andPredicate);
-            return ((Collection<T>) collection);
-        } else {
-            final PagingPredicate pagingPredicate = new PagingPredicate(andPredicate, new HazelcastEntityComparator(), pageSize);
-            final Collection collection = mapsHolder.get(tClass).values(pagingPredicate);
-            return ((Collection<T>) collection);
+    private void awaitAcknowledgment(CompletableFuture<Void> published) {
+        try {
+            published.get(awaitAckTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HiveException(Messages.MESSAGE_NOT_ACKNOWLEDGED, e, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new HiveException(Messages.MESSAGE_NOT_ACKNOWLEDGED, e, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
         }
     }
 
@@ -0,0 +1,336 @@
+package com.devicehive.service;
+
+import com.devicehive.configuration.ConfigurationService;
+import com.devicehive.configuration.Constants;
+import com.devicehive.model.AccessKey;
+import com.devicehive.model.AccessKeyPermission;
+import com.devicehive.model.JsonStringWrapper;
+import com.devicehive.model.User;
+import com.devicehive.model.enums.AccessKeyType;
+import com.devicehive.model.enums.UserRole;
+import com.devicehive.model.enums.UserStatus;
+import com.devicehive.service.time.TimestampService;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.query.Predicates;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cluster wide cache of access keys authenticated by {@link AccessKeyService#authenticate(String)}, so requests with
+ * the same bearer key don't query the database. Session keys are extended in the cached copy right away, while the
+ * database is updated in background with all extensions collected since the previous flush.
+ * <p>
+ * Only fields needed to authorize requests are cached, keyed by SHA-256 of the bearer key, so the cluster map holds
+ * neither usable keys nor password hashes of users.
+ */
+@Component
+public class AccessKeyCache {
+    private static final Logger logger = LoggerFactory.getLogger(AccessKeyCache.class);
+    private static final String ACCESS_KEYS_MAP = "AUTHENTICATED-ACCESS-KEYS";
+
+    @Autowired
+    private AccessKeyService accessKeyService;
+
+    @Autowired
+    private ConfigurationService configurationService;
+
+    @Autowired
+    private TimestampService timestampService;
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Value("${auth.key.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${auth.key.cache.ttl.sec:60}")
+    private long ttlSec;
+
+    @Value("${auth.key.expiration.flush.ms:1000}")
+    private long flushMs;
+
+    private IMap<String, AuthenticatedKey> keys;
+
+    /**
+     * Extended expiration dates by access key id, which are not written to the database yet
+     */
+    private final Map<Long, Date> pendingExpirations = new ConcurrentHashMap<>();
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void init() {
+        keys = hazelcastInstance.getMap(ACCESS_KEYS_MAP);
+        keys.addIndex("userId", false);
+        keys.addIndex("accessKeyId", false);
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "access-key-expiration");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushMs, flushMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+        flush();
+    }
+
+    /**
+     * @return access key or null if there is no such key
+     */
+    public AccessKey authenticate(String key) {
+        if (!enabled) {
+            return accessKeyService.authenticate(key);
+        }
+        String hash = hashOf(key);
+        AuthenticatedKey cached = keys.get(hash);
+        if (cached == null) {
+            AccessKey accessKey = accessKeyService.authenticate(key);
+            if (accessKey != null) {
+                long sessionTimeout = configurationService.getLong(Constants.SESSION_TIMEOUT, Constants.DEFAULT_SESSION_TIMEOUT);
+                keys.set(hash, new AuthenticatedKey(accessKey, sessionTimeout), ttlSec, TimeUnit.SECONDS);
+            }
+            return accessKey;
+        }
+        if (cached.getExpirationDate() != null && AccessKeyType.SESSION == cached.getType()) {
+            long now = timestampService.getTimestamp().getTime();
+            long expiresIn = cached.getExpirationDate().getTime() - now;
+            if (expiresIn > 0 && expiresIn < cached.getSessionTimeout() / 2) {
+                Date expirationDate = new Date(now + cached.getSessionTimeout());
+                cached = cached.withExpirationDate(expirationDate);
+                // other nodes see the extended key, so they don't extend it once again
+                keys.set(hash, cached, ttlSec, TimeUnit.SECONDS);
+                pendingExpirations.merge(cached.getAccessKeyId(), expirationDate, (a, b) -> a.after(b) ? a : b);
+            }
+        }
+        return cached.toAccessKey(key);
+    }
+
+    /**
+     * Drops cached access key. Called when the key is changed or deleted.
+     */
+    public void invalidateAccessKey(Long accessKeyId) {
+        invalidate(Predicates.equal("accessKeyId", accessKeyId));
+    }
+
+    /**
+     * Drops cached access keys of the user. Called when the user is changed, locked or deleted.
+     */
+    public void invalidateUser(Long userId) {
+        invalidate(Predicates.equal("userId", userId));
+    }
+
+    void flush() {
+        if (pendingExpirations.isEmpty()) {
+            return;
+        }
+        Map<Long, Date> batch = new HashMap<>();
+        for (Long id : pendingExpirations.keySet()) {
+            Date expirationDate = pendingExpirations.remove(id);
+            if (expirationDate != null) {
+                batch.put(id, expirationDate);
+            }
+        }
+        try {
+            accessKeyService.extendExpiration(batch);
+            logger.debug("Expiration of {} access keys is extended", batch.size());
+        } catch (RuntimeException e) {
+            logger.error("Unable to extend expiration of {} access keys, will retry", batch.size(), e);
+            batch.forEach((id, date) -> pendingExpirations.merge(id, date, (a, b) -> a.after(b) ? a : b));
+        }
+    }
+
+    private void invalidate(Predicate<?, ?> predicate) {
+        if (!enabled) {
+            return;
+        }
+        removeAll(predicate);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // key can be loaded again before the change is committed, so drop it once again after commit
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    removeAll(predicate);
+                }
+            });
+        }
+    }
+
+    static String hashOf(String key) {
+        // keys are random, so plain hash can't be reversed, while it is the same on every node
+        return DigestUtils.sha256Hex(key);
+    }
+
+    private void removeAll(Predicate<?, ?> predicate) {
+        for (String key : keys.keySet(predicate)) {
+            keys.delete(key);
+        }
+    }
+
+    /**
+     * Fields of access key and its user needed to authorize requests
+     */
+    public static class AuthenticatedKey implements Serializable {
+        private static final long serialVersionUID = -2841634522312406854L;
+
+        private final Long accessKeyId;
+        private final String label;
+        private final AccessKeyType type;
+        private final Date expirationDate;
+        private final Long userId;
+        private final String userLogin;
+        private final UserRole userRole;
+        private final UserStatus userStatus;
+        private final List<Permission> permissions;
+        private final long sessionTimeout;
+
+        public AuthenticatedKey(AccessKey accessKey, long sessionTimeout) {
+            this.accessKeyId = accessKey.getId();
+            this.label = accessKey.getLabel();
+            this.type = accessKey.getType();
+            this.expirationDate = accessKey.getExpirationDate();
+            User user = accessKey.getUser();
+            this.userId = user != null ? user.getId() : null;
+            this.userLogin = user != null ? user.getLogin() : null;
+            this.userRole = user != null ? user.getRole() : null;
+            this.userStatus = user != null ? user.getStatus() : null;
+            this.permissions = new ArrayList<>();
+            if (accessKey.getPermissions() != null) {
+                for (AccessKeyPermission permission : accessKey.getPermissions()) {
+                    permissions.add(new Permission(permission));
+                }
+            }
+            this.sessionTimeout = sessionTimeout;
+        }
+
+        private AuthenticatedKey(AuthenticatedKey key, Date expirationDate) {
+            this.accessKeyId = key.accessKeyId;
+            this.label = key.label;
+            this.type = key.type;
+            this.expirationDate = expirationDate;
+            this.userId = key.userId;
+            this.userLogin = key.userLogin;
+            this.userRole = key.userRole;
+            this.userStatus = key.userStatus;
+            this.permissions = key.permissions;
+            this.sessionTimeout = key.sessionTimeout;
+        }
+
+        public AuthenticatedKey withExpirationDate(Date expirationDate) {
+            return new AuthenticatedKey(this, expirationDate);
+        }
+
+        /**
+         * Builds detached access key of the request, each request gets its own instance
+         */
+        public AccessKey toAccessKey(String key) {
+            AccessKey accessKey = new AccessKey();
+            accessKey.setId(accessKeyId);
+            accessKey.setKey(key);
+            accessKey.setLabel(label);
+            accessKey.setType(type);
+            accessKey.setExpirationDate(expirationDate != null ? new Date(expirationDate.getTime()) : null);
+            if (userId != null) {
+                User user = new User();
+                user.setId(userId);
+                user.setLogin(userLogin);
+                user.setRole(userRole);
+                user.setStatus(userStatus);
+                accessKey.setUser(user);
+            }
+            Set<AccessKeyPermission> keyPermissions = new HashSet<>();
+            for (Permission permission : permissions) {
+                keyPermissions.add(permission.toAccessKeyPermission(accessKey));
+            }
+            accessKey.setPermissions(keyPermissions);
+            return accessKey;
+        }
+
+        public Long getAccessKeyId() {
+            return accessKeyId;
+        }
+
+        public AccessKeyType getType() {
+            return type;
+        }
+
+        public Date getExpirationDate() {
+            return expirationDate;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public long getSessionTimeout() {
+            return sessionTimeout;
+        }
+    }
+
+    private static class Permission implements Serializable {
+        private static final long serialVersionUID = 5129365127842154879L;
+
+        private final Long id;
+        private final long entityVersion;
+        private final String domains;
+        private final String subnets;
+        private final String actions;
+        private final String networkIds;
+        private final String deviceGuids;
+
+        Permission(AccessKeyPermission permission) {
+            this.id = permission.getId();
+            this.entityVersion = permission.getEntityVersion();
+            this.domains = jsonOf(permission.getDomains());
+            this.subnets = jsonOf(permission.getSubnets());
+            this.actions = jsonOf(permission.getActions());
+            this.networkIds = jsonOf(permission.getNetworkIds());
+            this.deviceGuids = jsonOf(permission.getDeviceGuids());
+        }
+
+        AccessKeyPermission toAccessKeyPermission(AccessKey accessKey) {
+            AccessKeyPermission permission = new AccessKeyPermission();
+            permission.setId(id);
+            permission.setEntityVersion(entityVersion);
+            permission.setAccessKey(accessKey);
+            permission.setDomains(wrapperOf(domains));
+            permission.setSubnets(wrapperOf(subnets));
+            permission.setActions(wrapperOf(actions));
+            permission.setNetworkIds(wrapperOf(networkIds));
+            permission.setDeviceGuids(wrapperOf(deviceGuids));
+            return permission;
+        }
+
+        private static String jsonOf(JsonStringWrapper wrapper) {
+            return wrapper != null ? wrapper.getJsonString() : null;
+        }
+
+        private static JsonStringWrapper wrapperOf(String json) {
+            return json != null ? new JsonStringWrapper(json) : null;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.devicehive.service;
 
+import com.devicehive.auth.CompiledPermission;
 import com.devicehive.configuration.ConfigurationService;
 import com.devicehive.configuration.Constants;
 import com.devicehive.configuration.Messages;
@@ -34,7 +35,6 @@ import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import javax.validation.constraints.NotNull;
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static java.util.Optional.of;
 import static java.util.Optional.ofNullable;
@@ -62,6 +62,10 @@ public class AccessKeyService {
 
     @Autowired
     private GenericDAO genericDAO;
+    @Autowired
+    private DeviceAccessCache deviceAccessCache;
+    @Autowired
+    private AccessKeyCache accessKeyCache;
 
     @PersistenceContext(unitName = Constants.PERSISTENCE_UNIT)
     private EntityManager em;
@@ -132,6 +136,8 @@ public class AccessKeyService {
                 genericDAO.persist(permission);
             }
         }
+        accessKeyCache.invalidateAccessKey(keyId);
+        deviceAccessCache.invalidateAll();
         return true;
     }
 
@@ -156,6 +162,20 @@ public class AccessKeyService {
         return accessKey;
     }
 
+    /**
+     * Writes session expiration dates extended by {@link AccessKeyCache}, dates are never moved back
+     *
+     * @param expirationDates expiration dates by access key id
+     */
+    @Transactional
+    public void extendExpiration(Map<Long, Date> expirationDates) {
+        expirationDates.forEach((id, expirationDate) ->
+                genericDAO.createNamedQuery("AccessKey.extendExpiration", Optional.<CacheConfig>empty())
+                        .setParameter("expirationDate", expirationDate)
+                        .setParameter("accessKeyId", id)
+                        .executeUpdate());
+    }
+
     public AccessKey createAccessKey(@NotNull AccessKeyRequest request, IdentityProviderEnum identityProviderEnum) {
         switch (identityProviderEnum) {
             case GOOGLE:
@@ -200,15 +220,14 @@ public class AccessKeyService {
     public boolean hasAccessToNetwork(AccessKey accessKey, Network targetNetwork) {
         Set<AccessKeyPermission> permissions = accessKey.getPermissions();
         User user = accessKey.getUser();
-        boolean hasNullPermission = permissions.stream().anyMatch(perm -> perm.getNetworkIdsAsSet() == null);
+        boolean hasNullPermission = permissions.stream().anyMatch(perm -> !perm.getCompiled().isNetworkRestricted());
         if (hasNullPermission) {
             return userService.hasAccessToNetwork(user, targetNetwork);
         } else {
-            Set<Long> allowedNetworks = permissions.stream().map(AccessKeyPermission::getNetworkIdsAsSet)
-                    .flatMap(Collection::stream)
-                    .collect(Collectors.toSet());
+            boolean networkListed = permissions.stream()
+                    .anyMatch(perm -> perm.getCompiled().allowsNetwork(targetNetwork.getId()));
             user = userService.findUserWithNetworks(user.getId());
-            return allowedNetworks.contains(targetNetwork.getId()) &&
+            return networkListed &&
                     (user.isAdmin() || user.getNetworks().contains(targetNetwork));
         }
     }
@@ -216,8 +235,10 @@ public class AccessKeyService {
     @Transactional(propagation = Propagation.SUPPORTS)
     public boolean hasAccessToDevice(AccessKey accessKey, String deviceGuid) {
         Set<AccessKeyPermission> permissions = accessKey.getPermissions();
-        Set<String> allowedDevices = new HashSet<>();
-        Set<Long> allowedNetworks = new HashSet<>();
+        boolean anyDevice = false;
+        boolean deviceListed = false;
+        boolean anyNetwork = false;
+        boolean networkListed = false;
 
         User accessKeyUser = userService.findUserWithNetworks(accessKey.getUser().getId());
         Set<AccessKeyPermission> toRemove = new HashSet<>();
@@ -227,37 +248,34 @@ public class AccessKeyService {
                 .getSingleResult();
 
         for (AccessKeyPermission currentPermission : permissions) {
-            if (currentPermission.getDeviceGuidsAsSet() == null) {
-                allowedDevices.add(null);
+            CompiledPermission compiled = currentPermission.getCompiled();
+            if (!compiled.isDeviceRestricted()) {
+                anyDevice = true;
+            } else if (!compiled.allowsDevice(deviceGuid)) {
+                toRemove.add(currentPermission);
             } else {
-                if (!currentPermission.getDeviceGuidsAsSet().contains(deviceGuid)) {
+                deviceListed = true;
+            }
+            if (!compiled.isNetworkRestricted()) {
+                anyNetwork = true;
+            } else if (device.getNetwork() != null) {
+                if (!compiled.allowsNetwork(device.getNetwork().getId())) {
                     toRemove.add(currentPermission);
                 } else {
-                    allowedDevices.addAll(currentPermission.getDeviceGuidsAsSet());
-                }
-            }
-            if (currentPermission.getNetworkIdsAsSet() == null) {
-                allowedNetworks.add(null);
-            } else {
-                if (device.getNetwork() != null) {
-                    if (!currentPermission.getNetworkIdsAsSet().contains(device.getNetwork().getId())) {
-                        toRemove.add(currentPermission);
-                    } else {
-                        allowedNetworks.addAll(currentPermission.getNetworkIdsAsSet());
-                    }
+                    networkListed = true;
                 }
             }
         }
         permissions.removeAll(toRemove);
         boolean hasAccess;
-        hasAccess = allowedDevices.contains(null) ?
+        hasAccess = anyDevice ?
                 userService.hasAccessToDevice(accessKeyUser, device.getGuid()) :
-                allowedDevices.contains(device.getGuid()) && userService.hasAccessToDevice(accessKeyUser, device.getGuid());
+                deviceListed && userService.hasAccessToDevice(accessKeyUser, device.getGuid());
 
-        hasAccess = hasAccess && allowedNetworks.contains(null) ?
+        hasAccess = hasAccess && anyNetwork ?
                 accessKeyUser.isAdmin() || accessKeyUser.getNetworks().contains(device.getNetwork()) :
                 (accessKeyUser.isAdmin() || accessKeyUser.getNetworks().contains(device.getNetwork()))
-                        && allowedNetworks.contains(device.getNetwork().getId());
+                        && networkListed;
 
         return hasAccess;
     }
@@ -296,6 +314,7 @@ public class AccessKeyService {
     public AccessKey updateAccessKeyFromOAuthGrant(OAuthGrant grant, User user, Date now) {
         AccessKey existing = find(grant.getAccessKey().getId(), user.getId());
         deleteAccessKeyPermissions(existing);
+        accessKeyCache.invalidateAccessKey(existing.getId());
         if (grant.getAccessType().equals(AccessType.ONLINE)) {
             Date expirationDate = new Date(now.getTime() + 600000);  //the key is valid for 10 minutes
             existing.setExpirationDate(expirationDate);
@@ -351,6 +370,8 @@ public class AccessKeyService {
                 .orElseGet(() -> genericDAO.createNamedQuery("AccessKey.deleteById", Optional.<CacheConfig>empty())
                         .setParameter("accessKeyId", keyId)
                         .executeUpdate());
+        accessKeyCache.invalidateAccessKey(keyId);
+        deviceAccessCache.invalidateAll();
         return removed > 0;
     }
 
@@ -382,5 +403,6 @@ public class AccessKeyService {
                 .setParameter("expirationDate", timestampService.getTimestamp())
                 .executeUpdate();
         logger.info("Removed {} expired access keys", removed);
+        deviceAccessCache.invalidateAll();
     }
 }
@@ -0,0 +1,104 @@
+package com.devicehive.service;
+
+import com.devicehive.model.DeviceCommand;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Node local cache of recently written commands, so command wait and command update flows do not query the cluster
+ * for the command which was just inserted or updated. Filled on local writes and by command and command update
+ * consumers, which receive the writes of all other nodes.
+ */
+@Component
+public class CommandNearCache implements PublicMetrics {
+
+    @Value("${command.near.cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${command.near.cache.size:10000}")
+    private long maxSize;
+
+    @Value("${command.near.cache.ttl.sec:60}")
+    private long ttlSec;
+
+    private Cache<Pair<Long, String>, DeviceCommand> commands;
+
+    @PostConstruct
+    public void init() {
+        commands = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSec, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns a copy of the cached command, so callers are free to modify it
+     */
+    public DeviceCommand get(Long id, String deviceGuid) {
+        if (!enabled || id == null || deviceGuid == null) {
+            return null;
+        }
+        DeviceCommand command = commands.getIfPresent(ImmutablePair.of(id, deviceGuid));
+        return command != null ? copyOf(command) : null;
+    }
+
+    public void put(DeviceCommand command) {
+        if (!enabled || command.getId() == null || command.getDeviceGuid() == null) {
+            return;
+        }
+        // insert message could be delivered after the update of the same command, don't roll the update back
+        commands.asMap().merge(ImmutablePair.of(command.getId(), command.getDeviceGuid()), copyOf(command),
+                (cached, fresh) -> isUpdated(cached) && !isUpdated(fresh) ? cached : fresh);
+    }
+
+    public CacheStats getStats() {
+        return commands.stats();
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        CacheStats stats = commands.stats();
+        List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>("commandNearCache.size", commands.size()));
+        metrics.add(new Metric<>("commandNearCache.hits", stats.hitCount()));
+        metrics.add(new Metric<>("commandNearCache.misses", stats.missCount()));
+        return metrics;
+    }
+
+    private static boolean isUpdated(DeviceCommand command) {
+        return Boolean.TRUE.equals(command.getIsUpdated());
+    }
+
+    private static DeviceCommand copyOf(DeviceCommand command) {
+        DeviceCommand copy = new DeviceCommand();
+        copy.setId(command.getId());
+        copy.setCommand(command.getCommand());
+        copy.setTimestamp(command.getTimestamp());
+        copy.setUserId(command.getUserId());
+        copy.setDeviceGuid(command.getDeviceGuid());
+        copy.setParameters(command.getParameters());
+        copy.setLifetime(command.getLifetime());
+        copy.setStatus(command.getStatus());
+        copy.setResult(command.getResult());
+        copy.setIsUpdated(command.getIsUpdated());
+        return copy;
+    }
+}
@@ -0,0 +1,174 @@
+package com.devicehive.service;
+
+import com.devicehive.auth.HivePrincipal;
+import com.devicehive.configuration.Constants;
+import com.devicehive.model.AccessKeyPermission;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ITopic;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches results of {@link DeviceService#hasAccessTo(HivePrincipal, String)} for users and access keys, so message
+ * delivery does not hit the database for every subscription and every message. Decisions are dropped on every node
+ * of the cluster whenever networks, users, access keys or devices are changed.
+ */
+@Component
+public class DeviceAccessCache implements PublicMetrics {
+    private static final Logger logger = LoggerFactory.getLogger(DeviceAccessCache.class);
+    private static final String INVALIDATION_TOPIC = "DEVICE-ACCESS-INVALIDATION";
+
+    @Autowired
+    private DeviceService deviceService;
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Value("${device.access.cache.size:100000}")
+    private long maxSize;
+
+    @Value("${device.access.cache.ttl.sec:300}")
+    private long ttlSec;
+
+    private Cache<Pair<String, String>, Boolean> decisions;
+    private ITopic<String> invalidationTopic;
+
+    /**
+     * Incremented on each invalidation, used to not store decisions evaluated concurrently with invalidation
+     */
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        decisions = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSec, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        invalidationTopic = hazelcastInstance.getTopic(INVALIDATION_TOPIC);
+        invalidationTopic.addMessageListener(message -> invalidateLocally(message.getMessageObject()));
+    }
+
+    public boolean hasAccessTo(@NotNull HivePrincipal principal, @NotNull String deviceGuid) {
+        String identity = identityOf(principal);
+        if (identity == null) {
+            return deviceService.hasAccessTo(principal, deviceGuid);
+        }
+        Pair<String, String> key = ImmutablePair.of(identity, deviceGuid);
+        Boolean decision = decisions.getIfPresent(key);
+        if (decision != null) {
+            return decision;
+        }
+        long gen = generation.get();
+        decision = deviceService.hasAccessTo(principal, deviceGuid);
+        if (gen == generation.get()) {
+            decisions.put(key, decision);
+        }
+        return decision;
+    }
+
+    /**
+     * Drops all cached decisions. Called when networks, users or access keys are changed.
+     */
+    public void invalidateAll() {
+        invalidate(Constants.NULL_SUBSTITUTE);
+    }
+
+    /**
+     * Drops cached decisions for the device. Called when device is created, moved to another network or deleted.
+     */
+    public void invalidateDevice(String deviceGuid) {
+        invalidate(deviceGuid != null ? deviceGuid : Constants.NULL_SUBSTITUTE);
+    }
+
+    public CacheStats getStats() {
+        return decisions.stats();
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        CacheStats stats = decisions.stats();
+        List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>("deviceAccessCache.size", decisions.size()));
+        metrics.add(new Metric<>("deviceAccessCache.hits", stats.hitCount()));
+        metrics.add(new Metric<>("deviceAccessCache.misses", stats.missCount()));
+        metrics.add(new Metric<>("deviceAccessCache.hitRate", stats.hitRate()));
+        metrics.add(new Metric<>("deviceAccessCache.invalidations", invalidations.get()));
+        return metrics;
+    }
+
+    private void invalidate(String deviceGuid) {
+        invalidateLocally(deviceGuid);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // decision can be reevaluated before the change is committed, so drop it once again after commit
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    invalidationTopic.publish(deviceGuid);
+                }
+            });
+        } else {
+            invalidationTopic.publish(deviceGuid);
+        }
+    }
+
+    private void invalidateLocally(String deviceGuid) {
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+        if (Constants.NULL_SUBSTITUTE.equals(deviceGuid)) {
+            decisions.invalidateAll();
+        } else {
+            decisions.asMap().keySet().removeIf(key -> deviceGuid.equals(key.getRight()));
+        }
+        logger.debug("Device access decisions invalidated for {}", deviceGuid.isEmpty() ? "all devices" : deviceGuid);
+    }
+
+    private static String identityOf(HivePrincipal principal) {
+        if (principal.getUser() != null && principal.getUser().getId() != null) {
+            return "U" + principal.getUser().getId();
+        }
+        if (principal.getKey() != null && principal.getKey().getId() != null) {
+            // decision of a key depends on permissions left after filtering by action, address and domain of
+            // the request, so each set of permissions of the key has its own decisions
+            Set<AccessKeyPermission> permissions = principal.getKey().getPermissions();
+            if (permissions == null) {
+                return null;
+            }
+            long[] ids = new long[permissions.size()];
+            int i = 0;
+            for (AccessKeyPermission permission : permissions) {
+                if (permission.getId() == null) {
+                    return null;
+                }
+                ids[i++] = permission.getId();
+            }
+            Arrays.sort(ids);
+            return "K" + principal.getKey().getId() + Arrays.toString(ids);
+        }
+        // device and anonymous decisions are evaluated without database
+        return null;
+    }
+}
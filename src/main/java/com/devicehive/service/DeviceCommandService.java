@@ -5,14 +5,17 @@ import com.devicehive.model.Device;
 import com.devicehive.model.DeviceCommand;
 import com.devicehive.model.User;
 import com.devicehive.model.wrappers.DeviceCommandWrapper;
+import com.devicehive.service.id.IdService;
+import com.devicehive.service.store.MessageSort;
 import com.devicehive.service.time.TimestampService;
 import com.devicehive.util.HiveValidator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
-import java.util.Random;
+import java.util.List;
 
 
 @Service
@@ -20,10 +23,15 @@ public class DeviceCommandService extends AbstractHazelcastEntityService {
     @Autowired
     private TimestampService timestampService;
     @Autowired
+    private IdService idService;
+    @Autowired
     private HiveValidator hiveValidator;
+    @Autowired
+    private CommandNearCache commandNearCache;
 
     public DeviceCommand find(Long id, String guid) {
-        return find(id, guid, DeviceCommand.class);
+        DeviceCommand cached = commandNearCache.get(id, guid);
+        return cached != null ? cached : find(id, guid, DeviceCommand.class);
     }
 
     public Collection<DeviceCommand> find(Collection<String> devices, Collection<String> names,
@@ -32,9 +40,15 @@ public class DeviceCommandService extends AbstractHazelcastEntityService {
         return find(devices, names, timestamp, status, take, hasResponse, principal, DeviceCommand.class);
     }
 
+    public List<DeviceCommand> find(String guid, Collection<String> names, Date timestamp, Date endTimestamp,
+                                    String status, MessageSort sort, int skip, int take, HivePrincipal principal) {
+        return find(Collections.singletonList(guid), names, timestamp, endTimestamp, status, sort, skip, take,
+                principal, DeviceCommand.class);
+    }
+
     public DeviceCommand insert(DeviceCommandWrapper commandWrapper, Device device, User user) {
         DeviceCommand command = new DeviceCommand();
-        command.setId(Math.abs(new Random().nextInt()));
+        command.setId(idService.nextId());
         command.setDeviceGuid(device.getGuid());
         command.setIsUpdated(false);
         command.setTimestamp(timestampService.getTimestamp());
@@ -89,5 +103,6 @@ public class DeviceCommandService extends AbstractHazelcastEntityService {
 
     public void store(DeviceCommand command) {
         store(command, DeviceCommand.class);
+        commandNearCache.put(command);
     }
 }
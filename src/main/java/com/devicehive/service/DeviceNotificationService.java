@@ -3,13 +3,18 @@ package com.devicehive.service;
 import com.devicehive.auth.HivePrincipal;
 import com.devicehive.dao.CacheConfig;
 import com.devicehive.dao.GenericDAO;
+import com.devicehive.dao.MessageHistoryDAO;
 import com.devicehive.model.Device;
 import com.devicehive.model.DeviceNotification;
 import com.devicehive.model.SpecialNotifications;
 import com.devicehive.model.wrappers.DeviceNotificationWrapper;
+import com.devicehive.service.id.IdService;
+import com.devicehive.service.store.MessageRetention;
+import com.devicehive.service.store.MessageSort;
 import com.devicehive.service.time.TimestampService;
 import com.devicehive.util.ServerResponsesFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -21,7 +26,16 @@ public class DeviceNotificationService extends AbstractHazelcastEntityService {
     @Autowired
     private TimestampService timestampService;
     @Autowired
+    private IdService idService;
+    @Autowired
     private GenericDAO genericDAO;
+    @Autowired
+    private MessageHistoryDAO messageHistoryDAO;
+    @Autowired
+    private MessageRetention messageRetention;
+
+    @Value("${message.history.enabled:false}")
+    private boolean historyEnabled;
 
     public DeviceNotification find(Long id, String guid) {
         return find(id, guid, DeviceNotification.class);
@@ -34,6 +48,39 @@ public class DeviceNotificationService extends AbstractHazelcastEntityService {
         return find(id, guid, devices, names, timestamp, take, principal, DeviceNotification.class);
     }
 
+    /**
+     * Finds one page of notifications of the device in the requested order. If notifications that old could already
+     * be expired from the message store, they are read from the persistent history as well.
+     */
+    public List<DeviceNotification> findWithHistory(String guid, Collection<String> names, Date timestamp,
+                                                    Date endTimestamp, MessageSort sort, int skip, int take,
+                                                    HivePrincipal principal) {
+        final List<String> devices = Collections.singletonList(guid);
+        if (!historyEnabled || messageRetention.getNotificationExpireSec() <= 0) {
+            return find(devices, names, timestamp, endTimestamp, null, sort, skip, take, principal,
+                    DeviceNotification.class);
+        }
+        final long horizon = timestampService.getTimestamp().getTime()
+                - messageRetention.getNotificationExpireSec() * 1000;
+        if (timestamp != null && timestamp.getTime() >= horizon) {
+            return find(devices, names, timestamp, endTimestamp, null, sort, skip, take, principal,
+                    DeviceNotification.class);
+        }
+        // both tiers are asked for the whole head of the result, the page is taken after merge
+        final int limit = MessageSort.limitOf(skip, take);
+        final Map<Long, DeviceNotification> merged = new HashMap<>();
+        for (DeviceNotification notification : messageHistoryDAO.findNotifications(guid, names, timestamp,
+                endTimestamp, sort, limit)) {
+            merged.put(notification.getId(), notification);
+        }
+        // in-memory copy wins
+        for (DeviceNotification notification : find(devices, names, timestamp, endTimestamp, null, sort, 0, limit,
+                principal, DeviceNotification.class)) {
+            merged.put(notification.getId(), notification);
+        }
+        return sort.page(new ArrayList<>(merged.values()), skip, take);
+    }
+
     public void submitDeviceNotification(final DeviceNotification notification, final Device device) {
         List<DeviceNotification> proceedNotifications = processDeviceNotification(notification, device);
         for (DeviceNotification currentNotification : proceedNotifications) {
@@ -43,14 +90,14 @@ public class DeviceNotificationService extends AbstractHazelcastEntityService {
 
     public void submitDeviceNotification(final DeviceNotification notification, final String deviceGuid) {
         notification.setTimestamp(timestampService.getTimestamp());
-        notification.setId(Math.abs(new Random().nextInt()));
+        notification.setId(idService.nextId());
         notification.setDeviceGuid(deviceGuid);
         store(notification, DeviceNotification.class);
     }
 
     public DeviceNotification convertToMessage(DeviceNotificationWrapper notificationSubmit, Device device) {
         DeviceNotification message = new DeviceNotification();
-        message.setId(Math.abs(new Random().nextInt()));
+        message.setId(idService.nextId());
         message.setDeviceGuid(device.getGuid());
         message.setTimestamp(timestampService.getTimestamp());
         message.setNotification(notificationSubmit.getNotification());
@@ -50,6 +50,8 @@ public class DeviceService {
     private AccessKeyService accessKeyService;
     @Autowired
     private HiveValidator hiveValidator;
+    @Autowired
+    private DeviceAccessCache deviceAccessCache;
 
     @Transactional(propagation = Propagation.REQUIRED)
     public void deviceSaveAndNotify(DeviceUpdate device, Set<Equipment> equipmentSet,
@@ -72,6 +74,7 @@ public class DeviceService {
         } else {
             throw new HiveException(Messages.UNAUTHORIZED_REASON_PHRASE, UNAUTHORIZED.getStatusCode());
         }
+        deviceAccessCache.invalidateDevice(device.getGuid().orElse(null));
         deviceNotificationService.submitDeviceNotification(dn, device.getGuid().orElse(null));
         deviceActivityService.update(device.getGuid().orElse(null));
     }
@@ -324,6 +327,7 @@ public class DeviceService {
     @Transactional
     public boolean deleteDevice(@NotNull String guid, HivePrincipal principal) {
         List<Device> existing = getDeviceList(Arrays.asList(guid), principal);
+        deviceAccessCache.invalidateDevice(guid);
         return existing.isEmpty() || genericDAO.createNamedQuery("Device.deleteByUUID", Optional.<CacheConfig>empty())
                 .setParameter("guid", guid)
                 .executeUpdate() != 0;
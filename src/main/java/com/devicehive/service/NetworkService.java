@@ -50,6 +50,8 @@ public class NetworkService {
     private HiveValidator hiveValidator;
     @Autowired
     private GenericDAO genericDAO;
+    @Autowired
+    private DeviceAccessCache deviceAccessCache;
 
     @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Network getWithDevicesAndDeviceClasses(@NotNull Long networkId, @NotNull HiveAuthentication hiveAuthentication) {
@@ -128,6 +130,7 @@ public class NetworkService {
                 .setParameter("id", id)
                 .executeUpdate();
         logger.debug("Deleted {} rows from Network table", result);
+        deviceAccessCache.invalidateAll();
         return result > 0;
     }
 
@@ -166,6 +169,7 @@ public class NetworkService {
             existing.setDescription(networkUpdate.getDescription().orElse(null));
         }
         hiveValidator.validate(existing);
+        deviceAccessCache.invalidateAll();
         return genericDAO.merge(existing);
     }
 
@@ -0,0 +1,146 @@
+package com.devicehive.service;
+
+import com.devicehive.model.User;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ITopic;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.lang3.SerializationUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches users successfully authenticated by {@link UserService#authenticate(String, String)}, so repeated basic auth
+ * requests don't hash the password and don't hit the database. Credentials are keyed by HMAC of login and password
+ * with a random node local key, so neither passwords nor reusable hashes are kept in memory. Failed attempts are never
+ * cached, so they are still counted. Users are dropped on every node of the cluster when they are changed.
+ */
+@Component
+public class UserCredentialsCache {
+    private static final Logger logger = LoggerFactory.getLogger(UserCredentialsCache.class);
+    private static final String INVALIDATION_TOPIC = "USER-CREDENTIALS-INVALIDATION";
+    private static final String HMAC = "HmacSHA256";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Value("${user.credentials.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${user.credentials.cache.size:10000}")
+    private long maxSize;
+
+    @Value("${user.credentials.cache.ttl.sec:60}")
+    private long ttlSec;
+
+    private Cache<String, User> users;
+    private ITopic<Long> invalidationTopic;
+    private ThreadLocal<Mac> macs;
+
+    /**
+     * Incremented on each invalidation, used to not store users authenticated concurrently with invalidation
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        users = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSec, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        SecretKeySpec key = new SecretKeySpec(secret, HMAC);
+        macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(HMAC);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        invalidationTopic = hazelcastInstance.getTopic(INVALIDATION_TOPIC);
+        invalidationTopic.addMessageListener(message -> invalidateLocally(message.getMessageObject()));
+    }
+
+    /**
+     * @return authenticated user or null if there is no such user
+     */
+    public User authenticate(String login, String password) {
+        if (!enabled || login == null || password == null) {
+            return userService.authenticate(login, password);
+        }
+        String key = keyOf(login, password);
+        User user = users.getIfPresent(key);
+        if (user != null) {
+            // principal of a request may be changed by it, so each one gets own copy
+            return SerializationUtils.clone(user);
+        }
+        long gen = generation.get();
+        user = userService.authenticate(login, password);
+        if (user != null && gen == generation.get()) {
+            users.put(key, SerializationUtils.clone(user));
+        }
+        return user;
+    }
+
+    /**
+     * Drops cached credentials of the user. Called when the user is changed, locked out or deleted.
+     */
+    public void invalidateUser(Long userId) {
+        if (!enabled || userId == null) {
+            return;
+        }
+        invalidateLocally(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // credentials can be checked again before the change is committed, so drop them once again after commit
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    invalidationTopic.publish(userId);
+                }
+            });
+        } else {
+            invalidationTopic.publish(userId);
+        }
+    }
+
+    public CacheStats getStats() {
+        return users.stats();
+    }
+
+    private void invalidateLocally(Long userId) {
+        generation.incrementAndGet();
+        users.asMap().values().removeIf(user -> userId.equals(user.getId()));
+        logger.debug("Cached credentials of user {} are invalidated", userId);
+    }
+
+    private String keyOf(String login, String password) {
+        Mac mac = macs.get();
+        mac.update(login.getBytes(StandardCharsets.UTF_8));
+        // separates login from password, so 'ab' + 'c' and 'a' + 'bc' give different keys
+        mac.update((byte) 0);
+        return Base64.encodeBase64String(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -59,6 +59,12 @@ public class UserService {
     private ConfigurationService configurationService;
     @Autowired
     private HiveValidator hiveValidator;
+    @Autowired
+    private DeviceAccessCache deviceAccessCache;
+    @Autowired
+    private AccessKeyCache accessKeyCache;
+    @Autowired
+    private UserCredentialsCache userCredentialsCache;
 
 
     /**
@@ -104,6 +110,15 @@ public class UserService {
                 || user.getLastLogin() == null
                 || System.currentTimeMillis() - user.getLastLogin().getTime() > loginTimeout;
 
+        if (validPassword && passwordService.needsRehash(user.getPasswordSalt(), user.getPasswordHash())) {
+            // password is known only here, so hash made with outdated scheme is replaced on login
+            String salt = passwordService.generateSalt();
+            user.setPasswordSalt(salt);
+            user.setPasswordHash(passwordService.hashPassword(password, salt));
+            if (!mustUpdateLoginStatistic) {
+                return of(genericDAO.merge(user));
+            }
+        }
         if (validPassword && mustUpdateLoginStatistic) {
             return of(updateStatisticOnSuccessfulLogin(user, loginTimeout));
         } else if (!validPassword) {
@@ -112,6 +127,8 @@ public class UserService {
                     configurationService.getInt(Constants.MAX_LOGIN_ATTEMPTS, Constants.MAX_LOGIN_ATTEMPTS_DEFAULT)) {
                 user.setStatus(UserStatus.LOCKED_OUT);
                 user.setLoginAttempts(0);
+                accessKeyCache.invalidateUser(user.getId());
+                userCredentialsCache.invalidateUser(user.getId());
             }
             genericDAO.merge(user);
             return empty();
@@ -180,9 +197,8 @@ public class UserService {
         }
         if (userToUpdate.getPassword() != null) {
             if (userToUpdate.getOldPassword() != null && StringUtils.isNotBlank(userToUpdate.getOldPassword().orElse(null))) {
-                final String hash = passwordService.hashPassword(userToUpdate.getOldPassword().orElse(null),
-                        existing.getPasswordSalt());
-                if (!hash.equals(existing.getPasswordHash())) {
+                if (!passwordService.checkPassword(userToUpdate.getOldPassword().orElse(null),
+                        existing.getPasswordSalt(), existing.getPasswordHash())) {
                     logger.error("Can't update user with id {}: incorrect password provided", id);
                     throw new ActionNotAllowedException(Messages.INCORRECT_CREDENTIALS);
                 }
@@ -208,11 +224,14 @@ public class UserService {
             } else {
                 existing.setStatus(userToUpdate.getStatusEnum());
             }
+            deviceAccessCache.invalidateAll();
         }
         if (userToUpdate.getData() != null) {
             existing.setData(userToUpdate.getData().orElse(null));
         }
         hiveValidator.validate(existing);
+        accessKeyCache.invalidateUser(id);
+        userCredentialsCache.invalidateUser(id);
         return genericDAO.merge(existing);
     }
 
@@ -238,6 +257,7 @@ public class UserService {
         usersSet.add(existingUser);
         existingNetwork.setUsers(usersSet);
         genericDAO.merge(existingNetwork);
+        deviceAccessCache.invalidateAll();
     }
 
     /**
@@ -260,6 +280,7 @@ public class UserService {
                 .ifPresent(existingNetwork -> {
                     existingNetwork.getUsers().remove(existingUser);
                     genericDAO.merge(existingNetwork);
+                    deviceAccessCache.invalidateAll();
                 });
     }
 
@@ -363,6 +384,9 @@ public class UserService {
         int result = genericDAO.createNamedQuery("User.deleteById", of(CacheConfig.bypass()))
                 .setParameter("id", id)
                 .executeUpdate();
+        accessKeyCache.invalidateUser(id);
+        userCredentialsCache.invalidateUser(id);
+        deviceAccessCache.invalidateAll();
         return result > 0;
     }
 
@@ -0,0 +1,43 @@
+package com.devicehive.service.helpers;
+
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+/**
+ * bcrypt, salt column keeps bcrypt salt with the cost, which is also a prefix of the hash
+ */
+public class BCryptPasswordProcessor implements PasswordProcessor {
+
+    private final int cost;
+
+    public BCryptPasswordProcessor(int cost) {
+        this.cost = cost;
+    }
+
+    public static boolean isBCryptHash(String hash) {
+        return hash.startsWith("$2a$") || hash.startsWith("$2b$") || hash.startsWith("$2y$");
+    }
+
+    @Override
+    public String generateSalt() {
+        return BCrypt.gensalt(cost);
+    }
+
+    @Override
+    public String hashPassword(String password, String salt) {
+        return BCrypt.hashpw(password, salt);
+    }
+
+    @Override
+    public boolean checkPassword(String password, String salt, String hash) {
+        try {
+            return BCrypt.checkpw(password, hash);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean needsRehash(String salt, String hash) {
+        return !hash.startsWith(String.format("$2a$%02d$", cost));
+    }
+}
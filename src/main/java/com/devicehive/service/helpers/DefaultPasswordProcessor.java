@@ -2,19 +2,16 @@ package com.devicehive.service.helpers;
 
 import com.devicehive.configuration.Constants;
 import org.apache.commons.codec.binary.Base64;
-import org.springframework.stereotype.Component;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 
 /**
- * this one uses the same scheme as .net server TODO investigate maybe it makes sense to replace it with some
- * key-stretching scheme (scrypt, PBKDF2 or bcrypt)
+ * this one uses the same scheme as .net server, see {@link DelegatingPasswordProcessor} for key-stretching schemes
  */
-
-@Component
 public class DefaultPasswordProcessor implements PasswordProcessor {
 
     private final SecureRandom secureRandom = new SecureRandom();
@@ -26,12 +23,9 @@ public class DefaultPasswordProcessor implements PasswordProcessor {
         return Base64.encodeBase64String(saltBytes);
     }
 
-    /**
-     * TODO do we need timing-safe implementation?
-     */
     @Override
     public boolean checkPassword(String password, String salt, String hash) {
-        return hash.equals(hashPassword(password, salt));
+        return MessageDigest.isEqual(hash.getBytes(StandardCharsets.UTF_8), hashPassword(password, salt).getBytes(StandardCharsets.UTF_8));
     }
 
     /**
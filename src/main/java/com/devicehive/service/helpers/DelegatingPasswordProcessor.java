@@ -0,0 +1,80 @@
+package com.devicehive.service.helpers;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Hashes new passwords with the scheme set by {@code user.password.algorithm}, which is one of {@code sha256} (the
+ * default scheme of {@link DefaultPasswordProcessor}), {@code pbkdf2} or {@code bcrypt}. Stored hashes are checked
+ * with the scheme they were made with, and hashes made with other scheme or settings are reported for rehash.
+ */
+@Component
+public class DelegatingPasswordProcessor implements PasswordProcessor {
+
+    @Value("${user.password.algorithm:sha256}")
+    private String algorithm;
+
+    @Value("${user.password.pbkdf2.iterations:10000}")
+    private int pbkdf2Iterations;
+
+    @Value("${user.password.bcrypt.cost:10}")
+    private int bcryptCost;
+
+    private PasswordProcessor sha256;
+    private PasswordProcessor pbkdf2;
+    private PasswordProcessor bcrypt;
+    private PasswordProcessor current;
+
+    @PostConstruct
+    public void init() {
+        sha256 = new DefaultPasswordProcessor();
+        pbkdf2 = new Pbkdf2PasswordProcessor(pbkdf2Iterations);
+        bcrypt = new BCryptPasswordProcessor(bcryptCost);
+        switch (algorithm) {
+            case "sha256":
+                current = sha256;
+                break;
+            case "pbkdf2":
+                current = pbkdf2;
+                break;
+            case "bcrypt":
+                current = bcrypt;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown password hashing algorithm " + algorithm);
+        }
+    }
+
+    @Override
+    public String generateSalt() {
+        return current.generateSalt();
+    }
+
+    @Override
+    public String hashPassword(String password, String salt) {
+        return current.hashPassword(password, salt);
+    }
+
+    @Override
+    public boolean checkPassword(String password, String salt, String hash) {
+        return password != null && hash != null && processorOf(hash).checkPassword(password, salt, hash);
+    }
+
+    @Override
+    public boolean needsRehash(String salt, String hash) {
+        PasswordProcessor processor = processorOf(hash);
+        return processor != current || processor.needsRehash(salt, hash);
+    }
+
+    private PasswordProcessor processorOf(String hash) {
+        if (hash.startsWith(Pbkdf2PasswordProcessor.PREFIX)) {
+            return pbkdf2;
+        }
+        if (BCryptPasswordProcessor.isBCryptHash(hash)) {
+            return bcrypt;
+        }
+        return sha256;
+    }
+}
@@ -8,4 +8,11 @@ public interface PasswordProcessor {
     String hashPassword(String password, String salt);
 
     boolean checkPassword(String password, String salt, String hash);
+
+    /**
+     * @return true if the hash was made with weaker settings than current ones, so the password should be hashed again
+     */
+    default boolean needsRehash(String salt, String hash) {
+        return false;
+    }
 }
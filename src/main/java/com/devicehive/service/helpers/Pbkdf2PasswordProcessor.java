@@ -0,0 +1,77 @@
+package com.devicehive.service.helpers;
+
+import org.apache.commons.codec.binary.Base64;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+/**
+ * PBKDF2 with HMAC SHA-256, hash is stored as {@code $pbkdf2-sha256$<iterations>$<base64 key>} and salt is kept
+ * in its own column as for the default scheme.
+ */
+public class Pbkdf2PasswordProcessor implements PasswordProcessor {
+
+    public static final String PREFIX = "$pbkdf2-sha256$";
+    private static final int KEY_LENGTH = 256;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final int iterations;
+
+    public Pbkdf2PasswordProcessor(int iterations) {
+        this.iterations = iterations;
+    }
+
+    @Override
+    public String generateSalt() {
+        byte[] saltBytes = new byte[18];
+        secureRandom.nextBytes(saltBytes);
+        return Base64.encodeBase64String(saltBytes);
+    }
+
+    @Override
+    public String hashPassword(String password, String salt) {
+        return PREFIX + iterations + "$" + Base64.encodeBase64String(derive(password, salt, iterations));
+    }
+
+    @Override
+    public boolean checkPassword(String password, String salt, String hash) {
+        int iterations = iterationsOf(hash);
+        if (iterations <= 0) {
+            return false;
+        }
+        byte[] expected = Base64.decodeBase64(hash.substring(hash.indexOf('$', PREFIX.length()) + 1));
+        return MessageDigest.isEqual(expected, derive(password, salt, iterations));
+    }
+
+    @Override
+    public boolean needsRehash(String salt, String hash) {
+        return iterationsOf(hash) != iterations;
+    }
+
+    private static int iterationsOf(String hash) {
+        int end = hash.indexOf('$', PREFIX.length());
+        if (!hash.startsWith(PREFIX) || end < 0) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(hash.substring(PREFIX.length(), end));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static byte[] derive(String password, String salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt.getBytes(StandardCharsets.UTF_8), iterations, KEY_LENGTH);
+        try {
+            return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException(e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
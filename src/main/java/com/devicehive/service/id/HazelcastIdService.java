@@ -0,0 +1,135 @@
+package com.devicehive.service.id;
+
+import com.devicehive.configuration.Messages;
+import com.devicehive.exceptions.HiveException;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates identifiers with {@link TimeOrderedIdGenerator} on top of cluster time. Node id is leased in hazelcast
+ * map for limited time and the lease is renewed in background, so ids of nodes which left the cluster are reused.
+ * Identifiers are not issued once the lease is expired, since the node id may be already leased by another member.
+ */
+@Component
+public class HazelcastIdService implements IdService {
+    private static final Logger logger = LoggerFactory.getLogger(HazelcastIdService.class);
+    private static final String NODE_IDS_MAP = "MESSAGE-ID-NODES";
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Value("${message.id.node.lease.sec:60}")
+    private long leaseSec;
+
+    private IMap<Integer, String> nodeIds;
+    private String owner;
+    private TimeOrderedIdGenerator generator;
+    private ScheduledExecutorService renewer;
+    /**
+     * {@link System#nanoTime()} when the lease of the current node id expires
+     */
+    private volatile long leaseDeadline;
+
+    @PostConstruct
+    public void init() {
+        nodeIds = hazelcastInstance.getMap(NODE_IDS_MAP);
+        owner = hazelcastInstance.getCluster().getLocalMember().getUuid();
+        generator = new TimeOrderedIdGenerator(() -> hazelcastInstance.getCluster().getClusterTime(), 0);
+        generator.setNodeId(acquireNodeId());
+        renewer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "message-id-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(leaseSec * 1000 / 3, 1);
+        renewer.scheduleAtFixedRate(this::renewLease, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renewer.shutdownNow();
+        try {
+            nodeIds.remove(generator.getNodeId(), owner);
+        } catch (RuntimeException e) {
+            logger.warn("Unable to release message id node {}", generator.getNodeId(), e);
+        }
+    }
+
+    @Override
+    public long nextId() {
+        if (leaseDeadline - System.nanoTime() <= 0) {
+            reacquireNodeId();
+        }
+        return generator.nextId();
+    }
+
+    /**
+     * Leases any free node id. Lease deadline is counted from the time before the request, so it never outlives the
+     * entry in the map.
+     */
+    private int acquireNodeId() {
+        int start = ThreadLocalRandom.current().nextInt(TimeOrderedIdGenerator.MAX_NODE_ID + 1);
+        for (int i = 0; i <= TimeOrderedIdGenerator.MAX_NODE_ID; i++) {
+            int nodeId = (start + i) & TimeOrderedIdGenerator.MAX_NODE_ID;
+            long requested = System.nanoTime();
+            if (nodeIds.putIfAbsent(nodeId, owner, leaseSec, TimeUnit.SECONDS) == null) {
+                leaseDeadline = requested + TimeUnit.SECONDS.toNanos(leaseSec);
+                logger.info("Message id node {} is leased", nodeId);
+                return nodeId;
+            }
+        }
+        throw new IllegalStateException("All message id nodes are leased");
+    }
+
+    /**
+     * Called by the first request after the lease is expired, and by the renewer when the lease is lost. Requests
+     * wait here instead of issuing ids of the node id which could be leased by another member meanwhile.
+     */
+    private synchronized void reacquireNodeId() {
+        if (leaseDeadline - System.nanoTime() > 0) {
+            return;
+        }
+        try {
+            generator.setNodeId(acquireNodeId());
+        } catch (RuntimeException e) {
+            throw new HiveException(Messages.MESSAGE_ID_NOT_AVAILABLE, e, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        }
+    }
+
+    private void renewLease() {
+        try {
+            int nodeId = generator.getNodeId();
+            long requested = System.nanoTime();
+            nodeIds.lock(nodeId);
+            try {
+                if (owner.equals(nodeIds.get(nodeId))) {
+                    nodeIds.set(nodeId, owner, leaseSec, TimeUnit.SECONDS);
+                    leaseDeadline = requested + TimeUnit.SECONDS.toNanos(leaseSec);
+                    return;
+                }
+            } finally {
+                nodeIds.unlock(nodeId);
+            }
+            logger.warn("Lease of message id node {} is lost, leasing another one", nodeId);
+            synchronized (this) {
+                leaseDeadline = requested;
+                reacquireNodeId();
+            }
+        } catch (RuntimeException e) {
+            logger.error("Unable to renew message id node lease", e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.devicehive.service.id;
+
+public interface IdService {
+
+    /**
+     * Returns cluster unique identifier, ordered by time of generation
+     */
+    long nextId();
+
+}
@@ -0,0 +1,91 @@
+package com.devicehive.service.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates identifiers composed of milliseconds since {@link #EPOCH} (41 bits), node id (5 bits) and sequence within
+ * the millisecond (7 bits). Identifiers are strictly increasing on a node, even if the clock goes backwards or the node
+ * id is changed, and are ordered by time across the nodes.
+ * <p>
+ * Identifiers are sent to clients as JSON numbers, which JavaScript reads as doubles, so they are kept within 53 bits
+ * until 2084. This limits the cluster to 32 generating nodes and each node to 128 identifiers per millisecond, bursts
+ * above that borrow the following milliseconds.
+ */
+public class TimeOrderedIdGenerator {
+    /**
+     * 2015-01-01T00:00:00Z
+     */
+    public static final long EPOCH = 1420070400000L;
+    public static final int NODE_BITS = 5;
+    public static final int SEQUENCE_BITS = 7;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private static final int NODE_SHIFT = SEQUENCE_BITS;
+    private static final int TIMESTAMP_SHIFT = SEQUENCE_BITS + NODE_BITS;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+    private final LongSupplier clock;
+    private final AtomicLong lastId = new AtomicLong();
+    private volatile long nodeId;
+
+    public TimeOrderedIdGenerator(LongSupplier clock, int nodeId) {
+        this.clock = clock;
+        setNodeId(nodeId);
+    }
+
+    public void setNodeId(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id should be in range [0, " + MAX_NODE_ID + "]: " + nodeId);
+        }
+        this.nodeId = nodeId;
+    }
+
+    public int getNodeId() {
+        return (int) nodeId;
+    }
+
+    public long nextId() {
+        final long node = nodeId;
+        while (true) {
+            final long last = lastId.get();
+            final long now = clock.getAsLong() - EPOCH;
+            long next = compose(now, node, 0);
+            if (next <= last) {
+                // same millisecond or the clock went backwards, continue the sequence of the last identifier
+                long timestamp = last >>> TIMESTAMP_SHIFT;
+                long sequence = (last & MAX_SEQUENCE) + 1;
+                if (sequence > MAX_SEQUENCE) {
+                    timestamp++;
+                    sequence = 0;
+                }
+                next = compose(timestamp, node, sequence);
+                if (next <= last) {
+                    // node id was decreased
+                    next = compose(timestamp + 1, node, 0);
+                }
+            }
+            if (lastId.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Returns time in milliseconds when the identifier was generated
+     */
+    public static long timestampOf(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH;
+    }
+
+    /**
+     * Returns the lowest identifier which could be generated at the time, for range scans by time
+     */
+    public static long minIdAt(long timeMillis) {
+        return compose(Math.max(timeMillis - EPOCH, 0), 0, 0);
+    }
+
+    private static long compose(long timestamp, long node, long sequence) {
+        return timestamp << TIMESTAMP_SHIFT | node << NODE_SHIFT | sequence;
+    }
+}
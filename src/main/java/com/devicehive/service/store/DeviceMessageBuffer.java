@@ -0,0 +1,116 @@
+package com.devicehive.service.store;
+
+import com.devicehive.model.HazelcastEntity;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Bounded list of the latest messages of one device ordered by timestamp. When the buffer is full, the oldest message
+ * is dropped. Expired messages are skipped by lookups and dropped on the next write.
+ */
+public class DeviceMessageBuffer implements Serializable {
+    private static final long serialVersionUID = 4623908513215087466L;
+
+    private final ArrayDeque<Entry> messages = new ArrayDeque<>();
+
+    /**
+     * Adds the message which never expires
+     */
+    public void put(HazelcastEntity message, int capacity) {
+        put(message, Long.MAX_VALUE, capacity, Long.MIN_VALUE);
+    }
+
+    /**
+     * Adds the message keeping timestamp order. Stored message with the same key (updated command) is replaced.
+     *
+     * @return number of messages dropped because they are expired or the buffer is full
+     */
+    public int put(HazelcastEntity message, long expiresAt, int capacity, long now) {
+        removeSameKey(message);
+        int dropped = removeExpired(now);
+        // timestamps come from different nodes, so message can be slightly late
+        Deque<Entry> newer = new ArrayDeque<>();
+        while (!messages.isEmpty() && isBefore(message, messages.peekLast().message)) {
+            newer.addFirst(messages.pollLast());
+        }
+        messages.addLast(new Entry(message, expiresAt));
+        messages.addAll(newer);
+        while (messages.size() > capacity) {
+            messages.pollFirst();
+            dropped++;
+        }
+        return dropped;
+    }
+
+    public <T extends HazelcastEntity> List<T> find(MessageFilter filter, int take) {
+        return find(filter, take, Long.MIN_VALUE);
+    }
+
+    /**
+     * Walks from the newest message to the oldest one and stops at filter timestamp, so only messages newer than the
+     * timestamp are visited
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends HazelcastEntity> List<T> find(MessageFilter filter, int take, long now) {
+        List<T> result = new ArrayList<>();
+        Iterator<Entry> iterator = messages.descendingIterator();
+        while (iterator.hasNext() && (take <= 0 || result.size() < take)) {
+            Entry entry = iterator.next();
+            if (filter.getTimestamp() != null && !entry.message.getTimestamp().after(filter.getTimestamp())) {
+                break;
+            }
+            if (entry.expiresAt > now && filter.matches(entry.message)) {
+                result.add((T) entry.message);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return messages.size();
+    }
+
+    private int removeExpired(long now) {
+        int size = messages.size();
+        messages.removeIf(entry -> entry.expiresAt <= now);
+        return size - messages.size();
+    }
+
+    private void removeSameKey(HazelcastEntity message) {
+        String key = message.getHazelcastKey();
+        Iterator<Entry> iterator = messages.descendingIterator();
+        while (iterator.hasNext()) {
+            HazelcastEntity stored = iterator.next().message;
+            // key contains timestamp, so older messages can't have the same key
+            if (isBefore(stored, message)) {
+                return;
+            }
+            if (Objects.equals(key, stored.getHazelcastKey())) {
+                iterator.remove();
+                return;
+            }
+        }
+    }
+
+    private static boolean isBefore(HazelcastEntity first, HazelcastEntity second) {
+        return first.getTimestamp().before(second.getTimestamp());
+    }
+
+    private static class Entry implements Serializable {
+        private static final long serialVersionUID = -5106924447806432312L;
+
+        private final HazelcastEntity message;
+        private final long expiresAt;
+
+        private Entry(HazelcastEntity message, long expiresAt) {
+            this.message = message;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
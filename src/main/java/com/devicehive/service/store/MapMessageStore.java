@@ -0,0 +1,272 @@
+package com.devicehive.service.store;
+
+import com.devicehive.configuration.Messages;
+import com.devicehive.exceptions.HiveException;
+import com.devicehive.model.DeviceCommand;
+import com.devicehive.model.DeviceNotification;
+import com.devicehive.model.HazelcastEntity;
+import com.devicehive.service.helpers.HazelcastHelper;
+import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.HazelcastInstanceAware;
+import com.hazelcast.core.IExecutorService;
+import com.hazelcast.core.IMap;
+import com.hazelcast.core.PartitionAwareKey;
+import com.hazelcast.map.listener.EntryEvictedListener;
+import com.hazelcast.monitor.LocalMapStats;
+import com.hazelcast.query.PagingPredicate;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.query.Predicates;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletResponse;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.devicehive.model.enums.SearchableField.GUID;
+import static com.devicehive.model.enums.SearchableField.TIMESTAMP;
+
+/**
+ * Keeps all messages in a single map per message type. Keys are partitioned by device guid, so all messages of a device
+ * live in one partition and single device queries are evaluated on the owner member only. Each message is kept for
+ * its own time to live, and optionally only the latest messages of each device are kept.
+ */
+@Component
+public class MapMessageStore implements MessageStore, PublicMetrics {
+    public static final String NOTIFICATIONS_MAP = "NOTIFICATIONS-MAP";
+    public static final String COMMANDS_MAP = "COMMANDS-MAP";
+    private static final Logger logger = LoggerFactory.getLogger(MapMessageStore.class);
+    private static final String QUERY_EXECUTOR = "MESSAGE-STORE-QUERIES";
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Autowired
+    private HazelcastHelper hazelcastHelper;
+
+    @Autowired
+    private MessageRetention retention;
+
+    @Value("${message.store.owner.queries:true}")
+    private boolean ownerQueries;
+
+    private Map<Class<?>, IMap<Object, Object>> mapsHolder;
+    private IExecutorService queryExecutor;
+
+    private final Map<String, AtomicLong> evicted = new ConcurrentHashMap<>();
+    private final AtomicLong trimmed = new AtomicLong();
+    /**
+     * Devices with scheduled trimming, so trimming is not scheduled once again for each stored message
+     */
+    private final Set<String> pendingTrims = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    protected void init() {
+        final IMap<Object, Object> notificationsMap = hazelcastInstance.getMap(NOTIFICATIONS_MAP);
+        final IMap<Object, Object> commandsMap = hazelcastInstance.getMap(COMMANDS_MAP);
+        for (IMap<Object, Object> map : Arrays.asList(notificationsMap, commandsMap)) {
+            map.addIndex(TIMESTAMP.getField(), true);
+            map.addIndex(GUID.getField(), false);
+            final AtomicLong counter = evicted.computeIfAbsent(map.getName(), name -> new AtomicLong());
+            map.addLocalEntryListener((EntryEvictedListener<Object, Object>) event -> counter.incrementAndGet());
+        }
+
+        mapsHolder = new HashMap<>(2);
+        mapsHolder.put(DeviceNotification.class, notificationsMap);
+        mapsHolder.put(DeviceCommand.class, commandsMap);
+        queryExecutor = hazelcastInstance.getExecutorService(QUERY_EXECUTOR);
+    }
+
+    @Override
+    public <T extends HazelcastEntity> void store(T entity, Class<T> entityClass) {
+        final IMap<Object, Object> map = mapsHolder.get(entityClass);
+        map.set(keyOf(entity), entity, retention.ttlSec(entity), TimeUnit.SECONDS);
+        if (retention.getDeviceCap() > 0) {
+            scheduleTrim(map.getName(), entity.getDeviceGuid());
+        }
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        final List<Metric<?>> metrics = new ArrayList<>();
+        for (IMap<Object, Object> map : mapsHolder.values()) {
+            final LocalMapStats stats = map.getLocalMapStats();
+            metrics.add(new Metric<>("messageStore." + map.getName() + ".entries", stats.getOwnedEntryCount()));
+            metrics.add(new Metric<>("messageStore." + map.getName() + ".heapCost", stats.getHeapCost()));
+            metrics.add(new Metric<>("messageStore." + map.getName() + ".evicted", evicted.get(map.getName()).get()));
+        }
+        metrics.add(new Metric<>("messageStore.trimmed", trimmed.get()));
+        return metrics;
+    }
+
+    private void scheduleTrim(String mapName, String deviceGuid) {
+        final String pendingKey = mapName + '/' + deviceGuid;
+        if (!pendingTrims.add(pendingKey)) {
+            return;
+        }
+        queryExecutor.submitToKeyOwner(new DeviceTrim(mapName, deviceGuid, retention.getDeviceCap()), deviceGuid,
+                new ExecutionCallback<Integer>() {
+                    @Override
+                    public void onResponse(Integer removed) {
+                        pendingTrims.remove(pendingKey);
+                        trimmed.addAndGet(removed);
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        pendingTrims.remove(pendingKey);
+                        logger.warn("Unable to trim messages of device {}", deviceGuid, t);
+                    }
+                });
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends HazelcastEntity> List<T> find(MessageFilter filter, MessageSort sort, int skip, int take,
+                                                    Class<T> entityClass) {
+        final IMap<Object, Object> map = mapsHolder.get(entityClass);
+        final int limit = MessageSort.limitOf(skip, take);
+        if (ownerQueries && StringUtils.isNotEmpty(filter.getGuid())) {
+            final List<T> found = findOnOwner(map.getName(), filter, sort, limit, entityClass);
+            // partition could be migrating at the moment, don't report missing message because of that
+            if (!found.isEmpty() || filter.getId() == null) {
+                return sort.page(found, skip, take);
+            }
+        }
+        final Predicate<?, ?> predicate = prepareFilters(hazelcastHelper, filter, entityClass);
+        final Collection<?> collection = limit <= 0
+                ? map.values(predicate)
+                : map.values(new PagingPredicate(predicate, sort.forEntries(), limit));
+        return sort.page(new ArrayList<>((Collection<T>) collection), skip, take);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends HazelcastEntity> List<T> findOnOwner(String mapName, MessageFilter filter, MessageSort sort,
+                                                            int limit, Class<T> entityClass) {
+        final OwnerQuery query = new OwnerQuery(mapName, filter, sort, limit, DeviceCommand.class.equals(entityClass));
+        try {
+            final List<HazelcastEntity> found = queryExecutor.submitToKeyOwner(query, filter.getGuid()).get();
+            return (List<T>) found;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HiveException(Messages.INTERNAL_SERVER_ERROR, e, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        } catch (ExecutionException e) {
+            throw new HiveException(Messages.INTERNAL_SERVER_ERROR, e.getCause(),
+                    HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Map key which places the message to the partition of its device
+     */
+    static Object keyOf(HazelcastEntity entity) {
+        return new PartitionAwareKey<>(entity.getHazelcastKey(), entity.getDeviceGuid());
+    }
+
+    private static Predicate<?, ?> prepareFilters(HazelcastHelper helper, MessageFilter filter, boolean commands) {
+        final Predicate<?, ?> predicate = helper.prepareFilters(filter.getId(), filter.getGuid(), filter.getDevices(),
+                commands ? null : filter.getNames(), commands ? filter.getNames() : null, filter.getTimestamp(),
+                filter.getStatus(), filter.getHasResponse());
+        if (filter.getEndTimestamp() == null) {
+            return predicate;
+        }
+        return Predicates.and(predicate, Predicates.lessEqual(TIMESTAMP.getField(), filter.getEndTimestamp()));
+    }
+
+    private static Predicate<?, ?> prepareFilters(HazelcastHelper helper, MessageFilter filter, Class<?> entityClass) {
+        return prepareFilters(helper, filter, DeviceCommand.class.equals(entityClass));
+    }
+
+    /**
+     * Runs on the member owning the device partition and removes the oldest messages of the device above the cap
+     */
+    private static class DeviceTrim implements Callable<Integer>, HazelcastInstanceAware, Serializable {
+        private static final long serialVersionUID = 2946730185417353093L;
+
+        private final String mapName;
+        private final String deviceGuid;
+        private final int cap;
+        private transient HazelcastInstance hazelcastInstance;
+
+        DeviceTrim(String mapName, String deviceGuid, int cap) {
+            this.mapName = mapName;
+            this.deviceGuid = deviceGuid;
+            this.cap = cap;
+        }
+
+        @Override
+        public void setHazelcastInstance(HazelcastInstance hazelcastInstance) {
+            this.hazelcastInstance = hazelcastInstance;
+        }
+
+        @Override
+        public Integer call() {
+            final IMap<Object, Object> map = hazelcastInstance.getMap(mapName);
+            final Set<Object> keys = map.localKeySet(Predicates.equal(GUID.getField(), deviceGuid));
+            if (keys.size() <= cap) {
+                return 0;
+            }
+            final List<Map.Entry<Object, Object>> entries = new ArrayList<>(map.getAll(keys).entrySet());
+            entries.sort(Comparator.comparing(entry -> ((HazelcastEntity) entry.getValue()).getTimestamp()));
+            final int excess = entries.size() - cap;
+            for (int i = 0; i < excess; i++) {
+                map.delete(entries.get(i).getKey());
+            }
+            return Math.max(excess, 0);
+        }
+    }
+
+    /**
+     * Runs on the member owning the device partition and queries its local entries only
+     */
+    private static class OwnerQuery implements Callable<List<HazelcastEntity>>, HazelcastInstanceAware, Serializable {
+        private static final long serialVersionUID = -6391722418530154772L;
+
+        private final String mapName;
+        private final MessageFilter filter;
+        private final MessageSort sort;
+        private final int limit;
+        private final boolean commands;
+        private transient HazelcastInstance hazelcastInstance;
+
+        OwnerQuery(String mapName, MessageFilter filter, MessageSort sort, int limit, boolean commands) {
+            this.mapName = mapName;
+            this.filter = filter;
+            this.sort = sort;
+            this.limit = limit;
+            this.commands = commands;
+        }
+
+        @Override
+        public void setHazelcastInstance(HazelcastInstance hazelcastInstance) {
+            this.hazelcastInstance = hazelcastInstance;
+        }
+
+        @Override
+        public List<HazelcastEntity> call() {
+            final IMap<Object, HazelcastEntity> map = hazelcastInstance.getMap(mapName);
+            final Set<Object> keys = map.localKeySet(prepareFilters(new HazelcastHelper(), filter, commands));
+            return sort.page(new ArrayList<>(map.getAll(keys).values()), 0, limit);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.devicehive.service.store;
+
+import com.devicehive.model.DeviceCommand;
+import com.devicehive.model.DeviceNotification;
+import com.devicehive.model.HazelcastEntity;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Criteria of notifications and commands lookup. Empty or null criteria match everything.
+ */
+public class MessageFilter implements Serializable {
+    private static final long serialVersionUID = -2739457342184853294L;
+
+    private final Long id;
+    private final String guid;
+    private final Set<String> devices;
+    private final Set<String> names;
+    private final Date timestamp;
+    private final Date endTimestamp;
+    private final String status;
+    private final Boolean hasResponse;
+
+    public MessageFilter(Long id, String guid, Collection<String> devices, Collection<String> names, Date timestamp,
+                         String status, Boolean hasResponse) {
+        this(id, guid, devices, names, timestamp, null, status, hasResponse);
+    }
+
+    /**
+     * @param timestamp    messages should be newer than this timestamp
+     * @param endTimestamp messages should not be newer than this timestamp
+     */
+    public MessageFilter(Long id, String guid, Collection<String> devices, Collection<String> names, Date timestamp,
+                         Date endTimestamp, String status, Boolean hasResponse) {
+        this.id = id;
+        this.guid = guid;
+        this.devices = devices == null || devices.isEmpty() ? null : new HashSet<>(devices);
+        this.names = names == null || names.isEmpty() ? null : new HashSet<>(names);
+        this.timestamp = timestamp;
+        this.endTimestamp = endTimestamp;
+        this.status = status;
+        this.hasResponse = hasResponse;
+    }
+
+    public static MessageFilter byId(Long id, String guid) {
+        return new MessageFilter(id, guid, null, null, null, null, null);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getGuid() {
+        return guid;
+    }
+
+    public Set<String> getDevices() {
+        return devices;
+    }
+
+    public Set<String> getNames() {
+        return names;
+    }
+
+    public Date getTimestamp() {
+        return timestamp;
+    }
+
+    public Date getEndTimestamp() {
+        return endTimestamp;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Boolean getHasResponse() {
+        return hasResponse;
+    }
+
+    /**
+     * Same conditions as {@link com.devicehive.service.helpers.HazelcastHelper} predicates, evaluated on the object
+     */
+    public boolean matches(HazelcastEntity entity) {
+        if (timestamp != null && (entity.getTimestamp() == null || !entity.getTimestamp().after(timestamp))) {
+            return false;
+        }
+        if (endTimestamp != null && (entity.getTimestamp() == null || entity.getTimestamp().after(endTimestamp))) {
+            return false;
+        }
+        if (entity instanceof DeviceNotification) {
+            DeviceNotification notification = (DeviceNotification) entity;
+            return matches(notification.getId(), notification.getDeviceGuid())
+                    && (names == null || names.contains(notification.getNotification()));
+        }
+        if (entity instanceof DeviceCommand) {
+            DeviceCommand command = (DeviceCommand) entity;
+            return matches(command.getId(), command.getDeviceGuid())
+                    && (names == null || names.contains(command.getCommand()))
+                    && (status == null || status.isEmpty() || status.equals(command.getStatus()))
+                    && (hasResponse == null || hasResponse.equals(command.getIsUpdated()));
+        }
+        return false;
+    }
+
+    private boolean matches(Long entityId, String deviceGuid) {
+        return (id == null || id.equals(entityId))
+                && (guid == null || guid.isEmpty() || guid.equals(deviceGuid))
+                && (devices == null || devices.contains(deviceGuid));
+    }
+
+    @Override
+    public String toString() {
+        return "MessageFilter{" +
+                "id=" + id +
+                ", guid='" + guid + '\'' +
+                ", devices=" + devices +
+                ", names=" + names +
+                ", timestamp=" + timestamp +
+                ", endTimestamp=" + endTimestamp +
+                ", status='" + status + '\'' +
+                ", hasResponse=" + hasResponse +
+                '}';
+    }
+}
@@ -0,0 +1,78 @@
+package com.devicehive.service.store;
+
+import com.devicehive.dao.MessageHistoryDAO;
+import com.devicehive.model.DeviceCommand;
+import com.devicehive.model.DeviceNotification;
+import com.hazelcast.core.MapStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Write-behind store of {@link MapMessageStore} maps. Writes are appended to the history tables in batches. Entries
+ * removed from the maps stay in the history, and nothing is loaded back into the maps, history is read on demand by
+ * {@link com.devicehive.service.DeviceNotificationService}. Created only when message history is enabled.
+ */
+@Component
+@Lazy
+public class MessageHistoryMapStore implements MapStore<Object, Object> {
+
+    @Autowired
+    private MessageHistoryDAO messageHistoryDAO;
+
+    @Override
+    public void store(Object key, Object value) {
+        storeAll(Collections.singletonMap(key, value));
+    }
+
+    @Override
+    public void storeAll(Map<Object, Object> entries) {
+        List<DeviceNotification> notifications = new ArrayList<>();
+        List<DeviceCommand> commands = new ArrayList<>();
+        for (Object value : entries.values()) {
+            if (value instanceof DeviceNotification) {
+                notifications.add((DeviceNotification) value);
+            } else if (value instanceof DeviceCommand) {
+                commands.add((DeviceCommand) value);
+            }
+        }
+        if (!notifications.isEmpty()) {
+            messageHistoryDAO.insertNotifications(notifications);
+        }
+        if (!commands.isEmpty()) {
+            messageHistoryDAO.insertCommands(commands);
+        }
+    }
+
+    @Override
+    public void delete(Object key) {
+        // history is append-only
+    }
+
+    @Override
+    public void deleteAll(Collection<Object> keys) {
+        // history is append-only
+    }
+
+    @Override
+    public Object load(Object key) {
+        return null;
+    }
+
+    @Override
+    public Map<Object, Object> loadAll(Collection<Object> keys) {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public Iterable<Object> loadAllKeys() {
+        // no initial load
+        return null;
+    }
+}
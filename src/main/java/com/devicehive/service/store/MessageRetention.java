@@ -0,0 +1,83 @@
+package com.devicehive.service.store;
+
+import com.devicehive.model.DeviceCommand;
+import com.devicehive.model.HazelcastEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * How long messages are kept by message stores and how many messages of one device could be kept at most
+ */
+@Component
+public class MessageRetention {
+
+    @Value("${notification.expire.sec:600}")
+    private long notificationExpireSec;
+
+    @Value("${command.expire.sec:600}")
+    private long commandExpireSec;
+
+    /**
+     * 0 means no limit
+     */
+    @Value("${message.store.device.cap:0}")
+    private int deviceCap;
+
+    /**
+     * Upper bound of time to live of any message, including commands with longer lifetime, 0 means no limit
+     */
+    @Value("${message.store.max.ttl.sec:86400}")
+    private long maxTtlSec;
+
+    public MessageRetention() {
+    }
+
+    public MessageRetention(long notificationExpireSec, long commandExpireSec, int deviceCap, long maxTtlSec) {
+        this.notificationExpireSec = notificationExpireSec;
+        this.commandExpireSec = commandExpireSec;
+        this.deviceCap = deviceCap;
+        this.maxTtlSec = maxTtlSec;
+    }
+
+    /**
+     * Time to live of the message in seconds, 0 means the message never expires. Command lifetime takes precedence
+     * over the configured expiration. Result never exceeds {@link #getMaxTtlSec()}, if it is set.
+     */
+    public long ttlSec(HazelcastEntity message) {
+        long ttlSec = notificationExpireSec;
+        if (message instanceof DeviceCommand) {
+            Integer lifetime = ((DeviceCommand) message).getLifetime();
+            ttlSec = lifetime != null && lifetime > 0 ? lifetime : commandExpireSec;
+        }
+        if (maxTtlSec > 0 && (ttlSec <= 0 || ttlSec > maxTtlSec)) {
+            return maxTtlSec;
+        }
+        return ttlSec;
+    }
+
+    /**
+     * Time in milliseconds after which the message is expired
+     */
+    public long expiresAt(HazelcastEntity message) {
+        long ttlSec = ttlSec(message);
+        if (ttlSec <= 0 || message.getTimestamp() == null) {
+            return Long.MAX_VALUE;
+        }
+        return message.getTimestamp().getTime() + ttlSec * 1000;
+    }
+
+    public long getNotificationExpireSec() {
+        return notificationExpireSec;
+    }
+
+    public int getDeviceCap() {
+        return deviceCap;
+    }
+
+    /**
+     * Per device message buffers idle for this long hold expired messages only, 0 means no limit
+     */
+    public long getMaxTtlSec() {
+        return maxTtlSec;
+    }
+}
@@ -0,0 +1,132 @@
+package com.devicehive.service.store;
+
+import com.devicehive.model.DeviceCommand;
+import com.devicehive.model.DeviceNotification;
+import com.devicehive.model.HazelcastEntity;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Order of message lookup results. Messages with equal sort field values are ordered by timestamp in the same
+ * direction. Evaluated by message stores, so it should be serializable.
+ */
+public class MessageSort implements Comparator<HazelcastEntity>, Serializable {
+    private static final long serialVersionUID = -4521864725317006937L;
+
+    public enum Field {
+        TIMESTAMP,
+        /**
+         * Notification or command name
+         */
+        NAME,
+        /**
+         * Command status
+         */
+        STATUS
+    }
+
+    public static final MessageSort NEWEST_FIRST = new MessageSort(Field.TIMESTAMP, false);
+
+    private final Field field;
+    private final boolean ascending;
+
+    public MessageSort(Field field, boolean ascending) {
+        this.field = field;
+        this.ascending = ascending;
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public boolean isNewestFirst() {
+        return field == Field.TIMESTAMP && !ascending;
+    }
+
+    @Override
+    public int compare(HazelcastEntity first, HazelcastEntity second) {
+        int result = field == Field.TIMESTAMP ? 0 : compareNullable(valueOf(first), valueOf(second));
+        if (result == 0) {
+            result = compareNullable(first.getTimestamp(), second.getTimestamp());
+        }
+        return ascending ? result : -result;
+    }
+
+    /**
+     * Sorts the messages and returns the requested page of them
+     *
+     * @param take page size, not positive value means all messages after skip
+     */
+    public <T extends HazelcastEntity> List<T> page(List<T> messages, int skip, int take) {
+        messages.sort(this);
+        final int from = Math.max(skip, 0);
+        if (from >= messages.size()) {
+            return new ArrayList<>();
+        }
+        final int limit = limitOf(skip, take);
+        final int to = limit <= 0 ? messages.size() : Math.min(messages.size(), limit);
+        return from == 0 && to == messages.size() ? messages : new ArrayList<>(messages.subList(from, to));
+    }
+
+    /**
+     * Number of messages to materialize for the page, 0 means all of them
+     */
+    public static int limitOf(int skip, int take) {
+        return take <= 0 ? 0 : (int) Math.min(Integer.MAX_VALUE, (long) Math.max(skip, 0) + take);
+    }
+
+    /**
+     * Same order applied to map entries, for hazelcast paging predicates. PagingPredicate accepts comparator of raw
+     * entries only.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public Comparator<Map.Entry> forEntries() {
+        return (Comparator) new EntryComparator(this);
+    }
+
+    private String valueOf(HazelcastEntity entity) {
+        if (entity instanceof DeviceNotification) {
+            return field == Field.NAME ? ((DeviceNotification) entity).getNotification() : null;
+        }
+        if (entity instanceof DeviceCommand) {
+            DeviceCommand command = (DeviceCommand) entity;
+            return field == Field.NAME ? command.getCommand() : command.getStatus();
+        }
+        return null;
+    }
+
+    private static <C extends Comparable<C>> int compareNullable(C first, C second) {
+        if (first == null || second == null) {
+            return first == null ? (second == null ? 0 : -1) : 1;
+        }
+        return first.compareTo(second);
+    }
+
+    @Override
+    public String toString() {
+        return "MessageSort{field=" + field + ", ascending=" + ascending + '}';
+    }
+
+    private static class EntryComparator implements Comparator<Map.Entry<?, ?>>, Serializable {
+        private static final long serialVersionUID = 7362410925843917240L;
+
+        private final MessageSort sort;
+
+        private EntryComparator(MessageSort sort) {
+            this.sort = sort;
+        }
+
+        @Override
+        public int compare(Map.Entry<?, ?> first, Map.Entry<?, ?> second) {
+            return sort.compare((HazelcastEntity) first.getValue(), (HazelcastEntity) second.getValue());
+        }
+    }
+}
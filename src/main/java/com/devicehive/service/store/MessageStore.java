@@ -0,0 +1,28 @@
+package com.devicehive.service.store;
+
+import com.devicehive.model.HazelcastEntity;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Cluster wide storage of recent notifications and commands
+ */
+public interface MessageStore {
+
+    <T extends HazelcastEntity> void store(T entity, Class<T> entityClass);
+
+    /**
+     * Returns up to take newest messages matching the filter, or all of them if take is not positive
+     */
+    default <T extends HazelcastEntity> Collection<T> find(MessageFilter filter, int take, Class<T> entityClass) {
+        return find(filter, MessageSort.NEWEST_FIRST, 0, take, entityClass);
+    }
+
+    /**
+     * Returns one page of messages matching the filter in the requested order. Only skip + take messages are
+     * materialized. All messages after skip are returned if take is not positive.
+     */
+    <T extends HazelcastEntity> List<T> find(MessageFilter filter, MessageSort sort, int skip, int take,
+                                             Class<T> entityClass);
+}
@@ -0,0 +1,150 @@
+package com.devicehive.service.store;
+
+import com.devicehive.model.DeviceCommand;
+import com.devicehive.model.DeviceNotification;
+import com.devicehive.model.HazelcastEntity;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.map.AbstractEntryProcessor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps bounded buffer of the latest messages per device. Buffers are keyed by device guid, so each buffer lives in
+ * one partition, and lookups for known devices are executed by the owner member reading only messages newer than the
+ * requested timestamp. Messages are dropped when expired or when the buffer is full.
+ */
+@Component
+public class RingBufferMessageStore implements MessageStore, PublicMetrics {
+    public static final String NOTIFICATIONS_BUFFERS = "NOTIFICATIONS-BUFFERS";
+    public static final String COMMANDS_BUFFERS = "COMMANDS-BUFFERS";
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Autowired
+    private MessageRetention retention;
+
+    @Value("${message.store.ring.capacity:1000}")
+    private int capacity;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private Map<Class<?>, IMap<String, DeviceMessageBuffer>> buffersHolder;
+
+    @PostConstruct
+    protected void init() {
+        buffersHolder = new HashMap<>(2);
+        buffersHolder.put(DeviceNotification.class, hazelcastInstance.getMap(NOTIFICATIONS_BUFFERS));
+        buffersHolder.put(DeviceCommand.class, hazelcastInstance.getMap(COMMANDS_BUFFERS));
+    }
+
+    @Override
+    public <T extends HazelcastEntity> void store(T entity, Class<T> entityClass) {
+        final int deviceCapacity = retention.getDeviceCap() > 0 ? Math.min(capacity, retention.getDeviceCap()) : capacity;
+        final Object droppedNow = buffersHolder.get(entityClass).executeOnKey(entity.getDeviceGuid(),
+                new AppendProcessor(entity, retention.expiresAt(entity), deviceCapacity));
+        if (droppedNow != null) {
+            dropped.addAndGet((Integer) droppedNow);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends HazelcastEntity> List<T> find(MessageFilter filter, MessageSort sort, int skip, int take,
+                                                    Class<T> entityClass) {
+        final IMap<String, DeviceMessageBuffer> buffers = buffersHolder.get(entityClass);
+        final FindProcessor processor = new FindProcessor(filter, sort, MessageSort.limitOf(skip, take));
+        final Collection<Object> results;
+        if (filter.getGuid() != null && !filter.getGuid().isEmpty()) {
+            results = Collections.singletonList(buffers.executeOnKey(filter.getGuid(), processor));
+        } else if (filter.getDevices() != null) {
+            results = buffers.executeOnKeys(new HashSet<>(filter.getDevices()), processor).values();
+        } else {
+            results = buffers.executeOnEntries(processor).values();
+        }
+
+        final List<T> messages = new ArrayList<>();
+        for (Object result : results) {
+            if (result != null) {
+                messages.addAll((List<T>) result);
+            }
+        }
+        return sort.page(messages, skip, take);
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        final List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>("messageStore.ring.dropped", dropped.get()));
+        for (IMap<String, DeviceMessageBuffer> buffers : buffersHolder.values()) {
+            metrics.add(new Metric<>("messageStore." + buffers.getName() + ".devices",
+                    buffers.getLocalMapStats().getOwnedEntryCount()));
+        }
+        return metrics;
+    }
+
+    private static class AppendProcessor extends AbstractEntryProcessor<String, DeviceMessageBuffer> {
+        private static final long serialVersionUID = -1436257289573463431L;
+
+        private final HazelcastEntity message;
+        private final long expiresAt;
+        private final int capacity;
+
+        private AppendProcessor(HazelcastEntity message, long expiresAt, int capacity) {
+            super(true);
+            this.message = message;
+            this.expiresAt = expiresAt;
+            this.capacity = capacity;
+        }
+
+        @Override
+        public Object process(Map.Entry<String, DeviceMessageBuffer> entry) {
+            DeviceMessageBuffer buffer = entry.getValue() != null ? entry.getValue() : new DeviceMessageBuffer();
+            int dropped = buffer.put(message, expiresAt, capacity, System.currentTimeMillis());
+            entry.setValue(buffer);
+            return dropped;
+        }
+    }
+
+    private static class FindProcessor extends AbstractEntryProcessor<String, DeviceMessageBuffer> {
+        private static final long serialVersionUID = 3205632826617346543L;
+
+        private final MessageFilter filter;
+        private final MessageSort sort;
+        private final int limit;
+
+        private FindProcessor(MessageFilter filter, MessageSort sort, int limit) {
+            super(false);
+            this.filter = filter;
+            this.sort = sort;
+            this.limit = limit;
+        }
+
+        @Override
+        public Object process(Map.Entry<String, DeviceMessageBuffer> entry) {
+            if (entry.getValue() == null) {
+                return null;
+            }
+            final long now = System.currentTimeMillis();
+            if (sort.isNewestFirst()) {
+                // buffer is walked from the newest message, so it could stop after limit messages
+                return entry.getValue().find(filter, limit, now);
+            }
+            return sort.page(entry.getValue().find(filter, 0, now), 0, limit);
+        }
+    }
+}
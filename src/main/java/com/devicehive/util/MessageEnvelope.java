@@ -0,0 +1,62 @@
+package com.devicehive.util;
+
+import com.devicehive.configuration.Constants;
+import com.devicehive.json.GsonFactory;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Message sent to websocket subscribers, which differs between subscribers only by subscription id. The message body
+ * is converted to JSON and rendered to text once, subscription id is spliced into the rendered text per subscriber.
+ */
+public class MessageEnvelope {
+
+    private final JsonObject template;
+    private final boolean withSubscriptionId;
+    private volatile String prefix;
+
+    public MessageEnvelope(JsonObject template, boolean withSubscriptionId) {
+        this.template = template;
+        this.withSubscriptionId = withSubscriptionId;
+    }
+
+    /**
+     * @return message for the subscriber. The object shares message body with other subscribers' objects, so it
+     * shouldn't be modified.
+     */
+    public JsonObject toJson(UUID subId) {
+        JsonObject json = new JsonObject();
+        for (Map.Entry<String, JsonElement> entry : template.entrySet()) {
+            json.add(entry.getKey(), entry.getValue());
+        }
+        if (withSubscriptionId) {
+            json.addProperty(Constants.SUBSCRIPTION_ID, subId.toString());
+        }
+        return json;
+    }
+
+    /**
+     * @return compact text of {@link #toJson(UUID)} result
+     */
+    public String render(UUID subId) {
+        String rendered = prefix;
+        if (rendered == null) {
+            rendered = GsonFactory.createGson().toJson(template);
+            rendered = rendered.substring(0, rendered.length() - 1);
+            prefix = rendered;
+        }
+        if (!withSubscriptionId) {
+            return rendered + '}';
+        }
+        StringBuilder builder = new StringBuilder(rendered.length() + Constants.SUBSCRIPTION_ID.length() + 44)
+                .append(rendered);
+        if (!template.entrySet().isEmpty()) {
+            builder.append(',');
+        }
+        return builder.append('"').append(Constants.SUBSCRIPTION_ID).append("\":\"").append(subId).append("\"}")
+                .toString();
+    }
+}
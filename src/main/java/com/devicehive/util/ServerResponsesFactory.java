@@ -18,17 +18,24 @@ import static com.devicehive.json.strategies.JsonPolicyDef.Policy.*;
 public class ServerResponsesFactory {
 
     public static JsonObject createNotificationInsertMessage(DeviceNotification deviceNotification, UUID subId) {
+        return createNotificationInsertEnvelope(deviceNotification).toJson(subId);
+    }
+
+    public static MessageEnvelope createNotificationInsertEnvelope(DeviceNotification deviceNotification) {
         JsonElement deviceNotificationJson =
             GsonFactory.createGson(NOTIFICATION_TO_CLIENT).toJsonTree(deviceNotification);
         JsonObject resultMessage = new JsonObject();
         resultMessage.addProperty("action", "notification/insert");
         resultMessage.addProperty(Constants.DEVICE_GUID, deviceNotification.getDeviceGuid());
         resultMessage.add(Constants.NOTIFICATION, deviceNotificationJson);
-        resultMessage.addProperty(Constants.SUBSCRIPTION_ID, subId.toString());
-        return resultMessage;
+        return new MessageEnvelope(resultMessage, true);
     }
 
     public static JsonObject createCommandInsertMessage(DeviceCommand deviceCommand, UUID subId) {
+        return createCommandInsertEnvelope(deviceCommand).toJson(subId);
+    }
+
+    public static MessageEnvelope createCommandInsertEnvelope(DeviceCommand deviceCommand) {
 
         JsonElement deviceCommandJson = GsonFactory.createGson(COMMAND_TO_DEVICE).toJsonTree(deviceCommand,
                                                                                              DeviceCommand.class);
@@ -37,17 +44,20 @@ public class ServerResponsesFactory {
         resultJsonObject.addProperty("action", "command/insert");
         resultJsonObject.addProperty(Constants.DEVICE_GUID, deviceCommand.getDeviceGuid());
         resultJsonObject.add(Constants.COMMAND, deviceCommandJson);
-        resultJsonObject.addProperty(Constants.SUBSCRIPTION_ID, subId.toString());
-        return resultJsonObject;
+        return new MessageEnvelope(resultJsonObject, true);
     }
 
     public static JsonObject createCommandUpdateMessage(DeviceCommand deviceCommand) {
+        return createCommandUpdateEnvelope(deviceCommand).toJson(null);
+    }
+
+    public static MessageEnvelope createCommandUpdateEnvelope(DeviceCommand deviceCommand) {
         JsonElement deviceCommandJson =
             GsonFactory.createGson(COMMAND_UPDATE_TO_CLIENT).toJsonTree(deviceCommand);
         JsonObject resultJsonObject = new JsonObject();
         resultJsonObject.addProperty("action", "command/update");
         resultJsonObject.add(Constants.COMMAND, deviceCommandJson);
-        return resultJsonObject;
+        return new MessageEnvelope(resultJsonObject, false);
     }
 
     public static String parseNotificationStatus(DeviceNotification notificationMessage) {
@@ -8,6 +8,7 @@ import com.devicehive.messages.subscriptions.SubscriptionManager;
 import com.devicehive.websockets.converters.JsonMessageBuilder;
 import com.devicehive.websockets.handlers.WebsocketExecutor;
 import com.devicehive.websockets.util.AsyncMessageSupplier;
+import com.devicehive.websockets.util.OutboundMessageQueue;
 import com.devicehive.websockets.util.SessionMonitor;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
@@ -16,6 +17,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.PongMessage;
 import org.springframework.web.socket.TextMessage;
@@ -27,6 +29,7 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.locks.Lock;
 
 
@@ -43,6 +46,16 @@ abstract class AbstractWebSocketHandler extends TextWebSocketHandler {
     @Autowired
     private AsyncMessageSupplier asyncMessageSupplier;
 
+    @Autowired
+    @Qualifier(DeviceHiveApplication.WEBSOCKET_EXECUTOR)
+    private ExecutorService websocketExecutorService;
+
+    @Value("${websocket.queue.capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${websocket.queue.overflow.policy:DROP_OLDEST}")
+    private OutboundMessageQueue.OverflowPolicy overflowPolicy;
+
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         logger.debug("Opening session id {} ", session.getId());
@@ -50,11 +63,41 @@ abstract class AbstractWebSocketHandler extends TextWebSocketHandler {
         session.setBinaryMessageSizeLimit(Constants.WEBSOCKET_MAX_BUFFER_SIZE);
         session.setTextMessageSizeLimit(Constants.WEBSOCKET_MAX_BUFFER_SIZE);
 
-        HiveWebsocketSessionState state = new HiveWebsocketSessionState();
+        HiveWebsocketSessionState state = new HiveWebsocketSessionState(queueCapacity, overflowPolicy);
+        state.getQueue().setOverflowListener(() -> scheduleCloseOnOverflow(session, state));
         session.getAttributes().put(HiveWebsocketSessionState.KEY, state);
         sessionMonitor.registerSession(session);
     }
 
+    /**
+     * Queue overflows on Kafka workers, which should not wait for the session to be closed, so closing is run by
+     * the websocket executor. It rejects tasks rather than running them on the caller.
+     */
+    private void scheduleCloseOnOverflow(WebSocketSession session, HiveWebsocketSessionState state) {
+        if (!state.getCloseScheduled().compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            websocketExecutorService.execute(() -> closeOnOverflow(session));
+        } catch (RejectedExecutionException e) {
+            // next overflow schedules it once again
+            state.getCloseScheduled().set(false);
+            logger.warn("Unable to schedule closing of session {}", session.getId());
+        }
+    }
+
+    private void closeOnOverflow(WebSocketSession session) {
+        if (!session.isOpen()) {
+            return;
+        }
+        logger.warn("Outbound message queue of session {} is full, closing the session", session.getId());
+        try {
+            session.close(CloseStatus.POLICY_VIOLATION.withReason("Outbound message queue overflow"));
+        } catch (IOException e) {
+            logger.error("Error closing session " + session.getId(), e);
+        }
+    }
+
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
         JsonObject request;
@@ -4,9 +4,9 @@ package com.devicehive.websockets;
 import com.devicehive.auth.HivePrincipal;
 import com.devicehive.configuration.Constants;
 import com.devicehive.websockets.util.HiveEndpoint;
+import com.devicehive.websockets.util.OutboundMessageQueue;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
-import com.google.gson.JsonElement;
 import org.springframework.web.socket.WebSocketSession;
 
 import java.util.Collections;
@@ -14,8 +14,8 @@ import java.util.HashSet;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -23,7 +23,9 @@ public class HiveWebsocketSessionState {
 
     public static final String KEY = HiveWebsocketSessionState.class.getName();
     private final Lock queueLock = new ReentrantLock(true);
-    private final ConcurrentLinkedQueue<JsonElement> queue = new ConcurrentLinkedQueue<>();
+    private final OutboundMessageQueue queue;
+    private final AtomicBoolean deliveryScheduled = new AtomicBoolean();
+    private final AtomicBoolean closeScheduled = new AtomicBoolean();
     private final Set<UUID> commandSubscriptions = Collections.newSetFromMap(new ConcurrentHashMap<>());
     private final Set<UUID> commandUpdateSubscriptions = Collections.newSetFromMap(new ConcurrentHashMap<>());
     private final Lock commandSubscriptionsLock = new ReentrantLock(true);
@@ -35,6 +37,14 @@ public class HiveWebsocketSessionState {
     private HiveEndpoint endpoint;
     private HivePrincipal hivePrincipal;
 
+    public HiveWebsocketSessionState() {
+        this(Integer.MAX_VALUE, OutboundMessageQueue.OverflowPolicy.DROP_NEWEST);
+    }
+
+    public HiveWebsocketSessionState(int queueCapacity, OutboundMessageQueue.OverflowPolicy overflowPolicy) {
+        this.queue = new OutboundMessageQueue(queueCapacity, overflowPolicy);
+    }
+
     public static HiveWebsocketSessionState get(WebSocketSession session) {
         return (HiveWebsocketSessionState) session.getAttributes().get(HiveWebsocketSessionState.KEY);
     }
@@ -51,10 +61,24 @@ public class HiveWebsocketSessionState {
         return queueLock;
     }
 
-    public ConcurrentLinkedQueue<JsonElement> getQueue() {
+    public OutboundMessageQueue getQueue() {
         return queue;
     }
 
+    /**
+     * Set while delivery task of the session is scheduled or running, so at most one such task exists at a time
+     */
+    public AtomicBoolean getDeliveryScheduled() {
+        return deliveryScheduled;
+    }
+
+    /**
+     * Set once closing of the session is scheduled on queue overflow, so it is scheduled only once
+     */
+    public AtomicBoolean getCloseScheduled() {
+        return closeScheduled;
+    }
+
     public Set<UUID> getCommandSubscriptions() {
         return commandSubscriptions;
     }
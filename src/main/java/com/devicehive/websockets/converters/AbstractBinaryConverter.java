@@ -0,0 +1,190 @@
+package com.devicehive.websockets.converters;
+
+import com.devicehive.model.JsonStringWrapper;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Base class for compact binary Kafka converters. Each message starts with {@link #MAGIC} byte followed by format
+ * version. Messages without the header are treated as JSON written by the legacy converters, so consumers could read
+ * both formats while cluster is being switched to binary one. Messages of unknown version or truncated ones are logged
+ * and read as {@code null}, like the legacy converters do, so one bad record doesn't stop the consumer.
+ */
+public abstract class AbstractBinaryConverter<T> implements Serializer<T>, Deserializer<T> {
+
+    /**
+     * JSON messages always start with '{', so this byte can't be confused with legacy format
+     */
+    public static final byte MAGIC = (byte) 0xDB;
+    public static final byte VERSION = 1;
+
+    private static final int NULL_LENGTH = -1;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    protected abstract void write(T entity, Writer out) throws IOException;
+
+    protected abstract T read(Reader in);
+
+    protected abstract T fromJson(byte[] bytes);
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+
+    }
+
+    @Override
+    public byte[] serialize(String topic, T entity) {
+        if (entity == null) {
+            return null;
+        }
+        try {
+            Writer out = new Writer();
+            out.writeByte(MAGIC);
+            out.writeByte(VERSION);
+            write(entity, out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new SerializationException("Unable to serialize " + entity, e);
+        }
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return fromJson(bytes);
+        }
+        if (bytes.length < 2 || bytes[1] != VERSION) {
+            logger.warn("Skipping message of topic {} with unsupported format version {}", topic,
+                    bytes.length < 2 ? "" : bytes[1]);
+            return null;
+        }
+        try {
+            return read(new Reader(ByteBuffer.wrap(bytes, 2, bytes.length - 2)));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            logger.warn("Skipping truncated message of topic {}", topic, e);
+            return null;
+        }
+    }
+
+    @Override
+    public void close() {
+
+    }
+
+    protected static final class Writer extends DataOutputStream {
+        private final ByteArrayOutputStream buffer;
+
+        private Writer() {
+            this(new ByteArrayOutputStream(256));
+        }
+
+        private Writer(ByteArrayOutputStream buffer) {
+            super(buffer);
+            this.buffer = buffer;
+        }
+
+        public void writeString(String value) throws IOException {
+            writeBytesOrNull(value != null ? value.getBytes(StandardCharsets.UTF_8) : null);
+        }
+
+        /**
+         * JSON is written as is, without parsing
+         */
+        public void writeJson(JsonStringWrapper value) throws IOException {
+            writeString(value != null ? value.getJsonString() : null);
+        }
+
+        public void writeNullableLong(Long value) throws IOException {
+            writeBoolean(value != null);
+            if (value != null) {
+                writeLong(value);
+            }
+        }
+
+        public void writeNullableInt(Integer value) throws IOException {
+            writeBoolean(value != null);
+            if (value != null) {
+                writeInt(value);
+            }
+        }
+
+        public void writeNullableBoolean(Boolean value) throws IOException {
+            writeByte(value == null ? -1 : value ? 1 : 0);
+        }
+
+        public void writeDate(Date value) throws IOException {
+            writeNullableLong(value != null ? value.getTime() : null);
+        }
+
+        private void writeBytesOrNull(byte[] value) throws IOException {
+            if (value == null) {
+                writeInt(NULL_LENGTH);
+            } else {
+                writeInt(value.length);
+                write(value);
+            }
+        }
+
+        private byte[] toByteArray() {
+            return buffer.toByteArray();
+        }
+    }
+
+    protected static final class Reader {
+        private final ByteBuffer buffer;
+
+        private Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        public String readString() {
+            int length = buffer.getInt();
+            if (length == NULL_LENGTH) {
+                return null;
+            }
+            String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                    StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+
+        public JsonStringWrapper readJson() {
+            String value = readString();
+            return value != null ? new JsonStringWrapper(value) : null;
+        }
+
+        public Long readNullableLong() {
+            return buffer.get() != 0 ? buffer.getLong() : null;
+        }
+
+        public Integer readNullableInt() {
+            return buffer.get() != 0 ? buffer.getInt() : null;
+        }
+
+        public Boolean readNullableBoolean() {
+            byte value = buffer.get();
+            return value < 0 ? null : value != 0;
+        }
+
+        public Date readDate() {
+            Long value = readNullableLong();
+            return value != null ? new Date(value) : null;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.devicehive.websockets.converters;
+
+import com.devicehive.model.DeviceCommand;
+
+import java.io.IOException;
+
+/**
+ * Compact binary alternative to {@link DeviceCommandConverter}. Reads messages written by both converters.
+ */
+public class DeviceCommandBinaryConverter extends AbstractBinaryConverter<DeviceCommand> {
+
+    private final DeviceCommandConverter jsonConverter = new DeviceCommandConverter();
+
+    @Override
+    protected void write(DeviceCommand command, Writer out) throws IOException {
+        out.writeNullableLong(command.getId());
+        out.writeString(command.getCommand());
+        out.writeDate(command.getTimestamp());
+        out.writeNullableLong(command.getUserId());
+        out.writeString(command.getDeviceGuid());
+        out.writeJson(command.getParameters());
+        out.writeNullableInt(command.getLifetime());
+        out.writeString(command.getStatus());
+        out.writeJson(command.getResult());
+        out.writeNullableBoolean(command.getIsUpdated());
+    }
+
+    @Override
+    protected DeviceCommand read(Reader in) {
+        DeviceCommand command = new DeviceCommand();
+        Long id = in.readNullableLong();
+        if (id != null) {
+            command.setId(id);
+        }
+        command.setCommand(in.readString());
+        command.setTimestamp(in.readDate());
+        command.setUserId(in.readNullableLong());
+        command.setDeviceGuid(in.readString());
+        command.setParameters(in.readJson());
+        command.setLifetime(in.readNullableInt());
+        command.setStatus(in.readString());
+        command.setResult(in.readJson());
+        command.setIsUpdated(in.readNullableBoolean());
+        return command;
+    }
+
+    @Override
+    protected DeviceCommand fromJson(byte[] bytes) {
+        return jsonConverter.fromBytes(bytes);
+    }
+}
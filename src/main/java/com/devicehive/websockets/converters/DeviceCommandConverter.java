@@ -8,6 +8,7 @@ import org.apache.kafka.common.serialization.Deserializer;
 import org.apache.kafka.common.serialization.Serializer;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.Map;
 
@@ -23,7 +24,7 @@ public class DeviceCommandConverter implements Serializer<DeviceCommand>, Deseri
     }
 
     public byte[] toBytes(DeviceCommand deviceCommand) {
-        return toJsonString(deviceCommand).getBytes();
+        return toJsonString(deviceCommand).getBytes(StandardCharsets.UTF_8);
     }
 
     public String toJsonString(DeviceCommand deviceCommand) {
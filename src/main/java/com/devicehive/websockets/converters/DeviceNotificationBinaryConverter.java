@@ -0,0 +1,41 @@
+package com.devicehive.websockets.converters;
+
+import com.devicehive.model.DeviceNotification;
+
+import java.io.IOException;
+
+/**
+ * Compact binary alternative to {@link DeviceNotificationConverter}. Reads messages written by both converters.
+ */
+public class DeviceNotificationBinaryConverter extends AbstractBinaryConverter<DeviceNotification> {
+
+    private final DeviceNotificationConverter jsonConverter = new DeviceNotificationConverter();
+
+    @Override
+    protected void write(DeviceNotification notification, Writer out) throws IOException {
+        out.writeNullableLong(notification.getId());
+        out.writeString(notification.getNotification());
+        out.writeString(notification.getDeviceGuid());
+        out.writeDate(notification.getTimestamp());
+        out.writeJson(notification.getParameters());
+    }
+
+    @Override
+    protected DeviceNotification read(Reader in) {
+        DeviceNotification notification = new DeviceNotification();
+        Long id = in.readNullableLong();
+        if (id != null) {
+            notification.setId(id);
+        }
+        notification.setNotification(in.readString());
+        notification.setDeviceGuid(in.readString());
+        notification.setTimestamp(in.readDate());
+        notification.setParameters(in.readJson());
+        return notification;
+    }
+
+    @Override
+    protected DeviceNotification fromJson(byte[] bytes) {
+        return jsonConverter.fromBytes(bytes);
+    }
+}
@@ -8,6 +8,7 @@ import org.apache.kafka.common.serialization.Deserializer;
 import org.apache.kafka.common.serialization.Serializer;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.Map;
 
@@ -23,7 +24,7 @@ public class DeviceNotificationConverter implements Serializer<DeviceNotificatio
     }
 
     public byte[] toBytes(DeviceNotification deviceNotification) {
-        return toJsonString(deviceNotification).getBytes();
+        return toJsonString(deviceNotification).getBytes(StandardCharsets.UTF_8);
     }
 
     public String toJsonString(DeviceNotification deviceNotification) {
@@ -14,6 +14,7 @@ import com.devicehive.model.Device;
 import com.devicehive.model.DeviceCommand;
 import com.devicehive.model.User;
 import com.devicehive.model.wrappers.DeviceCommandWrapper;
+import com.devicehive.service.DeviceAccessCache;
 import com.devicehive.service.DeviceCommandService;
 import com.devicehive.service.DeviceService;
 import com.devicehive.util.ServerResponsesFactory;
@@ -50,6 +51,8 @@ public class CommandHandlers extends WebsocketHandlers {
     @Autowired
     private DeviceService deviceService;
     @Autowired
+    private DeviceAccessCache deviceAccessCache;
+    @Autowired
     private DeviceCommandService commandService;
     @Autowired
     private AsyncMessageSupplier asyncMessageDeliverer;
@@ -133,6 +136,8 @@ public class CommandHandlers extends WebsocketHandlers {
                     throw new HiveException(String.format(Messages.DEVICES_NOT_FOUND, devices), SC_FORBIDDEN);
                 }
                 for (Device d : actualDevices) {
+                    // evaluate access decision once here, message delivery will use the cached one
+                    deviceAccessCache.hasAccessTo(principal, d.getGuid());
                     csList.add(new CommandSubscription(principal, d.getGuid(), reqId, namesStr,
                             WebsocketHandlerCreator.createCommandInsert(session)));
                 }
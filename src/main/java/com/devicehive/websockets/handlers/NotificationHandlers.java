@@ -12,6 +12,7 @@ import com.devicehive.messages.subscriptions.SubscriptionManager;
 import com.devicehive.model.Device;
 import com.devicehive.model.DeviceNotification;
 import com.devicehive.model.wrappers.DeviceNotificationWrapper;
+import com.devicehive.service.DeviceAccessCache;
 import com.devicehive.service.DeviceNotificationService;
 import com.devicehive.service.DeviceService;
 import com.devicehive.util.ServerResponsesFactory;
@@ -49,6 +50,8 @@ public class NotificationHandlers extends WebsocketHandlers {
     @Autowired
     private DeviceService deviceService;
     @Autowired
+    private DeviceAccessCache deviceAccessCache;
+    @Autowired
     private AsyncMessageSupplier asyncMessageDeliverer;
     @Autowired
     private SubscriptionSessionMap subscriptionSessionMap;
@@ -114,6 +117,8 @@ public class NotificationHandlers extends WebsocketHandlers {
             if (devices != null) {
                 List<Device> actualDevices = deviceService.findByGuidWithPermissionsCheck(devices, principal);
                 for (Device d : actualDevices) {
+                    // evaluate access decision once here, message delivery will use the cached one
+                    deviceAccessCache.hasAccessTo(principal, d.getGuid());
                     nsList.add(new NotificationSubscription(principal, d.getGuid(), reqId, StringUtils.join(names, ","),
                                                             WebsocketHandlerCreator.createNotificationInsert(session)));
                 }
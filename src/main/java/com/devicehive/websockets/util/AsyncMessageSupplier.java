@@ -8,14 +8,27 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 
+/**
+ * Delivers messages queued in {@link HiveWebsocketSessionState} to the websocket session. At most one delivery task
+ * per session is scheduled at a time. If batching is enabled, queued messages are sent as JSON array frames bounded by
+ * number of messages and frame size, and delivery may be delayed for linger time to collect more messages.
+ */
 @Component
 public class AsyncMessageSupplier {
 
@@ -23,48 +36,170 @@ public class AsyncMessageSupplier {
 
     public static final JsonElement PING_JSON_MSG = new JsonArray();
 
-    @Async(DeviceHiveApplication.MESSAGE_EXECUTOR)
+    @Autowired
+    @Qualifier(DeviceHiveApplication.WEBSOCKET_EXECUTOR)
+    private ExecutorService executor;
+
+    @Value("${websocket.batch.enabled:false}")
+    private boolean batchEnabled;
+
+    @Value("${websocket.batch.max.messages:100}")
+    private int batchMaxMessages;
+
+    @Value("${websocket.batch.max.bytes:65536}")
+    private int batchMaxBytes;
+
+    @Value("${websocket.batch.linger.ms:0}")
+    private long batchLingerMs;
+
+    private ScheduledExecutorService lingerScheduler;
+
+    @PostConstruct
+    public void init() {
+        if (batchEnabled && batchLingerMs > 0) {
+            lingerScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "websocket-batch-linger");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (lingerScheduler != null) {
+            lingerScheduler.shutdownNow();
+        }
+    }
+
     public void deliverMessages(WebSocketSession session) {
-        ConcurrentLinkedQueue<JsonElement> queue = HiveWebsocketSessionState.get(session).getQueue();
+        HiveWebsocketSessionState state = HiveWebsocketSessionState.get(session);
+        if (!state.getDeliveryScheduled().compareAndSet(false, true)) {
+            return;
+        }
+        Runnable task = () -> deliver(session, state);
+        try {
+            if (lingerScheduler != null) {
+                lingerScheduler.schedule(() -> submit(task, state), batchLingerMs, TimeUnit.MILLISECONDS);
+            } else {
+                executor.execute(task);
+            }
+        } catch (RejectedExecutionException e) {
+            state.getDeliveryScheduled().set(false);
+            logger.error("Unable to schedule message delivery for session {}", session.getId(), e);
+        }
+    }
+
+    private void submit(Runnable task, HiveWebsocketSessionState state) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            state.getDeliveryScheduled().set(false);
+            logger.error("Unable to schedule message delivery", e);
+        }
+    }
+
+    private void deliver(WebSocketSession session, HiveWebsocketSessionState state) {
         boolean acquired = false;
+        boolean failed = false;
         try {
-            acquired = HiveWebsocketSessionState.get(session).getQueueLock().tryLock();
+            acquired = state.getQueueLock().tryLock();
             if (acquired) {
-                while (!queue.isEmpty()) {
-                    JsonElement jsonElement = queue.peek();
-                    if (jsonElement == null) {
-                        queue.poll();
-                        continue;
-                    }
-                    if (session.isOpen()) {
-                        WebSocketMessage<?> webSocketMessage = null;
-                        if (jsonElement == PING_JSON_MSG) {
-                            webSocketMessage = new PingMessage(Constants.PING);
-                        } else {
-                            String data = GsonFactory.createGson().toJson(jsonElement);
-                            webSocketMessage = new TextMessage(data);
-                        }
-                        session.sendMessage(webSocketMessage);
-                        queue.poll();
-                    } else {
-                        logger.error("Session is closed. Unable to deliver message");
-                        queue.clear();
-                        return;
-                    }
-                    logger.debug("Session {}: {} messages left", session.getId(), queue.size());
+                if (batchEnabled) {
+                    sendBatches(session, state.getQueue());
+                } else {
+                    sendOneByOne(session, state.getQueue());
                 }
             }
         } catch (IOException e) {
-            logger.error("Unexpected exception", e);
-            throw new RuntimeException(e);
+            failed = true;
+            logger.error("Unable to deliver message to session {}", session.getId(), e);
         } finally {
             if (acquired) {
-                HiveWebsocketSessionState.get(session).getQueueLock().unlock();
+                state.getQueueLock().unlock();
             }
+            state.getDeliveryScheduled().set(false);
+        }
+        // messages could be queued after the queue was drained but before the flag was reset. After a failed send the
+        // message stays queued and is retried when the next one is queued, as before
+        if (acquired && !failed && !state.getQueue().isEmpty() && session.isOpen()) {
+            deliverMessages(session);
         }
     }
 
-}
+    /**
+     * Message is removed from the queue only after it is sent, so it is not lost if sending fails
+     */
+    private void sendOneByOne(WebSocketSession session, OutboundMessageQueue queue) throws IOException {
+        OutboundMessageQueue.Entry entry;
+        while ((entry = queue.peekEntry()) != null) {
+            if (session.isOpen()) {
+                WebSocketMessage<?> webSocketMessage = null;
+                if (entry.getJson() == PING_JSON_MSG) {
+                    webSocketMessage = new PingMessage(Constants.PING);
+                } else if (entry.getText() != null) {
+                    webSocketMessage = new TextMessage(entry.getText());
+                } else {
+                    String data = GsonFactory.createGson().toJson(entry.getJson());
+                    webSocketMessage = new TextMessage(data);
+                }
+                session.sendMessage(webSocketMessage);
+                queue.removeEntry(entry);
+            } else {
+                logger.error("Session is closed. Unable to deliver message");
+                queue.clear();
+                return;
+            }
+            logger.debug("Session {}: {} messages left", session.getId(), queue.size());
+        }
+    }
 
+    /**
+     * Messages are taken from the queue while the frame is built, so messages of a frame that failed to be sent are
+     * dropped
+     */
+    private void sendBatches(WebSocketSession session, OutboundMessageQueue queue) throws IOException {
+        StringBuilder frame = null;
+        int count = 0;
+        OutboundMessageQueue.Entry entry;
+        while ((entry = queue.pollEntry()) != null) {
+            if (!session.isOpen()) {
+                logger.error("Session is closed. Unable to deliver message");
+                queue.clear();
+                return;
+            }
+            if (entry.getJson() == PING_JSON_MSG) {
+                sendFrame(session, frame, count);
+                frame = null;
+                count = 0;
+                session.sendMessage(new PingMessage(Constants.PING));
+                continue;
+            }
+            String data = entry.getText() != null
+                    ? entry.getText()
+                    : GsonFactory.createGson().toJson(entry.getJson());
+            if (frame != null && (count >= batchMaxMessages || frame.length() + data.length() + 2 > batchMaxBytes)) {
+                sendFrame(session, frame, count);
+                frame = null;
+                count = 0;
+            }
+            if (frame == null) {
+                frame = new StringBuilder(data.length() + 2).append('[');
+            } else {
+                frame.append(',');
+            }
+            frame.append(data);
+            count++;
+        }
+        sendFrame(session, frame, count);
+    }
 
+    private void sendFrame(WebSocketSession session, StringBuilder frame, int count) throws IOException {
+        if (frame == null) {
+            return;
+        }
+        session.sendMessage(new TextMessage(frame.append(']').toString()));
+        logger.debug("Session {}: {} messages sent in one frame", session.getId(), count);
+    }
 
+}
@@ -0,0 +1,245 @@
+package com.devicehive.websockets.util;
+
+import com.devicehive.configuration.Constants;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded queue of messages waiting to be sent to websocket session. When the queue is full, new message is handled
+ * according to {@link OverflowPolicy}. Designed for many producers and single consumer.
+ */
+public class OutboundMessageQueue extends AbstractQueue<JsonElement> {
+
+    public enum OverflowPolicy {
+        /**
+         * Oldest queued message is dropped to free space for the new one
+         */
+        DROP_OLDEST,
+        /**
+         * New message is dropped
+         */
+        DROP_NEWEST,
+        /**
+         * Older queued message with the same action, device and subscription is replaced with the new one. Falls back
+         * to {@link #DROP_OLDEST} if there is no such message.
+         */
+        COALESCE_BY_DEVICE,
+        /**
+         * New message is dropped and the overflow listener is notified, so the session could be closed. Listener is run
+         * by the producing thread, so it should not block.
+         */
+        DISCONNECT
+    }
+
+    /**
+     * Queued message with optional text already rendered for the wire
+     */
+    public static final class Entry {
+        private final JsonElement json;
+        private final String text;
+
+        private Entry(JsonElement json, String text) {
+            this.json = json;
+            this.text = text;
+        }
+
+        public JsonElement getJson() {
+            return json;
+        }
+
+        public String getText() {
+            return text;
+        }
+    }
+
+    private final ConcurrentLinkedDeque<Entry> deque = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final int capacity;
+    private final OverflowPolicy policy;
+    private volatile Runnable overflowListener;
+
+    public OutboundMessageQueue(int capacity, OverflowPolicy policy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity should be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.policy = Objects.requireNonNull(policy);
+    }
+
+    public void setOverflowListener(Runnable overflowListener) {
+        this.overflowListener = overflowListener;
+    }
+
+    @Override
+    public boolean offer(JsonElement element) {
+        return offer(element, null);
+    }
+
+    /**
+     * Queues the message together with its rendered text, so it is not serialized once again on delivery
+     */
+    public boolean offer(JsonElement element, String text) {
+        Objects.requireNonNull(element);
+        Entry entry = new Entry(element, text);
+        if (size.incrementAndGet() <= capacity) {
+            deque.offerLast(entry);
+            return true;
+        }
+        size.decrementAndGet();
+        if (policy == OverflowPolicy.DISCONNECT) {
+            dropped.incrementAndGet();
+            // listener is run without the queue lock, it only schedules closing of the session
+            Runnable listener = overflowListener;
+            if (listener != null) {
+                listener.run();
+            }
+            return false;
+        }
+        return overflow(entry);
+    }
+
+    private synchronized boolean overflow(Entry element) {
+        switch (policy) {
+            case COALESCE_BY_DEVICE:
+                if (removeSameDeviceMessage(element)) {
+                    dropped.incrementAndGet();
+                    deque.offerLast(element);
+                    return true;
+                }
+                return dropOldest(element);
+            case DROP_OLDEST:
+                return dropOldest(element);
+            case DROP_NEWEST:
+            default:
+                dropped.incrementAndGet();
+                return false;
+        }
+    }
+
+    private boolean dropOldest(Entry element) {
+        if (deque.pollFirst() != null) {
+            dropped.incrementAndGet();
+        } else {
+            // the consumer has drained the queue meanwhile
+            size.incrementAndGet();
+        }
+        deque.offerLast(element);
+        return true;
+    }
+
+    private boolean removeSameDeviceMessage(Entry element) {
+        String key = coalesceKey(element.json);
+        if (key == null) {
+            return false;
+        }
+        Iterator<Entry> iterator = deque.iterator();
+        while (iterator.hasNext()) {
+            if (key.equals(coalesceKey(iterator.next().json))) {
+                iterator.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String coalesceKey(JsonElement element) {
+        if (!element.isJsonObject()) {
+            return null;
+        }
+        JsonObject object = element.getAsJsonObject();
+        JsonElement deviceGuid = object.get(Constants.DEVICE_GUID);
+        JsonElement subscriptionId = object.get(Constants.SUBSCRIPTION_ID);
+        JsonElement action = object.get("action");
+        if (deviceGuid == null || !deviceGuid.isJsonPrimitive() || subscriptionId == null || action == null) {
+            return null;
+        }
+        return action.getAsString() + '/' + deviceGuid.getAsString() + '/' + subscriptionId.getAsString();
+    }
+
+    @Override
+    public JsonElement poll() {
+        Entry entry = pollEntry();
+        return entry != null ? entry.json : null;
+    }
+
+    public Entry pollEntry() {
+        Entry entry = deque.pollFirst();
+        if (entry != null) {
+            size.decrementAndGet();
+        }
+        return entry;
+    }
+
+    public Entry peekEntry() {
+        return deque.peekFirst();
+    }
+
+    /**
+     * Removes the entry returned by {@link #peekEntry()}, unless it was dropped by overflow policy meanwhile
+     */
+    public boolean removeEntry(Entry entry) {
+        if (deque.removeFirstOccurrence(entry)) {
+            size.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public JsonElement peek() {
+        Entry entry = deque.peekFirst();
+        return entry != null ? entry.json : null;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return deque.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return Math.max(size.get(), 0);
+    }
+
+    @Override
+    public Iterator<JsonElement> iterator() {
+        Iterator<Entry> iterator = deque.iterator();
+        return new Iterator<JsonElement>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public JsonElement next() {
+                return iterator.next().json;
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+                size.decrementAndGet();
+            }
+        };
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+}
@@ -11,6 +11,8 @@ import com.devicehive.websockets.HiveWebsocketSessionState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
@@ -20,18 +22,23 @@ import org.springframework.web.socket.WebSocketSession;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import java.io.IOException;
-import java.util.Set;
-import java.util.UUID;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 
 @Component
-public class SessionMonitor {
+public class SessionMonitor implements PublicMetrics {
     private static final Logger logger = LoggerFactory.getLogger(SessionMonitor.class);
 
     private ConcurrentMap<String, WebSocketSession> sessionMap;
 
+    /**
+     * Messages dropped by sessions which are already removed from {@link #sessionMap}
+     */
+    private final AtomicLong droppedByClosedSessions = new AtomicLong();
+
     @Autowired
     private DeviceActivityService deviceActivityService;
     @Autowired
@@ -73,9 +80,54 @@ public class SessionMonitor {
                 asyncMessageSupplier.deliverMessages(session);
             } else {
                 logger.debug("Session {} is closed.", session.getId());
-                sessionMap.remove(session.getId());
+                if (sessionMap.remove(session.getId()) != null) {
+                    droppedByClosedSessions.addAndGet(getDroppedMessages(session));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return number of outbound messages dropped due to queue overflow, by session id
+     */
+    public Map<String, Long> getDroppedMessagesBySession() {
+        Map<String, Long> result = new HashMap<>();
+        for (WebSocketSession session : sessionMap.values()) {
+            long dropped = getDroppedMessages(session);
+            if (dropped > 0) {
+                result.put(session.getId(), dropped);
+            }
+        }
+        return result;
+    }
+
+    public long getTotalDroppedMessages() {
+        long total = droppedByClosedSessions.get();
+        for (WebSocketSession session : sessionMap.values()) {
+            total += getDroppedMessages(session);
+        }
+        return total;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        int queued = 0;
+        for (WebSocketSession session : sessionMap.values()) {
+            HiveWebsocketSessionState state = HiveWebsocketSessionState.get(session);
+            if (state != null) {
+                queued += state.getQueue().size();
             }
         }
+        metrics.add(new Metric<>("websocket.sessions", sessionMap.size()));
+        metrics.add(new Metric<>("websocket.queue.messages", queued));
+        metrics.add(new Metric<>("websocket.queue.dropped", getTotalDroppedMessages()));
+        return metrics;
+    }
+
+    private static long getDroppedMessages(WebSocketSession session) {
+        HiveWebsocketSessionState state = HiveWebsocketSessionState.get(session);
+        return state != null ? state.getQueue().getDropped() : 0;
     }
 
     @PostConstruct
@@ -0,0 +1,53 @@
+-- Append-only history of notifications and commands written behind the hazelcast message store.
+-- Rows are routed to monthly child tables, so old history could be dropped by dropping child tables.
+CREATE TABLE device_notification_history (
+  id           BIGINT                   NOT NULL,
+  device_guid  VARCHAR(48)              NOT NULL,
+  notification VARCHAR(128)             NOT NULL,
+  parameters   TEXT                     NULL,
+  timestamp    TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+-- every command update is appended as a new row, the latest row of a command is its current state
+CREATE TABLE device_command_history (
+  id          BIGINT                   NOT NULL,
+  device_guid VARCHAR(48)              NOT NULL,
+  command     VARCHAR(128)             NOT NULL,
+  parameters  TEXT                     NULL,
+  timestamp   TIMESTAMP WITH TIME ZONE NOT NULL,
+  user_id     BIGINT                   NULL,
+  lifetime    INT                      NULL,
+  status      VARCHAR(128)             NULL,
+  result      TEXT                     NULL,
+  is_updated  BOOLEAN                  NOT NULL DEFAULT FALSE,
+  stored_at   TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+CREATE OR REPLACE FUNCTION message_history_partition_insert()
+  RETURNS TRIGGER AS $$
+DECLARE
+  partition_start TIMESTAMP WITH TIME ZONE := date_trunc('month', NEW.timestamp AT TIME ZONE 'UTC') AT TIME ZONE 'UTC';
+  partition_name  TEXT := TG_TABLE_NAME || '_' || to_char(NEW.timestamp AT TIME ZONE 'UTC', 'YYYY_MM');
+BEGIN
+  IF NOT EXISTS(SELECT 1 FROM pg_class WHERE relname = partition_name) THEN
+    BEGIN
+      EXECUTE format('CREATE TABLE %I (CHECK (timestamp >= %L AND timestamp < %L)) INHERITS (%I)',
+                     partition_name, partition_start, partition_start + INTERVAL '1 month', TG_TABLE_NAME);
+      EXECUTE format('CREATE INDEX %I ON %I (device_guid, timestamp)',
+                     partition_name || '_device_timestamp_idx', partition_name);
+      EXCEPTION WHEN duplicate_table THEN
+      -- created by concurrent insert
+    END;
+  END IF;
+  EXECUTE format('INSERT INTO %I SELECT ($1).*', partition_name) USING NEW;
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER device_notification_history_partition
+BEFORE INSERT ON device_notification_history
+FOR EACH ROW EXECUTE PROCEDURE message_history_partition_insert();
+
+CREATE TRIGGER device_command_history_partition
+BEFORE INSERT ON device_command_history
+FOR EACH ROW EXECUTE PROCEDURE message_history_partition_insert();
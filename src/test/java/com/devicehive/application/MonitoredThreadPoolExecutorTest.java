@@ -0,0 +1,62 @@
+package com.devicehive.application;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MonitoredThreadPoolExecutorTest {
+
+    @Test
+    public void should_count_rejected_tasks() throws InterruptedException {
+        MonitoredThreadPoolExecutor executor = new MonitoredThreadPoolExecutor("test", 1, 1,
+                new ThreadPoolExecutor.AbortPolicy());
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.execute(() -> await(release));
+            executor.execute(() -> { });
+            try {
+                executor.execute(() -> { });
+                fail("Task should be rejected");
+            } catch (RejectedExecutionException e) {
+                assertEquals(1, executor.getRejectedCount());
+            }
+            assertEquals(1, executor.getQueue().size());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void should_run_rejected_task_in_caller_thread() throws InterruptedException {
+        MonitoredThreadPoolExecutor executor = new MonitoredThreadPoolExecutor("test", 1, 0,
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.execute(() -> await(release));
+            Thread[] runner = new Thread[1];
+            executor.execute(() -> runner[0] = Thread.currentThread());
+            assertEquals(Thread.currentThread(), runner[0]);
+            assertEquals(1, executor.getRejectedCount());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.devicehive.application.kafka;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class KeyedWorkerPoolTest {
+
+    private KeyedWorkerPool pool;
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void should_process_tasks_with_same_key_in_order_by_same_thread() throws InterruptedException {
+        pool = new KeyedWorkerPool("test", 4, 10);
+        Map<String, List<Integer>> processed = new ConcurrentHashMap<>();
+        Map<String, String> threads = new ConcurrentHashMap<>();
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            String key = "device-" + i;
+            keys.add(key);
+            processed.put(key, Collections.synchronizedList(new ArrayList<>()));
+        }
+        CountDownLatch done = new CountDownLatch(8 * 100);
+        for (int i = 0; i < 100; i++) {
+            for (String key : keys) {
+                int value = i;
+                pool.execute(key, () -> {
+                    String previous = threads.putIfAbsent(key, Thread.currentThread().getName());
+                    if (previous == null || previous.equals(Thread.currentThread().getName())) {
+                        processed.get(key).add(value);
+                    }
+                    done.countDown();
+                });
+            }
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        for (String key : keys) {
+            List<Integer> values = processed.get(key);
+            assertEquals(100, values.size());
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, values.get(i).intValue());
+            }
+        }
+    }
+
+    @Test
+    public void should_block_submitter_when_worker_queue_is_full() throws InterruptedException {
+        pool = new KeyedWorkerPool("test", 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch submitted = new CountDownLatch(1);
+        pool.execute("key", () -> await(release));
+        pool.execute("key", () -> { });
+
+        Thread submitter = new Thread(() -> {
+            pool.execute("key", () -> { });
+            submitted.countDown();
+        });
+        submitter.start();
+        assertFalse(submitted.await(200, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        assertTrue(submitted.await(5, TimeUnit.SECONDS));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.devicehive.auth;
+
+import com.devicehive.model.AccessKey;
+import com.devicehive.model.AccessKeyPermission;
+import com.devicehive.model.AvailableActions;
+import com.devicehive.model.User;
+import com.devicehive.model.enums.UserRole;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class CompiledPermissionTest {
+
+    @Test
+    public void should_not_restrict_by_missing_fields() throws Exception {
+        CompiledPermission compiled = new AccessKeyPermission().getCompiled();
+
+        assertTrue(compiled.allowsAction(AccessKeyAction.GET_DEVICE, false));
+        assertFalse(compiled.allowsAction(AccessKeyAction.MANAGE_USER, false));
+        assertTrue(compiled.allowsAction(AccessKeyAction.MANAGE_USER, true));
+        assertTrue(compiled.allowsAddress(InetAddress.getByName("10.0.0.1")));
+        assertTrue(compiled.allowsDomain("devicehive.com"));
+        assertTrue(compiled.allowsNetwork(1L));
+        assertTrue(compiled.allowsDevice("any"));
+        assertFalse(compiled.isNetworkRestricted());
+        assertFalse(compiled.isDeviceRestricted());
+    }
+
+    @Test
+    public void should_check_compiled_restrictions() throws Exception {
+        AccessKeyPermission permission = new AccessKeyPermission();
+        permission.setActionsArray(AvailableActions.GET_DEVICE, "getdevicenotification", AvailableActions.MANAGE_USER);
+        permission.setSubnetsArray("192.168.1.0/24", "10.0.0.1");
+        permission.setDomainArray(".devicehive.com");
+        permission.setNetworkIdsCollection(Arrays.asList(7L, 3L, 5L));
+        permission.setDeviceGuidsCollection(Collections.singleton("device"));
+        CompiledPermission compiled = permission.getCompiled();
+
+        assertTrue(compiled.allowsAction(AccessKeyAction.GET_DEVICE, false));
+        assertTrue(compiled.allowsAction(AccessKeyAction.GET_DEVICE_NOTIFICATION, false));
+        assertFalse(compiled.allowsAction(AccessKeyAction.GET_NETWORK, true));
+        assertFalse(compiled.allowsAction(AccessKeyAction.MANAGE_USER, false));
+        assertTrue(compiled.allowsAction(AccessKeyAction.MANAGE_USER, true));
+
+        assertTrue(compiled.allowsAddress(InetAddress.getByName("192.168.1.200")));
+        assertTrue(compiled.allowsAddress(InetAddress.getByName("10.0.0.1")));
+        assertFalse(compiled.allowsAddress(InetAddress.getByName("10.0.0.2")));
+
+        assertTrue(compiled.allowsDomain("www.devicehive.com"));
+        assertFalse(compiled.allowsDomain("example.com"));
+
+        assertTrue(compiled.allowsNetwork(3L));
+        assertTrue(compiled.allowsNetwork(7L));
+        assertFalse(compiled.allowsNetwork(4L));
+        assertFalse(compiled.allowsNetwork(null));
+        assertTrue(compiled.allowsDevice("device"));
+        assertFalse(compiled.allowsDevice("other"));
+        assertFalse(compiled.allowsNoNetworks());
+        assertFalse(compiled.allowsNoDevices());
+
+        assertSame(compiled, permission.getCompiled());
+        permission.setNetworkIdsCollection(Collections.<Long>emptySet());
+        assertNotSame(compiled, permission.getCompiled());
+        assertTrue(permission.getCompiled().allowsNoNetworks());
+    }
+
+    @Test
+    public void should_filter_permissions_by_compiled_restrictions() throws Exception {
+        User user = new User();
+        user.setRole(UserRole.CLIENT);
+        AccessKey key = new AccessKey();
+        key.setUser(user);
+
+        AccessKeyPermission manageUsers = new AccessKeyPermission();
+        manageUsers.setAccessKey(key);
+        manageUsers.setActionsArray(AvailableActions.MANAGE_USER);
+        AccessKeyPermission fromSubnet = new AccessKeyPermission();
+        fromSubnet.setAccessKey(key);
+        fromSubnet.setSubnetsArray("10.0.0.0/8");
+        AccessKeyPermission noDevices = new AccessKeyPermission();
+        noDevices.setAccessKey(key);
+        noDevices.setDeviceGuidsCollection(Collections.<String>emptySet());
+        Set<AccessKeyPermission> permissions = new HashSet<>(Arrays.asList(manageUsers, fromSubnet, noDevices));
+
+        assertEquals(Collections.singleton(fromSubnet), CheckPermissionsHelper.filterPermissions(permissions,
+                AccessKeyAction.GET_DEVICE, InetAddress.getByName("10.1.2.3"), null));
+        assertTrue(CheckPermissionsHelper.filterPermissions(permissions, AccessKeyAction.MANAGE_USER,
+                InetAddress.getByName("10.1.2.3"), null).isEmpty());
+        assertEquals(3, permissions.size());
+    }
+}
@@ -0,0 +1,72 @@
+package com.devicehive.auth;
+
+import com.devicehive.model.Subnet;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SubnetMatcherTest {
+
+    @Test
+    public void should_match_ipv4_and_ipv6_subnets() throws Exception {
+        SubnetMatcher matcher = SubnetMatcher.of(Arrays.asList(new Subnet("192.168.1.0/24"),
+                new Subnet("192.168.0.0/16"), new Subnet("10.0.0.1"), new Subnet("2001:db8::/32"),
+                new Subnet("fe80::1")));
+
+        assertTrue(matcher.matches(InetAddress.getByName("192.168.200.1")));
+        assertTrue(matcher.matches(InetAddress.getByName("192.168.0.0")));
+        assertTrue(matcher.matches(InetAddress.getByName("192.168.255.255")));
+        assertFalse(matcher.matches(InetAddress.getByName("192.169.0.0")));
+        assertTrue(matcher.matches(InetAddress.getByName("10.0.0.1")));
+        assertFalse(matcher.matches(InetAddress.getByName("10.0.0.2")));
+
+        assertTrue(matcher.matches(InetAddress.getByName("2001:db8:ffff::1")));
+        assertFalse(matcher.matches(InetAddress.getByName("2001:db9::1")));
+        assertTrue(matcher.matches(InetAddress.getByName("fe80::1")));
+        assertFalse(matcher.matches(InetAddress.getByName("fe80::2")));
+        assertFalse(matcher.matches(InetAddress.getByName("::1")));
+    }
+
+    @Test
+    public void should_match_any_address_of_family_with_zero_prefix() throws Exception {
+        SubnetMatcher v4 = SubnetMatcher.of(Collections.singleton(new Subnet("0.0.0.0/0")));
+        assertTrue(v4.matches(InetAddress.getByName("255.255.255.255")));
+        assertFalse(v4.matches(InetAddress.getByName("::1")));
+
+        SubnetMatcher v6 = SubnetMatcher.of(Collections.singleton(new Subnet("::/0")));
+        assertTrue(v6.matches(InetAddress.getByName("ffff:ffff:ffff:ffff:ffff:ffff:ffff:ffff")));
+        assertFalse(v6.matches(InetAddress.getByName("127.0.0.1")));
+
+        assertTrue(SubnetMatcher.of(Collections.<Subnet>emptySet()).isEmpty());
+        assertFalse(SubnetMatcher.of(Collections.<Subnet>emptySet()).matches(InetAddress.getByName("127.0.0.1")));
+    }
+
+    @Test
+    public void should_give_same_result_as_checking_every_subnet() throws Exception {
+        Random random = new Random(7);
+        for (int round = 0; round < 50; round++) {
+            List<Subnet> subnets = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                subnets.add(random.nextBoolean()
+                        ? new Subnet("10." + random.nextInt(4) + "." + random.nextInt(256) + ".0/" + (8 + random.nextInt(25)))
+                        : new Subnet("2001:db8:" + Integer.toHexString(random.nextInt(4)) + "::/" + (32 + random.nextInt(97))));
+            }
+            SubnetMatcher matcher = SubnetMatcher.of(subnets);
+            for (int i = 0; i < 200; i++) {
+                InetAddress address = random.nextBoolean()
+                        ? InetAddress.getByName("10." + random.nextInt(4) + "." + random.nextInt(256) + "." + random.nextInt(256))
+                        : InetAddress.getByName("2001:db8:" + Integer.toHexString(random.nextInt(4)) + "::"
+                        + Integer.toHexString(random.nextInt(65536)));
+                boolean expected = subnets.stream().anyMatch(subnet -> subnet.isAddressFromSubnet(address));
+                assertEquals(subnets + " " + address, expected, matcher.matches(address));
+            }
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.devicehive.json.GsonFactory;
 import com.devicehive.resource.converters.CollectionProvider;
 import com.devicehive.resource.converters.HiveEntityProvider;
 import com.devicehive.service.AbstractHazelcastEntityService;
+import com.devicehive.service.store.RingBufferMessageStore;
 import com.google.gson.Gson;
 import com.hazelcast.core.HazelcastInstance;
 import org.apache.commons.lang3.StringUtils;
@@ -75,6 +76,8 @@ public abstract class AbstractResourceTest {
     public void clearHZ() {
         hzInstance.getMap(AbstractHazelcastEntityService.COMMANDS_MAP).clear();
         hzInstance.getMap(AbstractHazelcastEntityService.NOTIFICATIONS_MAP).clear();
+        hzInstance.getMap(RingBufferMessageStore.COMMANDS_BUFFERS).clear();
+        hzInstance.getMap(RingBufferMessageStore.NOTIFICATIONS_BUFFERS).clear();
     }
 
     protected WebTarget target() {
@@ -10,6 +10,7 @@ import com.devicehive.model.DeviceNotification;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 
 public class TestKafkaProducer implements KafkaProducer {
@@ -28,17 +29,17 @@ public class TestKafkaProducer implements KafkaProducer {
     private ExecutorService executorService;
 
     @Override
-    public void produceDeviceNotificationMsg(DeviceNotification message, String topicName) {
-        executorService.submit(() -> notificationConsumer.submitMessage(message));
+    public CompletableFuture<Void> produceDeviceNotificationMsg(DeviceNotification message, String topicName) {
+        return CompletableFuture.runAsync(() -> notificationConsumer.submitMessage(message), executorService);
     }
 
     @Override
-    public void produceDeviceCommandMsg(DeviceCommand message, String topicName) {
-        executorService.submit(() -> commandConsumer.submitMessage(message));
+    public CompletableFuture<Void> produceDeviceCommandMsg(DeviceCommand message, String topicName) {
+        return CompletableFuture.runAsync(() -> commandConsumer.submitMessage(message), executorService);
     }
 
     @Override
-    public void produceDeviceCommandUpdateMsg(DeviceCommand message, String topicName) {
-        executorService.submit(() -> commandUpdateConsumer.submitMessage(message));
+    public CompletableFuture<Void> produceDeviceCommandUpdateMsg(DeviceCommand message, String topicName) {
+        return CompletableFuture.runAsync(() -> commandUpdateConsumer.submitMessage(message), executorService);
     }
 }
@@ -0,0 +1,27 @@
+package com.devicehive.json.adapters;
+
+import com.devicehive.model.JsonStringWrapper;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class JsonStringWrapperAdapterFactoryTest {
+
+    @Test
+    public void should_write_same_json_as_element_tree() {
+        Gson gson = new GsonBuilder()
+                .disableHtmlEscaping()
+                .serializeNulls()
+                .registerTypeAdapterFactory(new JsonStringWrapperAdapterFactory())
+                .create();
+        Gson treeGson = new GsonBuilder().disableHtmlEscaping().serializeNulls().create();
+        for (String json : new String[]{"{\"a\":[1,2.50,-3e2,true,null,\"s\\\"\"],\"b\":{}}", "[]", "\"text\"", "12",
+                "12345678901234567890.5", "null", "", "{unquoted:'single'}"}) {
+            String tree = treeGson.toJson(new JsonParser().parse(json));
+            assertEquals(json, tree, gson.toJson(new JsonStringWrapper(json)));
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.devicehive.json.adapters;
+
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class TimestampAdapterTest {
+
+    @Test
+    public void should_format_timestamp_as_joda_formatter() {
+        DateTimeFormatter formatter = DateTimeFormat.forPattern("yyyy-MM-dd'T'HH:mm:ss.SSS").withZoneUTC();
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            long millis = random.nextLong() % 300000000000000L;
+            assertEquals(formatter.print(millis), TimestampAdapter.formatTimestamp(millis));
+        }
+        assertEquals("1970-01-01T00:00:00.000", TimestampAdapter.formatTimestamp(0));
+        assertEquals("1969-12-31T23:59:59.999", TimestampAdapter.formatTimestamp(-1));
+    }
+}
@@ -0,0 +1,122 @@
+package com.devicehive.messages.kafka;
+
+import com.devicehive.configuration.Constants;
+import com.devicehive.model.DeviceNotification;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DefaultKafkaProducerTest {
+    private static final String DEVICE_GUID = "Test_device_guid";
+
+    @Mock
+    private Producer<String, DeviceNotification> notificationProducer;
+
+    @Mock
+    private ExecutorService executorService;
+
+    @InjectMocks
+    private DefaultKafkaProducer producer;
+
+    private DeviceNotification notification;
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(producer, "notificationProducer", notificationProducer);
+        ReflectionTestUtils.setField(producer, "deadLetterExecutor", executorService);
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArguments()[0]).run();
+            return null;
+        }).when(executorService).execute(any(Runnable.class));
+
+        notification = new DeviceNotification();
+        notification.setDeviceGuid(DEVICE_GUID);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_complete_future_on_acknowledgment() {
+        CompletableFuture<Void> future = producer.produceDeviceNotificationMsg(notification, Constants.NOTIFICATION_TOPIC_NAME);
+        assertFalse(future.isDone());
+
+        ArgumentCaptor<ProducerRecord> record = ArgumentCaptor.forClass(ProducerRecord.class);
+        ArgumentCaptor<Callback> callback = ArgumentCaptor.forClass(Callback.class);
+        verify(notificationProducer).send(record.capture(), callback.capture());
+        assertEquals(DEVICE_GUID, record.getValue().key());
+
+        callback.getValue().onCompletion(new RecordMetadata(new TopicPartition(Constants.NOTIFICATION_TOPIC_NAME, 0), 0, 0), null);
+        assertTrue(future.isDone());
+        assertFalse(future.isCompletedExceptionally());
+        assertEquals(1, producer.getSent());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_send_failed_message_to_dead_letter_topic() {
+        ReflectionTestUtils.setField(producer, "deadLetterSuffix", "_dead_letter");
+        CompletableFuture<Void> future = producer.produceDeviceNotificationMsg(notification, Constants.NOTIFICATION_TOPIC_NAME);
+
+        ArgumentCaptor<Callback> callback = ArgumentCaptor.forClass(Callback.class);
+        verify(notificationProducer).send(any(ProducerRecord.class), callback.capture());
+        callback.getValue().onCompletion(null, new TimeoutException("timeout"));
+
+        assertTrue(future.isCompletedExceptionally());
+        assertEquals(1, producer.getFailed());
+        ArgumentCaptor<ProducerRecord> record = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(notificationProducer, times(2)).send(record.capture(), callback.capture());
+        assertEquals(Constants.NOTIFICATION_TOPIC_NAME + "_dead_letter", record.getValue().topic());
+        assertEquals(notification, record.getValue().value());
+
+        callback.getValue().onCompletion(null, null);
+        assertEquals(1, producer.getDeadLettered());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_count_dead_letter_as_lost_if_queue_is_full() {
+        ReflectionTestUtils.setField(producer, "deadLetterSuffix", "_dead_letter");
+        doThrow(new RejectedExecutionException("full")).when(executorService).execute(any(Runnable.class));
+        producer.produceDeviceNotificationMsg(notification, Constants.NOTIFICATION_TOPIC_NAME);
+
+        ArgumentCaptor<Callback> callback = ArgumentCaptor.forClass(Callback.class);
+        verify(notificationProducer).send(any(ProducerRecord.class), callback.capture());
+        callback.getValue().onCompletion(null, new TimeoutException("timeout"));
+
+        assertEquals(1, producer.getLost());
+        verify(notificationProducer, times(1)).send(any(ProducerRecord.class), any(Callback.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_fail_future_if_send_throws() {
+        when(notificationProducer.send(any(ProducerRecord.class), any(Callback.class)))
+                .thenThrow(new IllegalStateException("closed"));
+
+        CompletableFuture<Void> future = producer.produceDeviceNotificationMsg(notification, Constants.NOTIFICATION_TOPIC_NAME);
+
+        assertTrue(future.isCompletedExceptionally());
+        assertEquals(1, producer.getFailed());
+    }
+}
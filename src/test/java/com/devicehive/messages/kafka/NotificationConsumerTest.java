@@ -0,0 +1,103 @@
+package com.devicehive.messages.kafka;
+
+import com.devicehive.auth.HivePrincipal;
+import com.devicehive.configuration.Constants;
+import com.devicehive.messages.handler.HandlerCreator;
+import com.devicehive.messages.subscriptions.NotificationSubscription;
+import com.devicehive.messages.subscriptions.NotificationSubscriptionStorage;
+import com.devicehive.messages.subscriptions.SubscriptionManager;
+import com.devicehive.model.DeviceNotification;
+import com.devicehive.service.DeviceAccessCache;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class NotificationConsumerTest {
+    private static final String DEVICE_GUID = "Test_device_guid";
+
+    @Mock
+    private SubscriptionManager subscriptionManager;
+
+    @Mock
+    private DeviceAccessCache deviceAccessCache;
+
+    @Mock
+    private ExecutorService mes;
+
+    @Mock
+    private HandlerCreator<DeviceNotification> handlerCreator;
+
+    @InjectMocks
+    private NotificationConsumer consumer;
+
+    private NotificationSubscriptionStorage storage;
+
+    @Before
+    public void setUp() {
+        storage = new NotificationSubscriptionStorage();
+        when(subscriptionManager.getNotificationSubscriptionStorage()).thenReturn(storage);
+        when(deviceAccessCache.hasAccessTo(any(HivePrincipal.class), anyString())).thenReturn(true);
+    }
+
+    @Test
+    public void should_submit_single_task_per_subscriber() {
+        UUID subId = UUID.randomUUID();
+        storage.insert(new NotificationSubscription(new HivePrincipal(), DEVICE_GUID, subId, null, handlerCreator));
+        storage.insert(new NotificationSubscription(new HivePrincipal(), Constants.NULL_SUBSTITUTE, subId, null, handlerCreator));
+
+        List<DeviceNotification> batch = Arrays.asList(notification("first"), notification("second"), notification("third"));
+        consumer.submitMessages(batch);
+
+        verify(handlerCreator, times(1)).getHandler(eq(batch), eq(subId));
+        verify(handlerCreator, never()).getHandler(any(DeviceNotification.class), any(UUID.class));
+        verify(mes, times(1)).execute(any(Runnable.class));
+    }
+
+    @Test
+    public void should_skip_not_matching_notifications() {
+        UUID subId = UUID.randomUUID();
+        storage.insert(new NotificationSubscription(new HivePrincipal(), DEVICE_GUID, subId, "second", handlerCreator));
+
+        consumer.submitMessages(Arrays.asList(notification("first"), notification("second")));
+
+        verify(handlerCreator).getHandler(eq(Arrays.asList(notification("second"))), eq(subId));
+        verify(mes, times(1)).execute(any(Runnable.class));
+    }
+
+    @Test
+    public void should_run_blocking_handlers_by_message_executor() {
+        @SuppressWarnings("unchecked")
+        HandlerCreator<DeviceNotification> restHandlerCreator = mock(HandlerCreator.class);
+        when(restHandlerCreator.isBlocking()).thenReturn(true);
+        storage.insert(new NotificationSubscription(new HivePrincipal(), DEVICE_GUID, UUID.randomUUID(), null, handlerCreator));
+        storage.insert(new NotificationSubscription(new HivePrincipal(), DEVICE_GUID, UUID.randomUUID(), null, restHandlerCreator));
+        Executor worker = mock(Executor.class);
+
+        consumer.submitMessages(Arrays.asList(notification("first")), worker);
+
+        verify(worker, times(1)).execute(any(Runnable.class));
+        verify(mes, times(1)).execute(any(Runnable.class));
+    }
+
+    private static DeviceNotification notification(String name) {
+        DeviceNotification notification = new DeviceNotification();
+        notification.setDeviceGuid(DEVICE_GUID);
+        notification.setNotification(name);
+        return notification;
+    }
+}
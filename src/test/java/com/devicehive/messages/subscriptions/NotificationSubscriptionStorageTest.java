@@ -0,0 +1,65 @@
+package com.devicehive.messages.subscriptions;
+
+import com.devicehive.auth.HivePrincipal;
+import com.devicehive.configuration.Constants;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.Assert.assertThat;
+
+public class NotificationSubscriptionStorageTest {
+    private static final String GUID = "test-device-guid";
+
+    private NotificationSubscriptionStorage storage;
+
+    @Before
+    public void setUp() {
+        storage = new NotificationSubscriptionStorage();
+    }
+
+    @Test
+    public void should_match_exact_names_only() {
+        NotificationSubscription temperature = subscription(GUID, "temperature, humidity");
+        NotificationSubscription all = subscription(GUID, null);
+        storage.insert(temperature);
+        storage.insert(all);
+
+        assertThat(storage.getByDeviceGuidAndName(GUID, "humidity"), containsInAnyOrder(temperature, all));
+        assertThat(storage.getByDeviceGuidAndName(GUID, "temp"), containsInAnyOrder(all));
+        assertThat(storage.getByDeviceGuidAndName("other", "humidity"), empty());
+    }
+
+    @Test
+    public void should_keep_wildcard_device_tier_separate() {
+        NotificationSubscription forAllDevices = subscription(Constants.NULL_SUBSTITUTE, "alarm");
+        storage.insert(forAllDevices);
+
+        assertThat(storage.getByDeviceGuidAndName(GUID, "alarm"), empty());
+        assertThat(storage.getByDeviceGuidAndName(Constants.NULL_SUBSTITUTE, "alarm"), containsInAnyOrder(forAllDevices));
+    }
+
+    @Test
+    public void should_clean_index_on_remove() {
+        NotificationSubscription first = subscription(GUID, "alarm");
+        NotificationSubscription second = subscription(GUID, null);
+        storage.insert(first);
+        storage.insert(second);
+
+        storage.removeBySubscriptionId(first.getSubscriptionId());
+        assertThat(storage.getByDeviceGuidAndName(GUID, "alarm"), containsInAnyOrder(second));
+
+        storage.removeByDevice(GUID);
+        Set<NotificationSubscription> left = storage.getByDeviceGuidAndName(GUID, "alarm");
+        assertThat(left, empty());
+        assertThat(storage.getByDeviceGuid(GUID), empty());
+    }
+
+    private static NotificationSubscription subscription(String guid, String names) {
+        return new NotificationSubscription(new HivePrincipal(), guid, UUID.randomUUID(), names, null);
+    }
+}
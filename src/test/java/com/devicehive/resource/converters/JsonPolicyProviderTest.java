@@ -0,0 +1,81 @@
+package com.devicehive.resource.converters;
+
+import com.devicehive.json.GsonFactory;
+import com.devicehive.json.strategies.JsonPolicyApply;
+import com.devicehive.json.strategies.JsonPolicyDef;
+import com.devicehive.model.DeviceNotification;
+import com.devicehive.model.JsonStringWrapper;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.UriInfo;
+import java.io.ByteArrayOutputStream;
+import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class JsonPolicyProviderTest {
+    private static final JsonPolicyDef.Policy POLICY = JsonPolicyDef.Policy.NOTIFICATION_TO_CLIENT;
+    private static final Annotation[] ANNOTATIONS = {new JsonPolicyApply.JsonPolicyApplyLiteral(POLICY)};
+
+    @Test
+    public void should_stream_collection_same_as_json_tree() throws Exception {
+        List<DeviceNotification> notifications = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            notifications.add(notification(i));
+        }
+        notifications.add(null);
+
+        String streamed = write(new CollectionProvider(), notifications);
+
+        Gson gson = GsonFactory.createGson(POLICY);
+        assertEquals(gson.toJson(gson.toJsonTree(notifications)), streamed);
+        assertFalse(streamed.contains("\n"));
+    }
+
+    @Test
+    public void should_pretty_print_on_request() throws Exception {
+        HiveEntityProvider provider = new HiveEntityProvider();
+        UriInfo uriInfo = mock(UriInfo.class);
+        MultivaluedMap<String, String> parameters = new MultivaluedHashMap<>();
+        parameters.putSingle("pretty", "true");
+        when(uriInfo.getQueryParameters()).thenReturn(parameters);
+        ReflectionTestUtils.setField(provider, "uriInfo", uriInfo);
+
+        String pretty = write(provider, notification(1));
+        assertTrue(pretty.contains("\n  \"notification\": \"name1\""));
+        Gson gson = GsonFactory.createGson(POLICY);
+        assertEquals(gson.toJsonTree(notification(1)), gson.fromJson(pretty, JsonElement.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> String write(JsonPolicyProvider<T> provider, Object entity) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        provider.writeTo((T) entity, entity.getClass(), entity.getClass(), ANNOTATIONS,
+                MediaType.APPLICATION_JSON_TYPE, new MultivaluedHashMap<>(), out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static DeviceNotification notification(int i) {
+        DeviceNotification notification = new DeviceNotification();
+        notification.setId(i);
+        notification.setNotification("name" + i);
+        notification.setDeviceGuid("guid");
+        notification.setTimestamp(new Date(1000L * i));
+        notification.setParameters(new JsonStringWrapper("{\"param\":" + i + "}"));
+        return notification;
+    }
+}
@@ -0,0 +1,91 @@
+package com.devicehive.resource.util;
+
+import com.devicehive.auth.HivePrincipal;
+import com.devicehive.messages.handler.HandlerCreator;
+import com.devicehive.messages.subscriptions.NotificationSubscription;
+import com.devicehive.messages.subscriptions.NotificationSubscriptionStorage;
+import com.devicehive.model.DeviceNotification;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.CompletionCallback;
+import javax.ws.rs.core.Response;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LongPollRegistryTest {
+    private static final String DEVICE_GUID = "Test_device_guid";
+
+    @Mock
+    private AsyncResponse asyncResponse;
+
+    @Mock
+    private HandlerCreator<DeviceNotification> handlerCreator;
+
+    private LongPollRegistry registry;
+    private NotificationSubscriptionStorage storage;
+    private List<NotificationSubscription> subscriptions;
+
+    @Before
+    public void setUp() {
+        registry = new LongPollRegistry();
+        ReflectionTestUtils.setField(registry, "executor", MoreExecutors.sameThreadExecutor());
+        ReflectionTestUtils.setField(registry, "tickMs", 10L);
+        ReflectionTestUtils.setField(registry, "wheelSize", 16);
+        registry.init();
+
+        storage = new NotificationSubscriptionStorage();
+        UUID subId = UUID.randomUUID();
+        subscriptions = Arrays.asList(
+                new NotificationSubscription(new HivePrincipal(), DEVICE_GUID, subId, null, handlerCreator),
+                new NotificationSubscription(new HivePrincipal(), "other_guid", subId, null, handlerCreator));
+    }
+
+    @After
+    public void tearDown() {
+        registry.shutdown();
+    }
+
+    @Test
+    public void should_remove_subscriptions_when_request_is_completed() {
+        registry.park(asyncResponse, storage, subscriptions, 60, () -> Response.noContent().build());
+
+        assertEquals(1, storage.getByDeviceGuid(DEVICE_GUID).size());
+        assertEquals(1, registry.getParked());
+
+        ArgumentCaptor<CompletionCallback> callback = ArgumentCaptor.forClass(CompletionCallback.class);
+        verify(asyncResponse).register(callback.capture());
+        callback.getValue().onComplete(null);
+
+        assertTrue(storage.getByDeviceGuid(DEVICE_GUID).isEmpty());
+        assertTrue(storage.getByDeviceGuid("other_guid").isEmpty());
+        assertEquals(0, registry.getParked());
+    }
+
+    @Test
+    public void should_resume_request_on_timeout() {
+        Response timeoutResponse = Response.noContent().build();
+        when(asyncResponse.resume(any(Response.class))).thenReturn(true);
+
+        registry.park(asyncResponse, storage, subscriptions, 0, () -> timeoutResponse);
+
+        verify(asyncResponse, timeout(5000)).resume(timeoutResponse);
+        assertTrue(storage.getByDeviceGuid(DEVICE_GUID).isEmpty());
+        assertEquals(0, registry.getParked());
+    }
+}
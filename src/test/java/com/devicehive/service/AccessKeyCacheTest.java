@@ -0,0 +1,147 @@
+package com.devicehive.service;
+
+import com.devicehive.configuration.ConfigurationService;
+import com.devicehive.configuration.Constants;
+import com.devicehive.model.AccessKey;
+import com.devicehive.model.User;
+import com.devicehive.model.enums.AccessKeyType;
+import com.devicehive.service.time.TimestampService;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.query.Predicate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AccessKeyCacheTest {
+    private static final String KEY = "Test_access_key";
+    private static final long SESSION_TIMEOUT = 1200000L;
+
+    @Mock
+    private AccessKeyService accessKeyService;
+
+    @Mock
+    private ConfigurationService configurationService;
+
+    @Mock
+    private TimestampService timestampService;
+
+    @Mock
+    private HazelcastInstance hazelcastInstance;
+
+    @Mock
+    private IMap<Object, Object> keys;
+
+    @InjectMocks
+    private AccessKeyCache accessKeyCache;
+
+    private Date now;
+
+    @Before
+    public void setUp() {
+        when(hazelcastInstance.getMap(anyString())).thenReturn(keys);
+        now = new Date();
+        when(timestampService.getTimestamp()).thenReturn(now);
+        when(configurationService.getLong(Constants.SESSION_TIMEOUT, Constants.DEFAULT_SESSION_TIMEOUT))
+                .thenReturn(SESSION_TIMEOUT);
+        ReflectionTestUtils.setField(accessKeyCache, "enabled", true);
+        ReflectionTestUtils.setField(accessKeyCache, "ttlSec", 60L);
+        ReflectionTestUtils.setField(accessKeyCache, "flushMs", 60000L);
+        accessKeyCache.init();
+    }
+
+    @After
+    public void tearDown() {
+        accessKeyCache.shutdown();
+    }
+
+    @Test
+    public void should_load_access_key_once() {
+        AccessKey accessKey = accessKey(AccessKeyType.DEFAULT, null);
+        when(accessKeyService.authenticate(KEY)).thenReturn(accessKey);
+
+        assertSame(accessKey, accessKeyCache.authenticate(KEY));
+        ArgumentCaptor<AccessKeyCache.AuthenticatedKey> cached = ArgumentCaptor.forClass(AccessKeyCache.AuthenticatedKey.class);
+        verify(keys).set(eq(AccessKeyCache.hashOf(KEY)), cached.capture(), eq(60L), eq(TimeUnit.SECONDS));
+        assertEquals(Long.valueOf(2L), cached.getValue().getUserId());
+        assertEquals(Long.valueOf(1L), cached.getValue().getAccessKeyId());
+
+        when(keys.get(AccessKeyCache.hashOf(KEY))).thenReturn(cached.getValue());
+        AccessKey authenticated = accessKeyCache.authenticate(KEY);
+        assertEquals(KEY, authenticated.getKey());
+        assertEquals(Long.valueOf(1L), authenticated.getId());
+        assertEquals(Long.valueOf(2L), authenticated.getUser().getId());
+        verify(accessKeyService, times(1)).authenticate(KEY);
+    }
+
+    @Test
+    public void should_not_cache_unknown_access_key() {
+        assertNull(accessKeyCache.authenticate(KEY));
+        verify(keys, never()).set(any(), any(), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    public void should_extend_session_in_cache_and_write_it_in_background() {
+        Date expiration = new Date(now.getTime() + SESSION_TIMEOUT / 4);
+        AccessKey accessKey = accessKey(AccessKeyType.SESSION, expiration);
+        when(keys.get(AccessKeyCache.hashOf(KEY))).thenReturn(new AccessKeyCache.AuthenticatedKey(accessKey, SESSION_TIMEOUT));
+
+        AccessKey authenticated = accessKeyCache.authenticate(KEY);
+        Date extended = new Date(now.getTime() + SESSION_TIMEOUT);
+        assertEquals(extended, authenticated.getExpirationDate());
+        verify(keys).set(eq(AccessKeyCache.hashOf(KEY)), any(), eq(60L), eq(TimeUnit.SECONDS));
+        verify(accessKeyService, never()).authenticate(anyString());
+        verify(accessKeyService, never()).extendExpiration(anyMapOf(Long.class, Date.class));
+
+        accessKeyCache.flush();
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<Long, Date>> batch = ArgumentCaptor.forClass((Class) Map.class);
+        verify(accessKeyService).extendExpiration(batch.capture());
+        assertEquals(extended, batch.getValue().get(1L));
+
+        accessKeyCache.flush();
+        verify(accessKeyService, times(1)).extendExpiration(anyMapOf(Long.class, Date.class));
+    }
+
+    @Test
+    public void should_drop_access_keys_of_user() {
+        when(keys.keySet(any(Predicate.class))).thenReturn(new HashSet<>(Arrays.asList(KEY, "other_key")));
+
+        accessKeyCache.invalidateUser(2L);
+        verify(keys).delete(KEY);
+        verify(keys).delete("other_key");
+    }
+
+    private static AccessKey accessKey(AccessKeyType type, Date expirationDate) {
+        User user = new User();
+        user.setId(2L);
+        AccessKey accessKey = new AccessKey();
+        accessKey.setId(1L);
+        accessKey.setKey(KEY);
+        accessKey.setUser(user);
+        accessKey.setType(type);
+        accessKey.setExpirationDate(expirationDate);
+        return accessKey;
+    }
+}
@@ -15,6 +15,8 @@ import com.devicehive.model.enums.UserRole;
 import com.devicehive.model.updates.AccessKeyUpdate;
 import com.devicehive.model.updates.DeviceClassUpdate;
 import com.devicehive.model.updates.DeviceUpdate;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.Ignore;
 import org.junit.Rule;
@@ -46,6 +48,10 @@ public class AccessKeyServiceTest extends AbstractResourceTest {
     private DeviceService deviceService;
     @Autowired
     private GenericDAO genericDAO;
+    @Autowired
+    private AccessKeyCache accessKeyCache;
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
 
     @Rule
     public ExpectedException expectedException = ExpectedException.none();
@@ -246,6 +252,69 @@ public class AccessKeyServiceTest extends AbstractResourceTest {
         assertThat(authenticated.getExpirationDate().getTime(), equalTo(initial.getTime()));
     }
 
+    @Test
+    public void should_extend_expiration_but_never_move_it_back() throws Exception {
+        User user = new User();
+        user.setLogin(RandomStringUtils.randomAlphabetic(10));
+        user = userService.createUser(user, "123");
+
+        AccessKey accessKey = new AccessKey();
+        accessKey.setKey(RandomStringUtils.random(20));
+        accessKey.setLabel(RandomStringUtils.randomAlphabetic(10));
+        accessKey.setPermissions(singleton(new AccessKeyPermission()));
+        accessKey.setType(AccessKeyType.SESSION);
+        accessKey.setExpirationDate(new Date(System.currentTimeMillis() + 60000));
+        accessKey = accessKeyService.create(user, accessKey);
+
+        Date extended = new Date(System.currentTimeMillis() + 600000);
+        accessKeyService.extendExpiration(Collections.singletonMap(accessKey.getId(), extended));
+        assertThat(accessKeyService.find(accessKey.getId(), user.getId()).getExpirationDate().getTime(),
+                equalTo(extended.getTime()));
+
+        accessKeyService.extendExpiration(Collections.singletonMap(accessKey.getId(), new Date()));
+        assertThat(accessKeyService.find(accessKey.getId(), user.getId()).getExpirationDate().getTime(),
+                equalTo(extended.getTime()));
+    }
+
+    @Test
+    public void should_cache_authorization_fields_of_access_key_by_hash_of_key() throws Exception {
+        User user = new User();
+        user.setLogin(RandomStringUtils.randomAlphabetic(10));
+        user = userService.createUser(user, "123");
+
+        AccessKeyPermission permission = new AccessKeyPermission();
+        permission.setActionsArray(AccessKeyAction.GET_DEVICE.getValue());
+        permission.setSubnetsArray("10.0.0.0/8");
+        AccessKey accessKey = new AccessKey();
+        accessKey.setLabel(RandomStringUtils.randomAlphabetic(10));
+        accessKey.setPermissions(singleton(permission));
+        accessKey = accessKeyService.create(user, accessKey);
+        String key = accessKey.getKey();
+
+        assertThat(accessKeyCache.authenticate(key).getId(), equalTo(accessKey.getId()));
+        IMap<String, Object> keys = hazelcastInstance.getMap("AUTHENTICATED-ACCESS-KEYS");
+        assertThat(keys.containsKey(key), is(false));
+        Object cached = keys.get(AccessKeyCache.hashOf(key));
+        assertThat(cached, instanceOf(AccessKeyCache.AuthenticatedKey.class));
+        assertThat(((AccessKeyCache.AuthenticatedKey) cached).getUserId(), equalTo(user.getId()));
+
+        AccessKey authenticated = accessKeyCache.authenticate(key);
+        assertThat(authenticated.getKey(), equalTo(key));
+        assertThat(authenticated.getUser().getId(), equalTo(user.getId()));
+        assertThat(authenticated.getUser().getStatus(), equalTo(user.getStatus()));
+        assertThat(authenticated.getUser().getPasswordHash(), nullValue());
+        assertThat(authenticated.getPermissions(), hasSize(1));
+        AccessKeyPermission cachedPermission = authenticated.getPermissions().iterator().next();
+        assertThat(cachedPermission.getActionsAsSet(), contains(AccessKeyAction.GET_DEVICE.getValue()));
+        assertThat(cachedPermission.getSubnets(), equalTo(permission.getSubnets()));
+
+        AccessKeyUpdate update = new AccessKeyUpdate();
+        update.setExpirationDate(Optional.of(new Date(0)));
+        assertThat(accessKeyService.update(user.getId(), accessKey.getId(), update), is(true));
+        assertThat(keys.containsKey(AccessKeyCache.hashOf(key)), is(false));
+        assertThat(accessKeyCache.authenticate(key).getExpirationDate().getTime(), equalTo(0L));
+    }
+
     @Test
     public void should_just_return_access_key_if_access_key_is_not_of_session_type_when_authenticate() throws Exception {
         configurationService.save(Constants.SESSION_TIMEOUT, 0);
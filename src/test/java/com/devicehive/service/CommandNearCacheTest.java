@@ -0,0 +1,65 @@
+package com.devicehive.service;
+
+import com.devicehive.model.DeviceCommand;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+public class CommandNearCacheTest {
+    private static final String DEVICE_GUID = "near_cache_device";
+
+    private CommandNearCache nearCache;
+
+    @Before
+    public void setUp() {
+        nearCache = new CommandNearCache();
+        ReflectionTestUtils.setField(nearCache, "enabled", true);
+        ReflectionTestUtils.setField(nearCache, "maxSize", 100L);
+        ReflectionTestUtils.setField(nearCache, "ttlSec", 60L);
+        nearCache.init();
+    }
+
+    @Test
+    public void should_return_copy_of_cached_command() {
+        nearCache.put(command(1L, false, "created"));
+
+        DeviceCommand cached = nearCache.get(1L, DEVICE_GUID);
+        assertEquals("created", cached.getStatus());
+        cached.setStatus("modified");
+        assertEquals("created", nearCache.get(1L, DEVICE_GUID).getStatus());
+        assertNull(nearCache.get(1L, "other_device"));
+        assertNull(nearCache.get(2L, DEVICE_GUID));
+    }
+
+    @Test
+    public void should_not_replace_update_with_late_insert() {
+        nearCache.put(command(1L, true, "done"));
+        nearCache.put(command(1L, false, "created"));
+        assertEquals("done", nearCache.get(1L, DEVICE_GUID).getStatus());
+
+        nearCache.put(command(1L, true, "done again"));
+        assertEquals("done again", nearCache.get(1L, DEVICE_GUID).getStatus());
+    }
+
+    @Test
+    public void should_not_cache_when_disabled() {
+        ReflectionTestUtils.setField(nearCache, "enabled", false);
+        nearCache.put(command(1L, false, "created"));
+        assertNull(nearCache.get(1L, DEVICE_GUID));
+        assertEquals(0, nearCache.getStats().requestCount());
+    }
+
+    private static DeviceCommand command(long id, boolean updated, String status) {
+        DeviceCommand command = new DeviceCommand();
+        command.setId(id);
+        command.setDeviceGuid(DEVICE_GUID);
+        command.setTimestamp(new Date());
+        command.setIsUpdated(updated);
+        command.setStatus(status);
+        return command;
+    }
+}
@@ -3,7 +3,9 @@ package com.devicehive.service;
 import com.devicehive.base.AbstractResourceTest;
 import com.devicehive.configuration.ConfigurationService;
 import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import static org.hamcrest.Matchers.equalTo;
@@ -15,6 +17,9 @@ public class ConfigurationServiceTest extends AbstractResourceTest {
     @Autowired
     private ConfigurationService configurationService;
 
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
     @Test
     public void should_save_configuration_property_and_return_by_name() throws Exception {
         String key = RandomStringUtils.randomAlphabetic(10);
@@ -55,4 +60,25 @@ public class ConfigurationServiceTest extends AbstractResourceTest {
         savedVal = configurationService.get(key);
         assertThat(savedVal, nullValue());
     }
+
+    @Test
+    public void should_return_typed_values_of_saved_properties() throws Exception {
+        String key = RandomStringUtils.randomAlphabetic(10);
+        assertThat(configurationService.getLong(key, 5L), equalTo(5L));
+        assertThat(configurationService.getBoolean(key, true), equalTo(true));
+
+        configurationService.save(key, 42);
+        assertThat(configurationService.getLong(key, 5L), equalTo(42L));
+        assertThat(configurationService.getInt(key, 5), equalTo(42));
+        assertThat(configurationService.getBoolean(key, true), equalTo(false));
+
+        configurationService.save(key, "true");
+        assertThat(configurationService.getBoolean(key, false), equalTo(true));
+        assertThat(configurationService.get(key), equalTo("true"));
+
+        configurationService.save(key, Long.MAX_VALUE);
+        assertThat(configurationService.getLong(key, 5L), equalTo(Long.MAX_VALUE));
+        expectedException.expect(NumberFormatException.class);
+        configurationService.getInt(key, 5);
+    }
 }
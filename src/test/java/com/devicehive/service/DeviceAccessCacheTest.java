@@ -0,0 +1,113 @@
+package com.devicehive.service;
+
+import com.devicehive.auth.HivePrincipal;
+import com.devicehive.model.AccessKey;
+import com.devicehive.model.AccessKeyPermission;
+import com.devicehive.model.User;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ITopic;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DeviceAccessCacheTest {
+    private static final String DEVICE_GUID = "Test_device_guid";
+
+    @Mock
+    private DeviceService deviceService;
+
+    @Mock
+    private HazelcastInstance hazelcastInstance;
+
+    @Mock
+    private ITopic<Object> topic;
+
+    @InjectMocks
+    private DeviceAccessCache deviceAccessCache;
+
+    private HivePrincipal principal;
+
+    @Before
+    public void setUp() {
+        when(hazelcastInstance.getTopic(anyString())).thenReturn(topic);
+        ReflectionTestUtils.setField(deviceAccessCache, "maxSize", 100L);
+        ReflectionTestUtils.setField(deviceAccessCache, "ttlSec", 60L);
+        deviceAccessCache.init();
+
+        User user = new User();
+        user.setId(1L);
+        principal = new HivePrincipal(user);
+        when(deviceService.hasAccessTo(any(HivePrincipal.class), anyString())).thenReturn(true);
+    }
+
+    @Test
+    public void should_evaluate_decision_once() {
+        assertTrue(deviceAccessCache.hasAccessTo(principal, DEVICE_GUID));
+        assertTrue(deviceAccessCache.hasAccessTo(principal, DEVICE_GUID));
+
+        verify(deviceService, times(1)).hasAccessTo(principal, DEVICE_GUID);
+        assertEquals(1, deviceAccessCache.getStats().hitCount());
+        assertEquals(1, deviceAccessCache.getStats().missCount());
+    }
+
+    @Test
+    public void should_reevaluate_decision_after_invalidation() {
+        deviceAccessCache.hasAccessTo(principal, DEVICE_GUID);
+        deviceAccessCache.hasAccessTo(principal, "other_guid");
+
+        deviceAccessCache.invalidateDevice(DEVICE_GUID);
+        deviceAccessCache.hasAccessTo(principal, DEVICE_GUID);
+        deviceAccessCache.hasAccessTo(principal, "other_guid");
+        verify(deviceService, times(2)).hasAccessTo(principal, DEVICE_GUID);
+        verify(deviceService, times(1)).hasAccessTo(principal, "other_guid");
+
+        deviceAccessCache.invalidateAll();
+        deviceAccessCache.hasAccessTo(principal, "other_guid");
+        verify(deviceService, times(2)).hasAccessTo(principal, "other_guid");
+        verify(topic, times(2)).publish(any());
+    }
+
+    @Test
+    public void should_not_share_decisions_between_filtered_permissions_of_key() {
+        AccessKey key = new AccessKey();
+        key.setId(10L);
+        AccessKeyPermission notifications = permission(1L);
+        AccessKeyPermission commands = permission(2L);
+
+        key.setPermissions(new HashSet<>(Collections.singleton(notifications)));
+        HivePrincipal fromSubnetA = new HivePrincipal(key);
+        AccessKey sameKey = new AccessKey();
+        sameKey.setId(10L);
+        sameKey.setPermissions(new HashSet<>(Collections.singleton(commands)));
+        HivePrincipal fromSubnetB = new HivePrincipal(sameKey);
+        when(deviceService.hasAccessTo(fromSubnetA, DEVICE_GUID)).thenReturn(true);
+        when(deviceService.hasAccessTo(fromSubnetB, DEVICE_GUID)).thenReturn(false);
+
+        assertTrue(deviceAccessCache.hasAccessTo(fromSubnetA, DEVICE_GUID));
+        assertFalse(deviceAccessCache.hasAccessTo(fromSubnetB, DEVICE_GUID));
+        assertTrue(deviceAccessCache.hasAccessTo(fromSubnetA, DEVICE_GUID));
+        verify(deviceService, times(1)).hasAccessTo(fromSubnetA, DEVICE_GUID);
+        verify(deviceService, times(1)).hasAccessTo(fromSubnetB, DEVICE_GUID);
+    }
+
+    private static AccessKeyPermission permission(Long id) {
+        AccessKeyPermission permission = new AccessKeyPermission();
+        permission.setId(id);
+        return permission;
+    }
+}
@@ -0,0 +1,95 @@
+package com.devicehive.service;
+
+import com.devicehive.exceptions.ActionNotAllowedException;
+import com.devicehive.model.User;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ITopic;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UserCredentialsCacheTest {
+    private static final String LOGIN = "Test_login";
+    private static final String PASSWORD = "Test_password";
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private HazelcastInstance hazelcastInstance;
+
+    @Mock
+    private ITopic<Object> topic;
+
+    @InjectMocks
+    private UserCredentialsCache userCredentialsCache;
+
+    private User user;
+
+    @Before
+    public void setUp() {
+        when(hazelcastInstance.getTopic(anyString())).thenReturn(topic);
+        ReflectionTestUtils.setField(userCredentialsCache, "enabled", true);
+        ReflectionTestUtils.setField(userCredentialsCache, "maxSize", 100L);
+        ReflectionTestUtils.setField(userCredentialsCache, "ttlSec", 60L);
+        userCredentialsCache.init();
+
+        user = new User();
+        user.setId(1L);
+        user.setLogin(LOGIN);
+        when(userService.authenticate(LOGIN, PASSWORD)).thenReturn(user);
+    }
+
+    @Test
+    public void should_verify_credentials_once() {
+        assertEquals(LOGIN, userCredentialsCache.authenticate(LOGIN, PASSWORD).getLogin());
+        User cached = userCredentialsCache.authenticate(LOGIN, PASSWORD);
+        assertEquals(user.getId(), cached.getId());
+        assertNotSame(user, cached);
+
+        verify(userService, times(1)).authenticate(LOGIN, PASSWORD);
+        assertEquals(1, userCredentialsCache.getStats().hitCount());
+    }
+
+    @Test
+    public void should_not_cache_failed_attempts() {
+        when(userService.authenticate(LOGIN, "wrong")).thenThrow(new ActionNotAllowedException("Incorrect credentials"));
+        userCredentialsCache.authenticate(LOGIN, PASSWORD);
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                userCredentialsCache.authenticate(LOGIN, "wrong");
+                fail();
+            } catch (ActionNotAllowedException e) {
+                // expected
+            }
+        }
+        verify(userService, times(2)).authenticate(LOGIN, "wrong");
+        assertNull(userCredentialsCache.authenticate("other", PASSWORD));
+        assertNull(userCredentialsCache.authenticate("other", PASSWORD));
+        verify(userService, times(2)).authenticate("other", PASSWORD);
+    }
+
+    @Test
+    public void should_verify_credentials_again_after_invalidation() {
+        userCredentialsCache.authenticate(LOGIN, PASSWORD);
+        userCredentialsCache.invalidateUser(2L);
+        userCredentialsCache.authenticate(LOGIN, PASSWORD);
+        verify(userService, times(1)).authenticate(LOGIN, PASSWORD);
+
+        userCredentialsCache.invalidateUser(1L);
+        userCredentialsCache.authenticate(LOGIN, PASSWORD);
+        verify(userService, times(2)).authenticate(LOGIN, PASSWORD);
+        verify(topic, times(2)).publish(any());
+    }
+}
@@ -14,6 +14,8 @@ import com.devicehive.model.enums.UserStatus;
 import com.devicehive.model.updates.DeviceClassUpdate;
 import com.devicehive.model.updates.DeviceUpdate;
 import com.devicehive.model.updates.UserUpdate;
+import com.devicehive.service.helpers.DelegatingPasswordProcessor;
+import com.devicehive.service.helpers.Pbkdf2PasswordProcessor;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.hamcrest.CustomTypeSafeMatcher;
 import org.junit.Rule;
@@ -21,6 +23,9 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.sql.Timestamp;
 import java.util.*;
@@ -40,9 +45,13 @@ public class UserServiceTest extends AbstractResourceTest {
     @Autowired
     private GenericDAO genericDAO;
     @Autowired
+    private PlatformTransactionManager txManager;
+    @Autowired
     private ConfigurationService configurationService;
     @Autowired
     private DeviceService deviceService;
+    @Autowired
+    private DelegatingPasswordProcessor passwordProcessor;
 
     @Rule
     public ExpectedException expectedException = ExpectedException.none();
@@ -224,6 +233,29 @@ public class UserServiceTest extends AbstractResourceTest {
         assertThat(authenticated.getLastLogin(), notNullValue());
     }
 
+    @Test
+    public void should_rehash_password_with_current_scheme_on_login() throws Exception {
+        User user = new User();
+        user.setLogin(RandomStringUtils.randomAlphabetic(10));
+        user.setStatus(UserStatus.ACTIVE);
+        user = userService.createUser(user, "123");
+        String legacyHash = user.getPasswordHash();
+
+        ReflectionTestUtils.setField(passwordProcessor, "algorithm", "pbkdf2");
+        passwordProcessor.init();
+        try {
+            User authenticated = userService.authenticate(user.getLogin(), "123");
+            assertThat(authenticated.getPasswordHash(), startsWith(Pbkdf2PasswordProcessor.PREFIX));
+            assertThat(userService.findById(user.getId()).getPasswordHash(), not(equalTo(legacyHash)));
+            assertThat(userService.authenticate(user.getLogin(), "123"), notNullValue());
+        } finally {
+            ReflectionTestUtils.setField(passwordProcessor, "algorithm", "sha256");
+            passwordProcessor.init();
+        }
+        assertThat(userService.authenticate(user.getLogin(), "123").getPasswordHash(),
+                not(startsWith(Pbkdf2PasswordProcessor.PREFIX)));
+    }
+
     @Test
     public void should_increase_login_attempts_if_user_failed_to_login() throws Exception {
         User newUser = new User();
@@ -369,12 +401,13 @@ public class UserServiceTest extends AbstractResourceTest {
 
         configurationService.save(Constants.LAST_LOGIN_TIMEOUT, 0);
         User authenticated1 = userService.authenticate(user.getLogin(), "123");
+        Date previousLogin = moveLastLoginBack(user.getId());
         User authenticated2 = userService.authenticate(user.getLogin(), "123");
 
         assertThat(authenticated1.getId(), equalTo(authenticated2.getId()));
         assertThat(authenticated1.getLogin(), equalTo(authenticated2.getLogin()));
-        assertThat(authenticated1.getLastLogin(), not(equalTo(authenticated2.getLastLogin())));
-        assertTrue(authenticated1.getLastLogin().before(authenticated2.getLastLogin()));
+        assertTrue(previousLogin.before(authenticated2.getLastLogin()));
+        assertFalse(authenticated2.getLastLogin().before(authenticated1.getLastLogin()));
         assertThat(authenticated1.getLoginAttempts(), equalTo(authenticated2.getLoginAttempts()));
     }
 
@@ -506,12 +539,13 @@ public class UserServiceTest extends AbstractResourceTest {
 
         configurationService.save(Constants.LAST_LOGIN_TIMEOUT, 0);
         User authenticated1 = userService.findUser(user.getLogin(), "123");
+        Date previousLogin = moveLastLoginBack(user.getId());
         User authenticated2 = userService.findUser(user.getLogin(), "123");
 
         assertThat(authenticated1.getId(), equalTo(authenticated2.getId()));
         assertThat(authenticated1.getLogin(), equalTo(authenticated2.getLogin()));
-        assertThat(authenticated1.getLastLogin(), not(equalTo(authenticated2.getLastLogin())));
-        assertTrue(authenticated1.getLastLogin().before(authenticated2.getLastLogin()));
+        assertTrue(previousLogin.before(authenticated2.getLastLogin()));
+        assertFalse(authenticated2.getLastLogin().before(authenticated1.getLastLogin()));
         assertThat(authenticated1.getLoginAttempts(), equalTo(authenticated2.getLoginAttempts()));
     }
 
@@ -1280,4 +1314,15 @@ public class UserServiceTest extends AbstractResourceTest {
         List<Long> returnedIds = users.stream().map(User::getId).collect(Collectors.toList());
         assertThat(expectedIds, equalTo(returnedIds));
     }
+
+    /**
+     * Moves last login of the user a minute back, so the next login is after the timeout regardless of the clock
+     */
+    private Date moveLastLoginBack(Long userId) {
+        return new TransactionTemplate(txManager).execute(status -> {
+            User stored = genericDAO.find(User.class, userId);
+            stored.setLastLogin(new Date(stored.getLastLogin().getTime() - 60000));
+            return genericDAO.merge(stored).getLastLogin();
+        });
+    }
 }
@@ -0,0 +1,59 @@
+package com.devicehive.service.helpers;
+
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.Assert.*;
+
+public class DelegatingPasswordProcessorTest {
+
+    @Test
+    public void should_check_passwords_hashed_with_any_scheme() {
+        DelegatingPasswordProcessor processor = processor("pbkdf2", 1000);
+        PasswordProcessor sha256 = new DefaultPasswordProcessor();
+        PasswordProcessor bcrypt = new BCryptPasswordProcessor(4);
+
+        String salt = sha256.generateSalt();
+        String legacyHash = sha256.hashPassword("secret", salt);
+        assertTrue(processor.checkPassword("secret", salt, legacyHash));
+        assertFalse(processor.checkPassword("wrong", salt, legacyHash));
+
+        String bcryptSalt = bcrypt.generateSalt();
+        String bcryptHash = bcrypt.hashPassword("secret", bcryptSalt);
+        assertTrue(processor.checkPassword("secret", bcryptSalt, bcryptHash));
+        assertFalse(processor.checkPassword("wrong", bcryptSalt, bcryptHash));
+
+        salt = processor.generateSalt();
+        String hash = processor.hashPassword("secret", salt);
+        assertTrue(hash.startsWith(Pbkdf2PasswordProcessor.PREFIX + "1000$"));
+        assertEquals(hash, processor.hashPassword("secret", salt));
+        assertTrue(processor.checkPassword("secret", salt, hash));
+        assertFalse(processor.checkPassword("wrong", salt, hash));
+        assertFalse(processor.checkPassword("secret", salt, null));
+    }
+
+    @Test
+    public void should_ask_for_rehash_of_hashes_made_with_other_scheme_or_settings() {
+        DelegatingPasswordProcessor processor = processor("pbkdf2", 1000);
+        String salt = processor.generateSalt();
+        assertFalse(processor.needsRehash(salt, processor.hashPassword("secret", salt)));
+        assertTrue(processor.needsRehash(salt, new DefaultPasswordProcessor().hashPassword("secret", salt)));
+        assertTrue(processor.needsRehash(salt, new Pbkdf2PasswordProcessor(500).hashPassword("secret", salt)));
+
+        DelegatingPasswordProcessor bcrypt = processor("bcrypt", 1000);
+        salt = bcrypt.generateSalt();
+        assertFalse(bcrypt.needsRehash(salt, bcrypt.hashPassword("secret", salt)));
+        BCryptPasswordProcessor cheaper = new BCryptPasswordProcessor(5);
+        String cheaperSalt = cheaper.generateSalt();
+        assertTrue(bcrypt.needsRehash(cheaperSalt, cheaper.hashPassword("secret", cheaperSalt)));
+    }
+
+    private static DelegatingPasswordProcessor processor(String algorithm, int iterations) {
+        DelegatingPasswordProcessor processor = new DelegatingPasswordProcessor();
+        ReflectionTestUtils.setField(processor, "algorithm", algorithm);
+        ReflectionTestUtils.setField(processor, "pbkdf2Iterations", iterations);
+        ReflectionTestUtils.setField(processor, "bcryptCost", 4);
+        processor.init();
+        return processor;
+    }
+}
@@ -0,0 +1,79 @@
+package com.devicehive.service.id;
+
+import com.devicehive.exceptions.HiveException;
+import com.hazelcast.core.Cluster;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.core.Member;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class HazelcastIdServiceTest {
+    private static final String OWNER = "local-member";
+
+    @Mock
+    private HazelcastInstance hazelcastInstance;
+
+    @Mock
+    private IMap<Object, Object> nodeIds;
+
+    @InjectMocks
+    private HazelcastIdService idService;
+
+    @Before
+    public void setUp() {
+        Cluster cluster = mock(Cluster.class);
+        Member member = mock(Member.class);
+        when(hazelcastInstance.getMap(anyString())).thenReturn(nodeIds);
+        when(hazelcastInstance.getCluster()).thenReturn(cluster);
+        when(cluster.getLocalMember()).thenReturn(member);
+        when(cluster.getClusterTime()).thenAnswer(invocation -> System.currentTimeMillis());
+        when(member.getUuid()).thenReturn(OWNER);
+        ReflectionTestUtils.setField(idService, "leaseSec", 60L);
+        idService.init();
+    }
+
+    @After
+    public void tearDown() {
+        idService.shutdown();
+    }
+
+    @Test
+    public void should_lease_node_id_again_when_lease_is_expired() {
+        idService.nextId();
+        verify(nodeIds, times(1)).putIfAbsent(anyInt(), eq(OWNER), eq(60L), eq(TimeUnit.SECONDS));
+
+        ReflectionTestUtils.setField(idService, "leaseDeadline", System.nanoTime());
+        idService.nextId();
+        verify(nodeIds, times(2)).putIfAbsent(anyInt(), eq(OWNER), eq(60L), eq(TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void should_not_issue_ids_without_lease() {
+        ReflectionTestUtils.setField(idService, "leaseDeadline", System.nanoTime());
+        when(nodeIds.putIfAbsent(anyInt(), anyString(), anyLong(), any(TimeUnit.class))).thenReturn("other-member");
+        try {
+            idService.nextId();
+            fail("Id is issued without lease");
+        } catch (HiveException e) {
+            assertEquals(503, e.getCode().intValue());
+        }
+    }
+}
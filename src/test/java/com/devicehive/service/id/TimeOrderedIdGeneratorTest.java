@@ -0,0 +1,93 @@
+package com.devicehive.service.id;
+
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class TimeOrderedIdGeneratorTest {
+    private static final long NOW = 1450000000000L;
+
+    @Test
+    public void should_encode_time_and_node() {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(() -> NOW, 5);
+        long id = generator.nextId();
+        assertEquals(NOW, TimeOrderedIdGenerator.timestampOf(id));
+        assertTrue(id >= TimeOrderedIdGenerator.minIdAt(NOW));
+        assertTrue(id < TimeOrderedIdGenerator.minIdAt(NOW + 1));
+        assertTrue(id > 0);
+    }
+
+    @Test
+    public void should_be_monotonic_when_clock_goes_backwards() {
+        AtomicLong clock = new AtomicLong(NOW);
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(clock::get, 1);
+        long previous = generator.nextId();
+        for (int i = 0; i < 10000; i++) {
+            if (i == 5000) {
+                clock.set(NOW - 1000);
+            }
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+        // sequence overflows moved the generator ahead of the clock
+        assertEquals(NOW + 10000 / (1 << TimeOrderedIdGenerator.SEQUENCE_BITS),
+                TimeOrderedIdGenerator.timestampOf(previous));
+    }
+
+    @Test
+    public void should_be_monotonic_when_node_id_decreases() {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(() -> NOW, 10);
+        long first = generator.nextId();
+        generator.setNodeId(3);
+        long second = generator.nextId();
+        assertTrue(second > first);
+    }
+
+    @Test
+    public void should_fit_into_javascript_number() {
+        // 2084-01-01T00:00:00Z
+        long time = 3597523200000L;
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(() -> time, TimeOrderedIdGenerator.MAX_NODE_ID);
+        long id = 0;
+        for (int i = 0; i < 1000; i++) {
+            id = generator.nextId();
+        }
+        assertTrue(id < 1L << 53);
+        assertEquals(time, TimeOrderedIdGenerator.timestampOf(TimeOrderedIdGenerator.minIdAt(time)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_reject_invalid_node_id() {
+        new TimeOrderedIdGenerator(() -> NOW, TimeOrderedIdGenerator.MAX_NODE_ID + 1);
+    }
+
+    @Test
+    public void should_generate_unique_ids_concurrently() throws Exception {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(System::currentTimeMillis, 0);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        int threads = 4;
+        int perThread = 50000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    ids.add(generator.nextId());
+                }
+                latch.countDown();
+            });
+        }
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(threads * perThread, ids.size());
+    }
+}
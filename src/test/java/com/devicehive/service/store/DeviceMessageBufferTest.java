@@ -0,0 +1,106 @@
+package com.devicehive.service.store;
+
+import com.devicehive.model.DeviceCommand;
+import com.devicehive.model.DeviceNotification;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DeviceMessageBufferTest {
+    private static final String DEVICE_GUID = "Test_device_guid";
+
+    @Test
+    public void should_keep_latest_messages_in_timestamp_order() {
+        DeviceMessageBuffer buffer = new DeviceMessageBuffer();
+        buffer.put(notification(1, "a", 1000), 3);
+        buffer.put(notification(2, "b", 3000), 3);
+        // late message from another node
+        buffer.put(notification(3, "c", 2000), 3);
+        buffer.put(notification(4, "d", 4000), 3);
+
+        assertEquals(3, buffer.size());
+        List<DeviceNotification> all = buffer.find(MessageFilter.byId(null, null), 0);
+        assertEquals(Arrays.asList(4L, 2L, 3L), ids(all));
+    }
+
+    @Test
+    public void should_stop_at_timestamp_and_take() {
+        DeviceMessageBuffer buffer = new DeviceMessageBuffer();
+        for (int i = 1; i <= 10; i++) {
+            buffer.put(notification(i, i % 2 == 0 ? "even" : "odd", i * 1000), 100);
+        }
+
+        MessageFilter since = new MessageFilter(null, null, null, Collections.singletonList("even"), new Date(4000),
+                null, null);
+        List<DeviceNotification> result = buffer.find(since, 2);
+        assertEquals(Arrays.asList(10L, 8L), ids(result));
+
+        assertEquals(Arrays.asList(10L, 8L, 6L), ids(buffer.find(since, 0)));
+        assertTrue(buffer.find(MessageFilter.byId(42L, DEVICE_GUID), 1).isEmpty());
+    }
+
+    @Test
+    public void should_skip_and_drop_expired_messages() {
+        DeviceMessageBuffer buffer = new DeviceMessageBuffer();
+        assertEquals(0, buffer.put(notification(1, "a", 1000), 5000, 10, 1000));
+        assertEquals(0, buffer.put(notification(2, "b", 2000), 3500, 10, 2000));
+        assertEquals(0, buffer.put(notification(3, "c", 3000), 10000, 10, 3000));
+
+        MessageFilter all = MessageFilter.byId(null, null);
+        assertEquals(Arrays.asList(3L, 1L), ids(buffer.find(all, 0, 4000)));
+
+        // expired message and the one above capacity are dropped
+        assertEquals(2, buffer.put(notification(4, "d", 4000), 10000, 2, 5500));
+        assertEquals(2, buffer.size());
+        assertEquals(Arrays.asList(4L, 3L), ids(buffer.find(all, 0, 5500)));
+    }
+
+    @Test
+    public void should_replace_updated_command() {
+        DeviceMessageBuffer buffer = new DeviceMessageBuffer();
+        DeviceCommand command = command(1, 1000, false);
+        buffer.put(command, 10);
+        buffer.put(command(2, 2000, false), 10);
+
+        buffer.put(command(1, 1000, true), 10);
+
+        assertEquals(2, buffer.size());
+        MessageFilter updated = new MessageFilter(null, null, null, null, null, null, true);
+        List<DeviceCommand> result = buffer.find(updated, 0);
+        assertEquals(1, result.size());
+        assertEquals(Long.valueOf(1), result.get(0).getId());
+    }
+
+    private static List<Long> ids(List<? extends DeviceNotification> notifications) {
+        Long[] ids = new Long[notifications.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = notifications.get(i).getId();
+        }
+        return Arrays.asList(ids);
+    }
+
+    private static DeviceNotification notification(long id, String name, long timestamp) {
+        DeviceNotification notification = new DeviceNotification();
+        notification.setId(id);
+        notification.setNotification(name);
+        notification.setDeviceGuid(DEVICE_GUID);
+        notification.setTimestamp(new Date(timestamp));
+        return notification;
+    }
+
+    private static DeviceCommand command(long id, long timestamp, boolean updated) {
+        DeviceCommand command = new DeviceCommand();
+        command.setId(id);
+        command.setCommand("command");
+        command.setDeviceGuid(DEVICE_GUID);
+        command.setTimestamp(new Date(timestamp));
+        command.setIsUpdated(updated);
+        return command;
+    }
+}
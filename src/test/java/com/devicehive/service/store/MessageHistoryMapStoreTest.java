@@ -0,0 +1,67 @@
+package com.devicehive.service.store;
+
+import com.devicehive.dao.MessageHistoryDAO;
+import com.devicehive.model.DeviceCommand;
+import com.devicehive.model.DeviceNotification;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MessageHistoryMapStoreTest {
+
+    @Mock
+    private MessageHistoryDAO messageHistoryDAO;
+
+    @InjectMocks
+    private MessageHistoryMapStore mapStore;
+
+    @Test
+    public void should_split_batch_by_message_type() {
+        DeviceNotification first = notification(1);
+        DeviceNotification second = notification(2);
+        DeviceCommand command = new DeviceCommand();
+        command.setId(3);
+        command.setDeviceGuid("guid");
+        command.setTimestamp(new Date());
+
+        Map<Object, Object> batch = new LinkedHashMap<>();
+        batch.put(MapMessageStore.keyOf(first), first);
+        batch.put(MapMessageStore.keyOf(command), command);
+        batch.put(MapMessageStore.keyOf(second), second);
+        mapStore.storeAll(batch);
+
+        verify(messageHistoryDAO).insertNotifications(Arrays.asList(first, second));
+        verify(messageHistoryDAO).insertCommands(Collections.singletonList(command));
+    }
+
+    @Test
+    public void should_keep_history_on_delete() {
+        DeviceNotification notification = notification(1);
+        mapStore.store(MapMessageStore.keyOf(notification), notification);
+        mapStore.delete(MapMessageStore.keyOf(notification));
+
+        verify(messageHistoryDAO).insertNotifications(Collections.singletonList(notification));
+        verify(messageHistoryDAO, never()).insertCommands(anyListOf(DeviceCommand.class));
+        verifyNoMoreInteractions(messageHistoryDAO);
+    }
+
+    private static DeviceNotification notification(long id) {
+        DeviceNotification notification = new DeviceNotification();
+        notification.setId(id);
+        notification.setDeviceGuid("guid");
+        notification.setTimestamp(new Date());
+        return notification;
+    }
+}
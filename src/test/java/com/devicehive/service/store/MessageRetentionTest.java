@@ -0,0 +1,41 @@
+package com.devicehive.service.store;
+
+import com.devicehive.model.DeviceCommand;
+import com.devicehive.model.DeviceNotification;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+
+public class MessageRetentionTest {
+    private final MessageRetention retention = new MessageRetention(600, 300, 0, 3600);
+
+    @Test
+    public void should_use_command_lifetime_when_present() {
+        DeviceCommand command = new DeviceCommand();
+        command.setTimestamp(new Date(1000));
+        assertEquals(300, retention.ttlSec(command));
+        assertEquals(301000, retention.expiresAt(command));
+
+        command.setLifetime(30);
+        assertEquals(30, retention.ttlSec(command));
+        assertEquals(31000, retention.expiresAt(command));
+    }
+
+    @Test
+    public void should_limit_ttl_by_max_ttl() {
+        DeviceCommand command = new DeviceCommand();
+        command.setLifetime(7200);
+        assertEquals(3600, retention.ttlSec(command));
+        assertEquals(3600, new MessageRetention(0, 0, 0, 3600).ttlSec(new DeviceNotification()));
+    }
+
+    @Test
+    public void should_never_expire_with_zero_ttl() {
+        DeviceNotification notification = new DeviceNotification();
+        notification.setTimestamp(new Date(1000));
+        assertEquals(601000, retention.expiresAt(notification));
+        assertEquals(Long.MAX_VALUE, new MessageRetention(0, 0, 0, 0).expiresAt(notification));
+    }
+}
@@ -0,0 +1,66 @@
+package com.devicehive.service.store;
+
+import com.devicehive.model.DeviceCommand;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MessageSortTest {
+
+    @Test
+    public void should_sort_by_field_then_by_timestamp() {
+        List<DeviceCommand> commands = commands();
+
+        assertEquals(Arrays.asList(4L, 3L, 2L, 1L), ids(MessageSort.NEWEST_FIRST.page(commands, 0, 0)));
+        MessageSort byStatus = new MessageSort(MessageSort.Field.STATUS, true);
+        // null status first, equal statuses ordered by timestamp
+        assertEquals(Arrays.asList(3L, 1L, 4L, 2L), ids(byStatus.page(commands, 0, 0)));
+        MessageSort byNameDesc = new MessageSort(MessageSort.Field.NAME, false);
+        assertEquals(Arrays.asList(4L, 2L, 1L, 3L), ids(byNameDesc.page(commands, 0, 0)));
+    }
+
+    @Test
+    public void should_return_requested_page() {
+        MessageSort oldestFirst = new MessageSort(MessageSort.Field.TIMESTAMP, true);
+        assertEquals(Arrays.asList(2L, 3L), ids(oldestFirst.page(commands(), 1, 2)));
+        assertEquals(Arrays.asList(3L, 4L), ids(oldestFirst.page(commands(), 2, Integer.MAX_VALUE)));
+        assertEquals(Arrays.asList(4L), ids(oldestFirst.page(commands(), 3, 0)));
+        assertTrue(oldestFirst.page(commands(), 5, 3).isEmpty());
+    }
+
+    @Test
+    public void should_limit_materialized_messages() {
+        assertEquals(0, MessageSort.limitOf(10, 0));
+        assertEquals(15, MessageSort.limitOf(10, 5));
+        assertEquals(Integer.MAX_VALUE, MessageSort.limitOf(10, Integer.MAX_VALUE));
+    }
+
+    private static List<DeviceCommand> commands() {
+        List<DeviceCommand> commands = new ArrayList<>();
+        commands.add(command(1, "b", "done"));
+        commands.add(command(2, "c", "failed"));
+        commands.add(command(3, "a", null));
+        commands.add(command(4, "c", "done"));
+        return commands;
+    }
+
+    private static DeviceCommand command(long id, String name, String status) {
+        DeviceCommand command = new DeviceCommand();
+        command.setId(id);
+        command.setCommand(name);
+        command.setStatus(status);
+        command.setTimestamp(new Date(id * 1000));
+        return command;
+    }
+
+    private static List<Long> ids(List<DeviceCommand> commands) {
+        return commands.stream().map(DeviceCommand::getId).collect(Collectors.toList());
+    }
+}
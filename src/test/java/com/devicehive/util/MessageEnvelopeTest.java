@@ -0,0 +1,38 @@
+package com.devicehive.util;
+
+import com.devicehive.json.GsonFactory;
+import com.devicehive.model.DeviceNotification;
+import com.devicehive.model.JsonStringWrapper;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class MessageEnvelopeTest {
+
+    @Test
+    public void should_render_same_message_as_json_object() {
+        DeviceNotification notification = new DeviceNotification();
+        notification.setId(42L);
+        notification.setDeviceGuid("Test_device_guid");
+        notification.setNotification("temperature");
+        notification.setTimestamp(new Date());
+        notification.setParameters(new JsonStringWrapper("{\"value\": \"\\\"quoted\\\"\"}"));
+        MessageEnvelope envelope = ServerResponsesFactory.createNotificationInsertEnvelope(notification);
+
+        for (int i = 0; i < 2; i++) {
+            UUID subId = UUID.randomUUID();
+            JsonObject json = envelope.toJson(subId);
+            String rendered = envelope.render(subId);
+
+            assertThat(rendered, is(GsonFactory.createGson().toJson(json)));
+            assertThat(new JsonParser().parse(rendered).getAsJsonObject().get("subscriptionId").getAsString(),
+                    is(subId.toString()));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.devicehive.util;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TimerWheelTest {
+
+    private TimerWheel timer;
+
+    @Before
+    public void setUp() {
+        timer = new TimerWheel("test-timer", 10, TimeUnit.MILLISECONDS, 8, MoreExecutors.sameThreadExecutor());
+    }
+
+    @After
+    public void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    public void should_fire_not_earlier_than_delay() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        long start = System.nanoTime();
+        // longer than one wheel rotation
+        TimerWheel.Timeout timeout = timer.schedule(fired::countDown, 150, TimeUnit.MILLISECONDS);
+
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 150);
+        assertTrue(timeout.isExpired());
+        assertFalse(timeout.cancel());
+        assertEquals(0, timer.getPending());
+    }
+
+    @Test
+    public void should_not_fire_cancelled_timeout() throws InterruptedException {
+        AtomicInteger fired = new AtomicInteger();
+        CountDownLatch control = new CountDownLatch(1);
+        TimerWheel.Timeout timeout = timer.schedule(fired::incrementAndGet, 50, TimeUnit.MILLISECONDS);
+        timer.schedule(control::countDown, 100, TimeUnit.MILLISECONDS);
+        assertEquals(2, timer.getPending());
+
+        assertTrue(timeout.cancel());
+        assertTrue(control.await(5, TimeUnit.SECONDS));
+        assertEquals(0, fired.get());
+        assertEquals(0, timer.getPending());
+    }
+}
@@ -0,0 +1,87 @@
+package com.devicehive.websockets.converters;
+
+import com.devicehive.model.DeviceCommand;
+import com.devicehive.model.DeviceNotification;
+import com.devicehive.model.JsonStringWrapper;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class BinaryConverterTest {
+    private static final String TOPIC = "topic";
+
+    private final DeviceNotificationBinaryConverter notificationConverter = new DeviceNotificationBinaryConverter();
+    private final DeviceCommandBinaryConverter commandConverter = new DeviceCommandBinaryConverter();
+
+    @Test
+    public void should_round_trip_notification() {
+        DeviceNotification notification = notification();
+
+        byte[] bytes = notificationConverter.serialize(TOPIC, notification);
+
+        assertEquals(AbstractBinaryConverter.MAGIC, bytes[0]);
+        assertEquals(AbstractBinaryConverter.VERSION, bytes[1]);
+        DeviceNotification result = notificationConverter.deserialize(TOPIC, bytes);
+        assertEquals(notification, result);
+        assertEquals(notification.getParameters(), result.getParameters());
+    }
+
+    @Test
+    public void should_round_trip_command_with_nulls() {
+        DeviceCommand command = new DeviceCommand();
+        command.setCommand("команда");
+        command.setDeviceGuid("guid");
+        command.setParameters(new JsonStringWrapper("{\"x\":[1,2,3]}"));
+        command.setIsUpdated(false);
+
+        DeviceCommand result = commandConverter.deserialize(TOPIC, commandConverter.serialize(TOPIC, command));
+
+        assertEquals(command, result);
+        assertNull(result.getId());
+        assertNull(result.getResult());
+
+        command.setId(42L);
+        command.setUserId(7L);
+        command.setTimestamp(new Date());
+        command.setLifetime(100);
+        command.setStatus("done");
+        command.setResult(new JsonStringWrapper("\"ok\""));
+        command.setIsUpdated(true);
+        assertEquals(command, commandConverter.deserialize(TOPIC, commandConverter.serialize(TOPIC, command)));
+    }
+
+    @Test
+    public void should_read_legacy_json() {
+        DeviceNotification notification = notification();
+        byte[] json = new DeviceNotificationConverter().toBytes(notification);
+
+        assertEquals(notification, notificationConverter.deserialize(TOPIC, json));
+    }
+
+    @Test
+    public void should_skip_unknown_version() {
+        byte[] bytes = notificationConverter.serialize(TOPIC, notification());
+        bytes[1] = AbstractBinaryConverter.VERSION + 1;
+        assertNull(notificationConverter.deserialize(TOPIC, bytes));
+    }
+
+    @Test
+    public void should_skip_truncated_message() {
+        byte[] bytes = notificationConverter.serialize(TOPIC, notification());
+        assertNull(notificationConverter.deserialize(TOPIC, Arrays.copyOf(bytes, bytes.length - 3)));
+    }
+
+    private static DeviceNotification notification() {
+        DeviceNotification notification = new DeviceNotification();
+        notification.setId(1L);
+        notification.setNotification("temperature");
+        notification.setDeviceGuid("E50D6085-2ABA-48E9-B1C3-73C673E414BE");
+        notification.setTimestamp(new Date());
+        notification.setParameters(new JsonStringWrapper("{\"value\":\"22.5°C\"}"));
+        return notification;
+    }
+}
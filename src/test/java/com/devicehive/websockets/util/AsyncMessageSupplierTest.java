@@ -0,0 +1,95 @@
+package com.devicehive.websockets.util;
+
+import com.devicehive.websockets.HiveWebsocketSessionState;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.*;
+
+public class AsyncMessageSupplierTest {
+
+    private AsyncMessageSupplier supplier;
+    private WebSocketSession session;
+    private HiveWebsocketSessionState state;
+
+    @Before
+    public void setUp() {
+        supplier = new AsyncMessageSupplier();
+        ReflectionTestUtils.setField(supplier, "executor", MoreExecutors.sameThreadExecutor());
+        ReflectionTestUtils.setField(supplier, "batchEnabled", true);
+        ReflectionTestUtils.setField(supplier, "batchMaxMessages", 2);
+        ReflectionTestUtils.setField(supplier, "batchMaxBytes", 65536);
+        supplier.init();
+
+        state = new HiveWebsocketSessionState();
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(HiveWebsocketSessionState.KEY, state);
+        session = mock(WebSocketSession.class);
+        when(session.getAttributes()).thenReturn(attributes);
+        when(session.isOpen()).thenReturn(true);
+    }
+
+    @Test
+    public void should_send_queued_messages_as_bounded_array_frames() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            state.getQueue().add(message(i));
+        }
+        state.getQueue().add(AsyncMessageSupplier.PING_JSON_MSG);
+
+        supplier.deliverMessages(session);
+
+        ArgumentCaptor<WebSocketMessage> captor = ArgumentCaptor.forClass(WebSocketMessage.class);
+        verify(session, times(3)).sendMessage(captor.capture());
+        List<WebSocketMessage> sent = captor.getAllValues();
+        JsonArray first = new JsonParser().parse(((TextMessage) sent.get(0)).getPayload()).getAsJsonArray();
+        JsonArray second = new JsonParser().parse(((TextMessage) sent.get(1)).getPayload()).getAsJsonArray();
+        assertThat(first.size(), is(2));
+        assertThat(second.size(), is(1));
+        assertThat(second.get(0).getAsJsonObject().get("id").getAsInt(), is(2));
+        assertThat(((TextMessage) sent.get(0)).getPayload().contains("\n"), is(false));
+        assertThat(sent.get(2), instanceOf(PingMessage.class));
+        assertThat(state.getQueue().isEmpty(), is(true));
+        assertThat(state.getDeliveryScheduled().get(), is(false));
+    }
+
+    @Test
+    public void should_keep_message_queued_when_sending_fails() throws Exception {
+        ReflectionTestUtils.setField(supplier, "batchEnabled", false);
+        doThrow(new IOException("broken pipe")).doNothing().when(session).sendMessage(any(TextMessage.class));
+        state.getQueue().add(message(0));
+
+        supplier.deliverMessages(session);
+
+        assertThat(state.getQueue().size(), is(1));
+        assertThat(state.getDeliveryScheduled().get(), is(false));
+
+        supplier.deliverMessages(session);
+
+        verify(session, times(2)).sendMessage(any(TextMessage.class));
+        assertThat(state.getQueue().isEmpty(), is(true));
+    }
+
+    private static JsonObject message(int id) {
+        JsonObject object = new JsonObject();
+        object.addProperty("id", id);
+        return object;
+    }
+}
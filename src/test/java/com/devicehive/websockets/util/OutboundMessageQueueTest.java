@@ -0,0 +1,78 @@
+package com.devicehive.websockets.util;
+
+import com.devicehive.configuration.Constants;
+import com.google.gson.JsonObject;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.devicehive.websockets.util.OutboundMessageQueue.OverflowPolicy.*;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class OutboundMessageQueueTest {
+
+    @Test
+    public void should_drop_oldest_message() {
+        OutboundMessageQueue queue = new OutboundMessageQueue(2, DROP_OLDEST);
+        queue.add(message("a", 1));
+        queue.add(message("b", 2));
+        queue.add(message("c", 3));
+
+        assertThat(queue.size(), is(2));
+        assertThat(queue.getDropped(), is(1L));
+        assertThat(id(queue.poll()), is(2));
+        assertThat(id(queue.poll()), is(3));
+    }
+
+    @Test
+    public void should_drop_newest_message() {
+        OutboundMessageQueue queue = new OutboundMessageQueue(2, DROP_NEWEST);
+        queue.add(message("a", 1));
+        queue.add(message("b", 2));
+
+        assertThat(queue.offer(message("c", 3)), is(false));
+        assertThat(queue.getDropped(), is(1L));
+        assertThat(id(queue.poll()), is(1));
+        assertThat(id(queue.poll()), is(2));
+    }
+
+    @Test
+    public void should_coalesce_messages_of_same_device() {
+        OutboundMessageQueue queue = new OutboundMessageQueue(2, COALESCE_BY_DEVICE);
+        queue.add(message("a", 1));
+        queue.add(message("b", 2));
+        queue.add(message("a", 3));
+        queue.add(message("c", 4));
+
+        assertThat(queue.size(), is(2));
+        assertThat(queue.getDropped(), is(2L));
+        assertThat(id(queue.poll()), is(3));
+        assertThat(id(queue.poll()), is(4));
+    }
+
+    @Test
+    public void should_notify_listener_on_overflow() {
+        AtomicInteger overflows = new AtomicInteger();
+        OutboundMessageQueue queue = new OutboundMessageQueue(1, DISCONNECT);
+        queue.setOverflowListener(overflows::incrementAndGet);
+        queue.add(message("a", 1));
+
+        assertThat(queue.offer(message("a", 2)), is(false));
+        assertThat(overflows.get(), is(1));
+        assertThat(queue.size(), is(1));
+    }
+
+    private static JsonObject message(String deviceGuid, int id) {
+        JsonObject object = new JsonObject();
+        object.addProperty("action", "notification/insert");
+        object.addProperty(Constants.DEVICE_GUID, deviceGuid);
+        object.addProperty(Constants.SUBSCRIPTION_ID, "sub");
+        object.addProperty("id", id);
+        return object;
+    }
+
+    private static int id(Object message) {
+        return ((JsonObject) message).get("id").getAsInt();
+    }
+}